@@ -2,6 +2,7 @@ package com.luv2code.demo.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -39,8 +40,9 @@ public class SecurityConfiguration {
 
 		http.csrf(csrf -> csrf.disable())
 				.authorizeHttpRequests(
-						request -> request.requestMatchers("/api/v1/auth/**", "/api/v1/files/**", "/api/v1/otps/**")
-								.permitAll().anyRequest().authenticated())
+						request -> request.requestMatchers("/api/v1/auth/**", "/api/v1/otps/**").permitAll()
+								.requestMatchers(HttpMethod.GET, "/api/v1/files").permitAll()
+								.anyRequest().authenticated())
 				.authenticationProvider(authenticationProvider())
 				.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
 				.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
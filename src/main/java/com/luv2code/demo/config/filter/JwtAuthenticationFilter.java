@@ -10,6 +10,9 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.web.servlet.HandlerExceptionResolver;
 
+import com.luv2code.demo.helper.ITokenRevocationList;
+import com.luv2code.demo.helper.IUserPrincipalCache;
+import com.luv2code.demo.security.JwtToken;
 import com.luv2code.demo.service.IJwtService;
 import com.luv2code.demo.service.impl.UserDetailService;
 
@@ -26,24 +29,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final HandlerExceptionResolver handlerExceptionResolver;
     private final IJwtService jwtService;
     private final UserDetailService userService;
+    private final IUserPrincipalCache userPrincipalCache;
+    private final ITokenRevocationList tokenRevocationList;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
         String authHeader = request.getHeader("Authorization");
-        String token = null;
+        JwtToken token = null;
         String username = null;
 
         try {
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                token = authHeader.substring(7);
-                username = jwtService.extractUsername(token);
+                token = jwtService.parseToken(authHeader.substring(7));
+                if (!tokenRevocationList.isRevoked(token.getClaims().getId())) {
+                    username = token.getSubject();
+                }
             }
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-                UserDetails userDetails = userService.loadUserByUsername(username);
+                UserDetails userDetails = jwtService.extractPrincipal(token);
+                if (userDetails == null) {
+                    userDetails = userPrincipalCache.getUserPrincipal(username, userService::loadUserByUsername);
+                }
+
                 if (jwtService.validateToken(token, userDetails)) {
                     UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                             userDetails, null, userDetails.getAuthorities());
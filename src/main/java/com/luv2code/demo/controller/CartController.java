@@ -3,6 +3,7 @@ package com.luv2code.demo.controller;
 import java.util.Map;
 
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.luv2code.demo.dto.request.CartRequestDTO;
 import com.luv2code.demo.dto.response.ApiResponseDTO;
 import com.luv2code.demo.dto.response.CartItemResponseDTO;
+import com.luv2code.demo.security.SecurityUser;
 import com.luv2code.demo.service.ICartService;
 
 import jakarta.validation.Valid;
@@ -29,9 +31,10 @@ public class CartController {
     private final ICartService cartService;
 
     @PostMapping("")
-    public CartItemResponseDTO addCartItem(@Valid @RequestBody CartRequestDTO cartRequestDTO) {
+    public CartItemResponseDTO addCartItem(@AuthenticationPrincipal SecurityUser securityUser,
+            @Valid @RequestBody CartRequestDTO cartRequestDTO) {
 
-        return cartService.addCartItem(cartRequestDTO);
+        return cartService.addCartItem(securityUser.getUserId(), cartRequestDTO);
 
     }
 
@@ -50,9 +53,9 @@ public class CartController {
     }
 
     @GetMapping("")
-    public ResponseEntity<Map<String, Object>> getAllCartItem(@RequestParam(required = true) String userEmail) {
+    public ResponseEntity<Map<String, Object>> getAllCartItem(@AuthenticationPrincipal SecurityUser securityUser) {
 
-        return cartService.getAllCartItemsForUserEmail(userEmail);
+        return cartService.getAllCartItemsForUser(securityUser.getUserId());
 
     }
 
@@ -5,6 +5,7 @@ import java.util.List;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -17,6 +18,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.luv2code.demo.dto.request.CategoryRequestDTO;
 import com.luv2code.demo.dto.response.ApiResponseDTO;
 import com.luv2code.demo.dto.response.CategoryResponseDTO;
+import com.luv2code.demo.security.SecurityUser;
 import com.luv2code.demo.service.ICategoryService;
 
 import jakarta.validation.Valid;
@@ -47,19 +49,21 @@ public class CategoryController {
 
     @PostMapping("")
     @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
-    public CategoryResponseDTO createCategory(@Valid @ModelAttribute CategoryRequestDTO categoryRequestDTO)
+    public CategoryResponseDTO createCategory(@AuthenticationPrincipal SecurityUser securityUser,
+            @Valid @ModelAttribute CategoryRequestDTO categoryRequestDTO)
             throws IllegalStateException, IOException {
 
-        return categoryService.createCategory(categoryRequestDTO);
+        return categoryService.createCategory(securityUser.getUsername(), categoryRequestDTO);
 
     }
 
     @PutMapping("")
     @PreAuthorize("hasRole('ADMIN')")
-    public CategoryResponseDTO updateCategory(@RequestParam(required = true) String categoryName,
+    public CategoryResponseDTO updateCategory(@AuthenticationPrincipal SecurityUser securityUser,
+            @RequestParam(required = true) String categoryName,
             @Valid @ModelAttribute CategoryRequestDTO categoryRequestDTO) throws IllegalStateException, IOException {
 
-        return categoryService.updateCategory(categoryName, categoryRequestDTO);
+        return categoryService.updateCategory(securityUser.getUsername(), categoryName, categoryRequestDTO);
 
     }
 
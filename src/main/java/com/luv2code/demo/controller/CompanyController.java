@@ -5,6 +5,7 @@ import java.util.List;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -17,6 +18,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.luv2code.demo.dto.request.CompanyRequestDTO;
 import com.luv2code.demo.dto.response.ApiResponseDTO;
 import com.luv2code.demo.dto.response.CompanyResponseDTO;
+import com.luv2code.demo.security.SecurityUser;
 import com.luv2code.demo.service.ICompanyService;
 
 import jakarta.validation.Valid;
@@ -46,19 +48,21 @@ public class CompanyController {
 
     @PostMapping("")
     @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
-    public CompanyResponseDTO createCompany(@Valid @ModelAttribute CompanyRequestDTO CompanyRequestDTO)
+    public CompanyResponseDTO createCompany(@AuthenticationPrincipal SecurityUser securityUser,
+            @Valid @ModelAttribute CompanyRequestDTO CompanyRequestDTO)
             throws IllegalStateException, IOException {
 
-        return companyService.createCompany(CompanyRequestDTO);
+        return companyService.createCompany(securityUser.getUsername(), CompanyRequestDTO);
 
     }
 
     @PutMapping("")
     @PreAuthorize("hasRole('ADMIN')")
-    public CompanyResponseDTO updateCompany(@RequestParam(required = true) String companyName,
+    public CompanyResponseDTO updateCompany(@AuthenticationPrincipal SecurityUser securityUser,
+            @RequestParam(required = true) String companyName,
             @Valid @ModelAttribute CompanyRequestDTO companyRequestDTO) throws IllegalStateException, IOException {
 
-        return companyService.updateCompany(companyName, companyRequestDTO);
+        return companyService.updateCompany(securityUser.getUsername(), companyName, companyRequestDTO);
 
     }
 
@@ -1,15 +1,28 @@
 package com.luv2code.demo.controller;
 
 import java.io.IOException;
+import java.io.InputStream;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.luv2code.demo.dto.request.ChunkedUploadRequestDTO;
+import com.luv2code.demo.dto.response.ChunkedUploadResponseDTO;
+import com.luv2code.demo.helper.IChunkedUploadHelper;
 import com.luv2code.demo.helper.IFileHelper;
+import com.luv2code.demo.security.SecurityUser;
 
+import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 
 @RestController
@@ -18,11 +31,42 @@ import lombok.AllArgsConstructor;
 public class FileController {
 
     private final IFileHelper fileHelper;
+    private final IChunkedUploadHelper chunkedUploadHelper;
 
     @GetMapping("")
-    public ResponseEntity<?> downloadImage(@RequestParam String imageUrl) throws IOException {
+    public ResponseEntity<?> downloadImage(@RequestParam String imageUrl,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+            throws IOException {
 
-        return fileHelper.downloadImageFromFileSystem(imageUrl);
+        return fileHelper.downloadImageFromFileSystem(imageUrl, size, range, ifNoneMatch);
+
+    }
+
+    @PostMapping("/uploads")
+    public ChunkedUploadResponseDTO createUpload(@AuthenticationPrincipal SecurityUser securityUser,
+            @Valid @RequestBody ChunkedUploadRequestDTO chunkedUploadRequestDTO) throws IOException {
+
+        return chunkedUploadHelper.createUpload(securityUser.getUsername(), chunkedUploadRequestDTO);
+
+    }
+
+    @PutMapping("/uploads/{uploadId}")
+    public ChunkedUploadResponseDTO uploadChunk(@AuthenticationPrincipal SecurityUser securityUser,
+            @PathVariable(name = "uploadId", required = true) String uploadId,
+            @RequestHeader(value = HttpHeaders.CONTENT_RANGE, required = false) String contentRange,
+            InputStream chunk) throws IOException {
+
+        return chunkedUploadHelper.writeChunk(securityUser.getUsername(), uploadId, contentRange, chunk);
+
+    }
+
+    @GetMapping("/uploads/{uploadId}")
+    public ChunkedUploadResponseDTO getUpload(@AuthenticationPrincipal SecurityUser securityUser,
+            @PathVariable(name = "uploadId", required = true) String uploadId) throws IOException {
+
+        return chunkedUploadHelper.getUpload(securityUser.getUsername(), uploadId);
 
     }
 
@@ -4,6 +4,7 @@ import java.util.Map;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.luv2code.demo.dto.response.ApiResponseDTO;
+import com.luv2code.demo.security.SecurityUser;
 import com.luv2code.demo.service.IOrderService;
 
 import lombok.AllArgsConstructor;
@@ -24,9 +26,9 @@ public class OrderController {
 
     @PostMapping("")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<Map<String, Object>> createOrder(@RequestParam(required = true) String userEmail) {
+    public ResponseEntity<Map<String, Object>> createOrder(@AuthenticationPrincipal SecurityUser securityUser) {
 
-        return orderService.createOrder(userEmail);
+        return orderService.createOrder(securityUser.getUserId());
 
     }
 
@@ -6,6 +6,7 @@ import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -18,13 +19,16 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.luv2code.demo.dto.request.ProductRequestDTO;
 import com.luv2code.demo.dto.response.ApiResponseDTO;
+import com.luv2code.demo.dto.response.CursorSliceResponseDTO;
 import com.luv2code.demo.dto.response.DiscountedProductsResponseDTO;
 import com.luv2code.demo.dto.response.ProductBestSellerResponseDTO;
 import com.luv2code.demo.dto.response.ProductCompanyResponseDTO;
 import com.luv2code.demo.dto.response.ProductDetailsCategoryResponseDTO;
 import com.luv2code.demo.dto.response.ProductDetailsCompanyResponseDTO;
 import com.luv2code.demo.dto.response.ProductDetailsResponseDTO;
+import com.luv2code.demo.security.SecurityUser;
 import com.luv2code.demo.service.IProductService;
+import com.luv2code.demo.service.IProductSnapshotService;
 
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
@@ -35,18 +39,19 @@ import lombok.AllArgsConstructor;
 public class ProductController {
 
     private final IProductService productService;
+    private final IProductSnapshotService productSnapshotService;
 
     @GetMapping("/bestSeller")
     public List<ProductBestSellerResponseDTO> getAllTopBestSellerProducts() {
 
-        return productService.getTopSevenProductsWithBestSeller();
+        return productSnapshotService.getTopSevenProductsWithBestSeller();
 
     }
 
     @GetMapping("/discount")
     public List<DiscountedProductsResponseDTO> getAllDiscountedProduct() {
 
-        return productService.getAllDiscountedProduct();
+        return productSnapshotService.getAllDiscountedProduct();
 
     }
 
@@ -76,6 +81,33 @@ public class ProductController {
 
     }
 
+    @GetMapping("/company/cursor")
+    public CursorSliceResponseDTO<ProductCompanyResponseDTO> getProductsInCompanyAfter(
+            @RequestParam(required = true) String companyName, @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") Integer size) {
+
+        return productService.getAllProductsInCompanyAfter(companyName, after, size);
+
+    }
+
+    @GetMapping("/details/category/cursor")
+    public CursorSliceResponseDTO<ProductDetailsCategoryResponseDTO> getProductsInCategoryAfter(
+            @RequestParam(required = true) String categoryName, @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") Integer size) {
+
+        return productService.getAllProductsDetailsInCategoryAfter(categoryName, after, size);
+
+    }
+
+    @GetMapping("/details/company/cursor")
+    public CursorSliceResponseDTO<ProductDetailsCompanyResponseDTO> getProductsDetailsInCompanyAfter(
+            @RequestParam(required = true) String companyName, @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") Integer size) {
+
+        return productService.getAllProductsDetailsInCompanyAfter(companyName, after, size);
+
+    }
+
     @GetMapping("/{theId}")
     public ProductDetailsResponseDTO getProductDetails(@PathVariable(name = "theId", required = true) Long theId) {
 
@@ -93,17 +125,17 @@ public class ProductController {
 
     @PostMapping("")
     @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
-    public ProductDetailsResponseDTO createProduct(@Valid @ModelAttribute ProductRequestDTO productRequestDTO) throws IllegalStateException, IOException {
+    public ProductDetailsResponseDTO createProduct(@AuthenticationPrincipal SecurityUser securityUser, @Valid @ModelAttribute ProductRequestDTO productRequestDTO) throws IllegalStateException, IOException {
 
-        return productService.createProduct(productRequestDTO);
+        return productService.createProduct(securityUser.getUsername(), productRequestDTO);
 
     }
 
     @PutMapping("/{theId}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
-    public ProductDetailsResponseDTO updateProduct(@PathVariable(name = "theId", required = true) Long theId, @Valid @ModelAttribute ProductRequestDTO productRequestDTO) throws IllegalStateException, IOException {
+    public ProductDetailsResponseDTO updateProduct(@AuthenticationPrincipal SecurityUser securityUser, @PathVariable(name = "theId", required = true) Long theId, @Valid @ModelAttribute ProductRequestDTO productRequestDTO) throws IllegalStateException, IOException {
 
-        return productService.updateProductById(theId, productRequestDTO);
+        return productService.updateProductById(securityUser.getUsername(), theId, productRequestDTO);
 
     }
 
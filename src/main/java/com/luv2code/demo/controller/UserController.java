@@ -5,6 +5,7 @@ import java.util.Map;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -18,6 +19,7 @@ import com.luv2code.demo.dto.request.UpdateUserImageRequestDTO;
 import com.luv2code.demo.dto.request.UpdateUserProfileRequestDTO;
 import com.luv2code.demo.dto.response.ApiResponseDTO;
 import com.luv2code.demo.dto.response.UpdateUserProfileResponseDTO;
+import com.luv2code.demo.security.SecurityUser;
 import com.luv2code.demo.service.IUserService;
 
 import jakarta.validation.Valid;
@@ -32,9 +34,9 @@ public class UserController {
 
     @PutMapping("/image")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<Map<String, String>> updateUserImage(@Valid @ModelAttribute UpdateUserImageRequestDTO upadImageRequest) throws IOException {
+    public ResponseEntity<Map<String, String>> updateUserImage(@AuthenticationPrincipal SecurityUser securityUser, @Valid @ModelAttribute UpdateUserImageRequestDTO upadImageRequest) throws IOException {
 
-        return userService.updateUserImage(upadImageRequest);
+        return userService.updateUserImage(securityUser.getUsername(), upadImageRequest);
 
     }
 
@@ -1,7 +1,6 @@
 package com.luv2code.demo.dto.request;
 
 import jakarta.validation.Valid;
-import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -14,9 +13,6 @@ import lombok.Setter;
 @NoArgsConstructor
 public class CartRequestDTO {
 
-    @NotBlank
-    private String email;
-
     @NotNull
     @Valid
     private CartItemRequestDTO cartItems;
@@ -0,0 +1,26 @@
+package com.luv2code.demo.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChunkedUploadRequestDTO {
+
+    @NotBlank
+    private String contentType;
+
+    @NotNull
+    @Positive
+    private Long size;
+
+    private String fileName;
+
+}
@@ -2,8 +2,8 @@ package com.luv2code.demo.dto.request;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -18,7 +18,13 @@ public class CompanyRequestDTO {
     @NotBlank
     private String name;
 
-    @NotNull
     private MultipartFile image;
 
+    private String uploadId;
+
+    @AssertTrue(message = "Either image or uploadId is required")
+    public boolean isImageOrUploadIdPresent() {
+        return image != null || uploadId != null;
+    }
+
 }
@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -38,12 +39,19 @@ public class ProductRequestDTO {
     @NotNull
     private Long salesCount;
 
-    @NotNull
     private MultipartFile image;
 
+    private String uploadId;
+
     @NotBlank
     private String categoryName;
 
     @NotBlank
     private String companyName;
+
+    @AssertTrue(message = "Either image or uploadId is required")
+    public boolean isImageOrUploadIdPresent() {
+        return image != null || uploadId != null;
+    }
+
 }
@@ -2,8 +2,8 @@ package com.luv2code.demo.dto.request;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -23,7 +23,13 @@ public class UpdateUserImageRequestDTO {
     @NotBlank
     private String oldImageUrl;
 
-    @NotNull
     private MultipartFile image;
 
+    private String uploadId;
+
+    @AssertTrue(message = "Either image or uploadId is required")
+    public boolean isImageOrUploadIdPresent() {
+        return image != null || uploadId != null;
+    }
+
 }
@@ -0,0 +1,22 @@
+package com.luv2code.demo.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChunkedUploadResponseDTO {
+
+    private String uploadId;
+
+    private Long size;
+
+    private Long receivedBytes;
+
+    private Boolean completed;
+
+}
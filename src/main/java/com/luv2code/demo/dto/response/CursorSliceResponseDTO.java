@@ -0,0 +1,24 @@
+package com.luv2code.demo.dto.response;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorSliceResponseDTO<T> {
+
+    private List<T> content;
+
+    private Integer size;
+
+    private Boolean hasNext;
+
+    private String nextCursor;
+
+}
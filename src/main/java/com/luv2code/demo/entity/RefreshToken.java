@@ -12,6 +12,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -23,7 +24,7 @@ import lombok.Setter;
 
 @Entity
 @Builder
-@Table(name = "refresh_token")
+@Table(name = "refresh_token", indexes = @Index(name = "idx_refresh_token_token_hash", columnList = "token_hash"))
 @Getter
 @Setter
 @AllArgsConstructor
@@ -39,6 +40,9 @@ public class RefreshToken {
     @Column(name = "token", length = 1000, nullable = false)
     private String token;
 
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
+
     @Column(name = "expire_date", nullable = false)
     private Instant expireDate;
 
@@ -5,6 +5,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -20,6 +21,7 @@ import com.luv2code.demo.exc.custom.NotFoundException;
 import com.luv2code.demo.exc.custom.QuantityNotAvailableException;
 import com.luv2code.demo.exc.custom.CalculationException;
 import com.luv2code.demo.exc.custom.ExpiredException;
+import com.luv2code.demo.exc.custom.ServiceUnavailableException;
 
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
@@ -335,6 +337,38 @@ public class GlobalExceptionHandler {
                 buildErrorResponse(StatusCode.INVALID_ARGUMENT, "CalculationException", ex.getMessage(), ex.getClass(), request));
     }
 
+    /**
+     * Handles the OptimisticLockingFailureException by building an
+     * ErrorResponse object with the appropriate status code, error type,
+     * message, and request information.
+     *
+     * @param ex the OptimisticLockingFailureException that was thrown
+     * @param request the WebRequest object containing information about the
+     * request
+     * @return the ErrorResponse object with the appropriate information
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex, WebRequest request) {
+        return ResponseEntity.status(StatusCode.CONFLICT).body(
+                buildErrorResponse(StatusCode.CONFLICT, "OptimisticLockingFailureException", ex.getMessage(), ex.getClass(), request));
+    }
+
+    /**
+     * Handles the ServiceUnavailableException by building an ErrorResponse
+     * object with the appropriate status code, error type, message, and request
+     * information.
+     *
+     * @param ex the ServiceUnavailableException that was thrown
+     * @param request the WebRequest object containing information about the
+     * request
+     * @return the ErrorResponse object with the appropriate information
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailableException(ServiceUnavailableException ex, WebRequest request) {
+        return ResponseEntity.status(StatusCode.SERVICE_UNAVAILABLE).body(
+                buildErrorResponse(StatusCode.SERVICE_UNAVAILABLE, "ServiceUnavailableException", ex.getMessage(), ex.getClass(), request));
+    }
+
     /**
      * Handles the Exception by building an ErrorResponse object with the
      * appropriate status code, error type, message, and request information.
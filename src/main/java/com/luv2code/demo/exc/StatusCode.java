@@ -18,4 +18,6 @@ public class StatusCode {
 
     public static final int METHOD_NOT_ALLOWED = 405; // for more accurate HTTP semantics.
 
+    public static final int SERVICE_UNAVAILABLE = 503; // Overloaded, retry later
+
 }
@@ -0,0 +1,16 @@
+package com.luv2code.demo.helper;
+
+import java.nio.ByteBuffer;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CachedImage {
+
+    private final ByteBuffer content;
+
+    private final String eTag;
+
+}
@@ -0,0 +1,23 @@
+package com.luv2code.demo.helper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.luv2code.demo.dto.request.ChunkedUploadRequestDTO;
+import com.luv2code.demo.dto.response.ChunkedUploadResponseDTO;
+
+public interface IChunkedUploadHelper {
+
+    ChunkedUploadResponseDTO createUpload(String owner, ChunkedUploadRequestDTO chunkedUploadRequestDTO)
+            throws IOException;
+
+    ChunkedUploadResponseDTO writeChunk(String owner, String uploadId, String contentRange, InputStream chunk)
+            throws IOException;
+
+    ChunkedUploadResponseDTO getUpload(String owner, String uploadId) throws IOException;
+
+    StagedUpload getCompletedUpload(String owner, String uploadId) throws IOException;
+
+    void discardUpload(String uploadId);
+
+}
@@ -9,8 +9,15 @@ public interface IFileHelper {
 
     public String uploadFileToFileSystem(MultipartFile file) throws IllegalStateException, IOException;
 
-    public ResponseEntity<?> downloadImageFromFileSystem(String imageUrl) throws IOException;
+    String uploadStagedFileToFileSystem(String owner, String uploadId) throws IOException;
+
+    void discardStagedUpload(String uploadId);
+
+    public ResponseEntity<?> downloadImageFromFileSystem(String imageUrl, Integer size, String range,
+            String ifNoneMatch) throws IOException;
 
     Boolean deleteImageFromFileSystem(String imageUrl) throws IOException;
 
+    void deleteImageQuietly(String imageUrl);
+
 }
@@ -0,0 +1,14 @@
+package com.luv2code.demo.helper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public interface IImageCache {
+
+    CachedImage getImage(Path filePath) throws IOException;
+
+    CachedImage getCachedImage(Path filePath);
+
+    void invalidate(Path filePath);
+
+}
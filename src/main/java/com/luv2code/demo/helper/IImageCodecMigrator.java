@@ -0,0 +1,9 @@
+package com.luv2code.demo.helper;
+
+public interface IImageCodecMigrator {
+
+    boolean isEnabled();
+
+    void migrate();
+
+}
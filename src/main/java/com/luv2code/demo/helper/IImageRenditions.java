@@ -0,0 +1,15 @@
+package com.luv2code.demo.helper;
+
+import java.nio.file.Path;
+
+public interface IImageRenditions {
+
+    void generateRenditions(Path original);
+
+    Path resolveRendition(Path original, Integer size);
+
+    Path renditionFor(Path original, Integer size);
+
+    void deleteRenditions(Path original);
+
+}
@@ -0,0 +1,15 @@
+package com.luv2code.demo.helper;
+
+public interface IInventoryLedger {
+
+    boolean isEnabled();
+
+    boolean reserve(Long productId, Integer quantity);
+
+    boolean release(Long productId, Integer quantity);
+
+    void evict(Long productId);
+
+    void flush();
+
+}
@@ -4,4 +4,10 @@ public interface IPaginationHelper {
 
     void validatePageParameters(Integer page, Integer size);
 
+    void validateSliceSize(Integer size);
+
+    Long decodeCursor(String cursor);
+
+    String encodeCursor(Long lastId);
+
 }
@@ -0,0 +1,7 @@
+package com.luv2code.demo.helper;
+
+public interface IPasswordHasher {
+
+    boolean matches(CharSequence rawPassword, String encodedPassword);
+
+}
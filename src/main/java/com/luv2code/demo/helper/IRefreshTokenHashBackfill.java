@@ -0,0 +1,9 @@
+package com.luv2code.demo.helper;
+
+public interface IRefreshTokenHashBackfill {
+
+    void backfill();
+
+    boolean isComplete();
+
+}
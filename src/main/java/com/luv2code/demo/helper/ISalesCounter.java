@@ -0,0 +1,9 @@
+package com.luv2code.demo.helper;
+
+public interface ISalesCounter {
+
+    void recordSale(Long productId, Integer quantity);
+
+    void flush();
+
+}
@@ -0,0 +1,11 @@
+package com.luv2code.demo.helper;
+
+import java.time.Instant;
+
+public interface ITokenRevocationList {
+
+    void revoke(String tokenId, Instant expiresAt);
+
+    boolean isRevoked(String tokenId);
+
+}
@@ -0,0 +1,13 @@
+package com.luv2code.demo.helper;
+
+import java.util.function.Function;
+
+import org.springframework.security.core.userdetails.UserDetails;
+
+public interface IUserPrincipalCache {
+
+    UserDetails getUserPrincipal(String email, Function<String, UserDetails> loader);
+
+    void evictUserPrincipal(String email);
+
+}
@@ -0,0 +1,20 @@
+package com.luv2code.demo.helper;
+
+import java.nio.file.Path;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class StagedUpload {
+
+    private final Path path;
+
+    private final String contentType;
+
+    private final String fileName;
+
+    private final long size;
+
+}
@@ -0,0 +1,442 @@
+package com.luv2code.demo.helper.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.luv2code.demo.dto.request.ChunkedUploadRequestDTO;
+import com.luv2code.demo.dto.response.ChunkedUploadResponseDTO;
+import com.luv2code.demo.exc.custom.NotFoundException;
+import com.luv2code.demo.exc.custom.ServiceUnavailableException;
+import com.luv2code.demo.helper.IChunkedUploadHelper;
+import com.luv2code.demo.helper.StagedUpload;
+import com.luv2code.demo.utils.FileUtils;
+
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Receives an image as a series of {@code Content-Range} chunks written
+ * straight into a staging file, so a dropped connection only loses the chunk
+ * in flight. Each upload keeps its state in a small properties file next to
+ * the data, which lets clients resume from {@code receivedBytes} even across
+ * restarts. An upload belongs to the user that created it; the number of live
+ * uploads per user and in total, and the bytes they may announce, are capped.
+ * Chunks of one upload are written under that upload's own lock, and a chunk
+ * that arrives while another is still being read is rejected rather than
+ * queued behind a possibly stalled client. A complete upload is sealed and
+ * accepts no further chunks. Uploads that are not claimed by an
+ * entity request within {@code file.chunked-upload.expiration} ms are deleted.
+ */
+@Component
+@Slf4j
+public class ChunkedUploadHelper implements IChunkedUploadHelper {
+
+    private static final String CHUNKED_UPLOAD_PREFIX = FileUtils.UPLOAD_PREFIX + "chunked-";
+    private static final String METADATA_SUFFIX = ".meta";
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+
+    private static final String CONTENT_TYPE = "contentType";
+    private static final String FILE_NAME = "fileName";
+    private static final String SIZE = "size";
+    private static final String RECEIVED_BYTES = "receivedBytes";
+    private static final String OWNER = "owner";
+
+    private final String folderPath;
+    private final long maximumSize;
+    private final long expiration;
+    private final int maximumActiveUploads;
+    private final int maximumUploadsPerUser;
+    private final long maximumStagedBytes;
+    private final Map<String, ActiveUpload> activeUploads = new ConcurrentHashMap<>();
+
+    public ChunkedUploadHelper(@Value("${file.path}") String folderPath,
+            @Value("${file.chunked-upload.maximum-size}") long maximumSize,
+            @Value("${file.chunked-upload.expiration}") long expiration,
+            @Value("${file.chunked-upload.maximum-active-uploads}") int maximumActiveUploads,
+            @Value("${file.chunked-upload.maximum-uploads-per-user}") int maximumUploadsPerUser,
+            @Value("${file.chunked-upload.maximum-staged-bytes}") long maximumStagedBytes) {
+        this.folderPath = folderPath;
+        this.maximumSize = maximumSize;
+        this.expiration = expiration;
+        this.maximumActiveUploads = maximumActiveUploads;
+        this.maximumUploadsPerUser = maximumUploadsPerUser;
+        this.maximumStagedBytes = maximumStagedBytes;
+    }
+
+    /**
+     * Registers the uploads left on disk by a previous run, so they can still
+     * be resumed and count towards the limits.
+     */
+    @PostConstruct
+    public void loadActiveUploads() {
+
+        Path folder = Paths.get(folderPath);
+
+        if (!Files.isDirectory(folder)) {
+            return;
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder,
+                CHUNKED_UPLOAD_PREFIX + "*" + METADATA_SUFFIX)) {
+            for (Path metadataPath : stream) {
+                String fileName = metadataPath.getFileName().toString();
+                String uploadId = fileName.substring(CHUNKED_UPLOAD_PREFIX.length(),
+                        fileName.length() - METADATA_SUFFIX.length());
+                try {
+                    Properties metadata = readMetadata(uploadId);
+                    activeUploads.put(uploadId, new ActiveUpload(metadata.getProperty(OWNER, ""),
+                            Long.parseLong(metadata.getProperty(SIZE)), new ReentrantLock()));
+                } catch (IOException | RuntimeException e) {
+                    log.error("Failed to load chunked upload {}, skipping it", uploadId, e);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to load chunked uploads in {}", folderPath, e);
+        }
+
+        log.info("Loaded {} chunked uploads", activeUploads.size());
+
+    }
+
+    @Override
+    public ChunkedUploadResponseDTO createUpload(String owner, ChunkedUploadRequestDTO chunkedUploadRequestDTO)
+            throws IOException {
+
+        String contentType = chunkedUploadRequestDTO.getContentType();
+        long size = chunkedUploadRequestDTO.getSize();
+
+        if (!FileUtils.isSupportedImageType(contentType)) {
+            log.warn("Unsupported file type for chunked upload: {}", contentType);
+            throw new IllegalArgumentException("Only PNG, JPEG, JPG, and SVG images are supported");
+        }
+
+        if (size > maximumSize) {
+            log.warn("Chunked upload of {} bytes exceeds the limit of {} bytes", size, maximumSize);
+            throw new IllegalArgumentException("File is larger than " + maximumSize + " bytes");
+        }
+
+        String uploadId = UUID.randomUUID().toString();
+        String fileName = chunkedUploadRequestDTO.getFileName() == null ? "upload"
+                : Paths.get(chunkedUploadRequestDTO.getFileName()).getFileName().toString();
+
+        ActiveUpload upload = new ActiveUpload(owner, size, new ReentrantLock());
+        upload.getLock().lock();
+
+        try {
+            register(uploadId, upload);
+            createFiles(uploadId, owner, contentType, fileName, size);
+        } finally {
+            upload.getLock().unlock();
+        }
+
+        log.info("Chunked upload created by {} for {} bytes", owner, size);
+        log.debug("Chunked upload {} created by {}", uploadId, owner);
+
+        return getUpload(owner, uploadId);
+
+    }
+
+    private void register(String uploadId, ActiveUpload upload) {
+
+        String owner = upload.getOwner();
+
+        synchronized (activeUploads) {
+            if (activeUploads.size() >= maximumActiveUploads) {
+                log.warn("Chunked upload rejected, {} uploads are already in progress", activeUploads.size());
+                throw new ServiceUnavailableException("Too many uploads in progress, please try again later");
+            }
+
+            if (activeUploads.values().stream().filter(active -> active.getOwner().equals(owner))
+                    .count() >= maximumUploadsPerUser) {
+                log.warn("Chunked upload rejected, {} already has {} uploads in progress", owner,
+                        maximumUploadsPerUser);
+                throw new IllegalArgumentException("At most " + maximumUploadsPerUser
+                        + " uploads can be in progress at the same time");
+            }
+
+            long stagedBytes = activeUploads.values().stream().mapToLong(ActiveUpload::getSize).sum();
+
+            if (stagedBytes + upload.getSize() > maximumStagedBytes) {
+                log.warn("Chunked upload of {} bytes rejected, {} bytes are already staged", upload.getSize(),
+                        stagedBytes);
+                throw new ServiceUnavailableException("Too many uploads in progress, please try again later");
+            }
+
+            activeUploads.put(uploadId, upload);
+        }
+
+    }
+
+    private void createFiles(String uploadId, String owner, String contentType, String fileName, long size)
+            throws IOException {
+
+        Properties metadata = new Properties();
+        metadata.setProperty(CONTENT_TYPE, contentType);
+        metadata.setProperty(FILE_NAME, fileName);
+        metadata.setProperty(SIZE, Long.toString(size));
+        metadata.setProperty(RECEIVED_BYTES, "0");
+        metadata.setProperty(OWNER, owner);
+
+        try {
+            Files.createDirectories(Paths.get(folderPath));
+            Files.createFile(dataPath(uploadId));
+            writeMetadata(uploadId, metadata);
+        } catch (IOException | RuntimeException e) {
+            discardUpload(uploadId);
+            throw e;
+        }
+
+    }
+
+    @Override
+    public ChunkedUploadResponseDTO writeChunk(String owner, String uploadId, String contentRange,
+            InputStream chunk) throws IOException {
+
+        Matcher matcher = contentRange == null ? null : CONTENT_RANGE.matcher(contentRange);
+
+        if (matcher == null || !matcher.matches()) {
+            throw new IllegalArgumentException("Content-Range must be of the form bytes start-end/size");
+        }
+
+        long start = Long.parseLong(matcher.group(1));
+        long end = Long.parseLong(matcher.group(2));
+        long total = Long.parseLong(matcher.group(3));
+
+        ActiveUpload upload = ownedUpload(owner, uploadId);
+
+        if (!upload.getLock().tryLock()) {
+            log.warn("Chunk {} of upload {} rejected, another chunk is still being written", contentRange, uploadId);
+            throw new OptimisticLockingFailureException("Another chunk of upload " + uploadId
+                    + " is still being written");
+        }
+
+        try {
+            if (activeUploads.get(uploadId) != upload) {
+                throw new NotFoundException("Upload " + uploadId + " not found");
+            }
+
+            Properties metadata = readMetadata(uploadId);
+            long size = Long.parseLong(metadata.getProperty(SIZE));
+            long receivedBytes = Long.parseLong(metadata.getProperty(RECEIVED_BYTES));
+
+            if (total != size || start > end || end >= size) {
+                throw new IllegalArgumentException("Content-Range " + contentRange + " does not fit an upload of "
+                        + size + " bytes");
+            }
+
+            if (receivedBytes == size) {
+                throw new IllegalArgumentException("Upload " + uploadId + " is already complete");
+            }
+
+            if (start > receivedBytes) {
+                throw new IllegalArgumentException("Chunk starts at byte " + start + " but only " + receivedBytes
+                        + " bytes were received");
+            }
+
+            long length = end - start + 1;
+            long written = 0;
+
+            try (FileChannel channel = FileChannel.open(dataPath(uploadId), StandardOpenOption.WRITE)) {
+                ReadableByteChannel source = Channels.newChannel(chunk);
+                long transferred;
+                while (written < length
+                        && (transferred = channel.transferFrom(source, start + written, length - written)) > 0) {
+                    written += transferred;
+                }
+                channel.force(false);
+            }
+
+            if (written < length) {
+                log.warn("Chunk {} of upload {} ended after {} bytes", contentRange, uploadId, written);
+            }
+
+            if (start + written > receivedBytes) {
+                metadata.setProperty(RECEIVED_BYTES, Long.toString(start + written));
+                writeMetadata(uploadId, metadata);
+            }
+
+            log.debug("Upload {} received bytes {}-{}", uploadId, start, start + written - 1);
+
+            return toResponse(uploadId, metadata);
+        } finally {
+            upload.getLock().unlock();
+        }
+
+    }
+
+    @Override
+    public ChunkedUploadResponseDTO getUpload(String owner, String uploadId) throws IOException {
+        ownedUpload(owner, uploadId);
+        return toResponse(uploadId, readMetadata(uploadId));
+    }
+
+    @Override
+    public StagedUpload getCompletedUpload(String owner, String uploadId) throws IOException {
+
+        ownedUpload(owner, uploadId);
+
+        // writeChunk rejects every chunk once the upload is complete, so the file cannot change under the reader
+        Properties metadata = readMetadata(uploadId);
+        long size = Long.parseLong(metadata.getProperty(SIZE));
+
+        if (Long.parseLong(metadata.getProperty(RECEIVED_BYTES)) < size) {
+            log.warn("Upload {} is not complete yet", uploadId);
+            throw new IllegalArgumentException("Upload " + uploadId + " is not complete yet");
+        }
+
+        return new StagedUpload(dataPath(uploadId), metadata.getProperty(CONTENT_TYPE),
+                metadata.getProperty(FILE_NAME), size);
+
+    }
+
+    @Override
+    public void discardUpload(String uploadId) {
+
+        ActiveUpload upload = activeUploads.get(uploadId);
+
+        if (upload == null) {
+            return;
+        }
+
+        upload.getLock().lock();
+        try {
+            deleteUpload(uploadId, upload);
+        } finally {
+            upload.getLock().unlock();
+        }
+
+    }
+
+    @Scheduled(fixedDelayString = "${file.chunked-upload.expiration}")
+    public void deleteExpiredUploads() {
+
+        long expiredBefore = System.currentTimeMillis() - expiration;
+
+        activeUploads.forEach((uploadId, upload) -> {
+            // A chunk still being written keeps the upload alive until its next run
+            if (!upload.getLock().tryLock()) {
+                return;
+            }
+
+            try {
+                Path metadataPath = metadataPath(uploadId);
+                if (!Files.exists(metadataPath)
+                        || Files.getLastModifiedTime(metadataPath).toMillis() < expiredBefore) {
+                    log.debug("Deleting expired chunked upload {}", uploadId);
+                    deleteUpload(uploadId, upload);
+                }
+            } catch (IOException e) {
+                log.error("Failed to check chunked upload {} for expiry", uploadId, e);
+            } finally {
+                upload.getLock().unlock();
+            }
+        });
+
+    }
+
+    private ActiveUpload ownedUpload(String owner, String uploadId) {
+
+        ActiveUpload upload = activeUploads.get(uploadId);
+
+        if (upload == null || !upload.getOwner().equals(owner)) {
+            log.warn("Chunked upload {} not found for {}", uploadId, owner);
+            throw new NotFoundException("Upload " + uploadId + " not found");
+        }
+
+        return upload;
+
+    }
+
+    private void deleteUpload(String uploadId, ActiveUpload upload) {
+
+        try {
+            Files.deleteIfExists(metadataPath(uploadId));
+            Files.deleteIfExists(dataPath(uploadId));
+            activeUploads.remove(uploadId, upload);
+        } catch (IOException e) {
+            log.error("Failed to delete chunked upload {}, leaving it to expire", uploadId, e);
+        }
+
+    }
+
+    private Properties readMetadata(String uploadId) throws IOException {
+
+        Properties metadata = new Properties();
+
+        try (InputStream inputStream = Files.newInputStream(metadataPath(uploadId))) {
+            metadata.load(inputStream);
+        } catch (NoSuchFileException e) {
+            log.warn("Chunked upload {} not found", uploadId);
+            throw new NotFoundException("Upload " + uploadId + " not found");
+        }
+
+        return metadata;
+
+    }
+
+    private void writeMetadata(String uploadId, Properties metadata) throws IOException {
+
+        Path metadataPath = metadataPath(uploadId);
+        Path tempPath = Paths.get(metadataPath + ".tmp");
+
+        try (OutputStream outputStream = Files.newOutputStream(tempPath)) {
+            metadata.store(outputStream, null);
+        }
+
+        Files.move(tempPath, metadataPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+    }
+
+    private Path dataPath(String uploadId) {
+        return Paths.get(folderPath, CHUNKED_UPLOAD_PREFIX + UUID.fromString(uploadId));
+    }
+
+    private Path metadataPath(String uploadId) {
+        return Paths.get(folderPath, CHUNKED_UPLOAD_PREFIX + UUID.fromString(uploadId) + METADATA_SUFFIX);
+    }
+
+    private ChunkedUploadResponseDTO toResponse(String uploadId, Properties metadata) {
+
+        long size = Long.parseLong(metadata.getProperty(SIZE));
+        long receivedBytes = Long.parseLong(metadata.getProperty(RECEIVED_BYTES));
+
+        return new ChunkedUploadResponseDTO(uploadId, size, receivedBytes, receivedBytes == size);
+
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class ActiveUpload {
+
+        private final String owner;
+        private final long size;
+        private final ReentrantLock lock;
+
+    }
+
+}
@@ -1,33 +1,88 @@
 package com.luv2code.demo.helper.impl;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 
 import com.luv2code.demo.dto.response.ApiResponseDTO;
+import com.luv2code.demo.helper.CachedImage;
+import com.luv2code.demo.helper.IChunkedUploadHelper;
 import com.luv2code.demo.helper.IFileHelper;
+import com.luv2code.demo.helper.IImageCache;
+import com.luv2code.demo.helper.IImageReferenceCounter;
+import com.luv2code.demo.helper.IImageRenditions;
+import com.luv2code.demo.helper.StagedUpload;
 import com.luv2code.demo.utils.FileUtils;
+import com.luv2code.demo.utils.StorageCodec;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class FileHelper implements IFileHelper {
 
+    private static final CacheControl IMAGE_CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic()
+            .immutable();
+
+    // the original served in place of a missing rendition must not be cached under the ?size= URL
+    private static final CacheControl FALLBACK_CACHE_CONTROL = CacheControl.noCache();
+
+    private final IImageRenditions imageRenditions;
+    private final IImageReferenceCounter imageReferenceCounter;
+    private final IImageCache imageCache;
+    private final IChunkedUploadHelper chunkedUploadHelper;
+
+    // one lock per content-addressed file name, so reusing a blob and deleting it cannot interleave
+    private final LoadingCache<String, ReentrantLock> fileLocks = Caffeine.newBuilder().weakValues()
+            .build(fileName -> new ReentrantLock());
+
     @Value("${file.path}")
     private String FOLDER_PATH;
 
+    @Value("${file.content-addressed.enabled}")
+    private boolean contentAddressed;
+
+    @Value("${file.content-addressed.grace-period}")
+    private long contentAddressedGracePeriod;
+
+    @Value("${file.sharded-layout.enabled}")
+    private boolean shardedLayout;
+
     @Override
     public String uploadFileToFileSystem(MultipartFile file) throws IllegalStateException, IOException {
 
@@ -36,10 +91,33 @@ public class FileHelper implements IFileHelper {
             throw new IllegalArgumentException("Cannot upload empty file");
         }
 
-        String contentType = file.getContentType();
-        if (!"image/png".equals(contentType) && !"image/jpeg".equals(contentType)
-                && !"image/svg+xml".equals(contentType) && !"image/jpg".equals(contentType)) {
+        try (InputStream inputStream = file.getInputStream()) {
+            return storeImage(inputStream, file.getSize(), file.getContentType(), file.getOriginalFilename());
+        }
+    }
 
+    @Override
+    public String uploadStagedFileToFileSystem(String owner, String uploadId) throws IOException {
+
+        StagedUpload upload = chunkedUploadHelper.getCompletedUpload(owner, uploadId);
+
+        try (InputStream inputStream = Files.newInputStream(upload.getPath())) {
+            return storeImage(inputStream, upload.getSize(), upload.getContentType(), upload.getFileName());
+        }
+    }
+
+    @Override
+    public void discardStagedUpload(String uploadId) {
+        if (uploadId == null) {
+            return;
+        }
+        chunkedUploadHelper.discardUpload(uploadId);
+    }
+
+    private String storeImage(InputStream inputStream, long size, String contentType, String originalFilename)
+            throws IOException {
+
+        if (!FileUtils.isSupportedImageType(contentType)) {
             log.warn("Unsupported file type: {}", contentType);
             throw new IllegalArgumentException("Only PNG, JPEG, JPG, and SVG images are supported");
         }
@@ -50,13 +128,18 @@ public class FileHelper implements IFileHelper {
             directory.mkdirs();
         }
 
-        String sanitizedFilename = Paths.get(file.getOriginalFilename()).getFileName().toString();
-        String imageUrl = FOLDER_PATH + UUID.randomUUID().toString() + " - " + sanitizedFilename;
+        if (contentAddressed) {
+            return uploadContentAddressedFile(inputStream, size, contentType);
+        }
+
+        String sanitizedFilename = Paths.get(originalFilename).getFileName().toString();
+        String imageUrl = imageUrlFor(UUID.randomUUID().toString() + " - " + sanitizedFilename);
 
         try {
-            byte[] compressedFileData = FileUtils.compressFile(file.getBytes());
-            Files.write(new File(imageUrl).toPath(), compressedFileData);
+            Files.createDirectories(Paths.get(imageUrl).getParent());
+            FileUtils.writeEncoded(inputStream, size, StorageCodec.forContentType(contentType), Paths.get(imageUrl));
             log.info("File uploaded successfully to {}", imageUrl);
+            imageRenditions.generateRenditions(Paths.get(imageUrl));
         } catch (IOException e) {
             log.error("Failed to save file to {}", imageUrl, e);
             throw new IOException("Failed to save file", e);
@@ -65,32 +148,165 @@ public class FileHelper implements IFileHelper {
         return imageUrl;
     }
 
+    private String uploadContentAddressedFile(InputStream inputStream, long size, String contentType)
+            throws IOException {
+
+        Path tempPath = Paths.get(FOLDER_PATH + FileUtils.UPLOAD_PREFIX + UUID.randomUUID());
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+
+        try (InputStream digestStream = new DigestInputStream(inputStream, digest)) {
+            FileUtils.writeEncoded(digestStream, size, StorageCodec.forContentType(contentType), tempPath);
+
+            String imageUrl = imageUrlFor(HexFormat.of().formatHex(digest.digest()) + "." + extensionOf(contentType));
+            Path imagePath = Paths.get(imageUrl);
+            Files.createDirectories(imagePath.getParent());
+
+            ReentrantLock lock = lockFor(imageUrl);
+            lock.lock();
+            try {
+                if (Files.exists(imagePath)) {
+                    Files.setLastModifiedTime(imagePath, FileTime.fromMillis(System.currentTimeMillis()));
+                    log.info("Identical file already stored at {}, reusing it", imageUrl);
+                } else {
+                    Files.move(tempPath, imagePath, StandardCopyOption.ATOMIC_MOVE);
+                    log.info("File uploaded successfully to {}", imageUrl);
+                    imageRenditions.generateRenditions(imagePath);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            return imageUrl;
+        } catch (IOException e) {
+            log.error("Failed to save content-addressed file from {}", tempPath, e);
+            throw new IOException("Failed to save file", e);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+
+    }
+
+    private String imageUrlFor(String fileName) {
+        return shardedLayout
+                ? FileUtils.shardedPath(Paths.get(FOLDER_PATH), fileName).toString()
+                : FOLDER_PATH + fileName;
+    }
+
+    private String extensionOf(String contentType) {
+        return switch (contentType) {
+            case "image/png" -> "png";
+            case "image/svg+xml" -> "svg";
+            default -> "jpg";
+        };
+    }
+
     @Override
-    public ResponseEntity<?> downloadImageFromFileSystem(String imageUrl) {
+    public ResponseEntity<?> downloadImageFromFileSystem(String imageUrl, Integer size, String range,
+            String ifNoneMatch) {
         try {
             log.info("Attempting to download file from {}", imageUrl);
-            
-            Path filePath = new File(imageUrl).toPath();
-            
-            if (!Files.exists(filePath)) {
+
+            Path requestedPath = normalizeImagePath(imageUrl);
+
+            if (requestedPath == null) {
                 log.warn("File not found at {}", imageUrl);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(new ApiResponseDTO("File not found"));
             }
-            
-            byte[] compressedFileData = Files.readAllBytes(filePath);
-            byte[] decompressedFileData = FileUtils.decompressFile(compressedFileData);
-            
-            log.info("File downloaded successfully from {}", imageUrl);
+
+            // a hit is served without probing the file system; deleting an image invalidates its entries
+            Path filePath = imageRenditions.renditionFor(requestedPath, size);
+            CachedImage cachedImage = imageCache.getCachedImage(filePath);
+            CacheControl cacheControl = IMAGE_CACHE_CONTROL;
+
+            if (cachedImage == null) {
+                filePath = resolveImagePath(requestedPath);
+
+                if (!Files.isRegularFile(filePath)) {
+                    log.warn("File not found at {}", imageUrl);
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(new ApiResponseDTO("File not found"));
+                }
+
+                Path rendition = imageRenditions.resolveRendition(filePath, size);
+                cacheControl = rendition != null ? IMAGE_CACHE_CONTROL : FALLBACK_CACHE_CONTROL;
+                filePath = rendition != null ? rendition : filePath;
+
+                cachedImage = imageCache.getImage(filePath);
+            }
+
+            String eTag = cachedImage != null
+                    ? cachedImage.getETag()
+                    : FileUtils.eTag(filePath, Files.readAttributes(filePath, BasicFileAttributes.class));
+            MediaType mediaType = MediaTypeFactory.getMediaType(filePath.getFileName().toString())
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM);
+
+            if (matchesETag(ifNoneMatch, eTag)) {
+                log.info("File at {} not modified", imageUrl);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl)
+                        .build();
+            }
+
+            if (range != null) {
+                List<HttpRange> ranges;
+                try {
+                    ranges = HttpRange.parseRanges(range);
+                } catch (IllegalArgumentException e) {
+                    return invalidRange(range, imageUrl);
+                }
+
+                if (ranges.size() == 1) {
+                    long length = cachedImage != null
+                            ? cachedImage.getContent().capacity()
+                            : FileUtils.decodedLength(filePath);
+                    long rangeStart;
+                    long rangeEnd;
+                    try {
+                        rangeStart = ranges.get(0).getRangeStart(length);
+                        rangeEnd = ranges.get(0).getRangeEnd(length);
+                    } catch (IllegalArgumentException e) {
+                        return invalidRange(range, imageUrl);
+                    }
+
+                    if (rangeStart >= length) {
+                        log.warn("Unsatisfiable range {} for file {}", range, imageUrl);
+                        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length).build();
+                    }
+
+                    long rangeLength = rangeEnd - rangeStart + 1;
+
+                    log.info("Streaming bytes {}-{} of file {}", rangeStart, rangeEnd, imageUrl);
+                    return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                            .contentType(mediaType)
+                            .eTag(eTag)
+                            .cacheControl(cacheControl)
+                            .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                            .header(HttpHeaders.CONTENT_RANGE, "bytes " + rangeStart + "-" + rangeEnd + "/" + length)
+                            .contentLength(rangeLength)
+                            .body(streamImage(filePath, cachedImage, rangeStart, rangeLength));
+                }
+            }
+
+            log.info("Streaming file from {}", imageUrl);
             return ResponseEntity.status(HttpStatus.OK)
-                    .contentType(MediaType.valueOf("image/png"))
-                    .body(decompressedFileData);
-            
-        } catch (FileNotFoundException e) {
-            log.warn("File not found at {}", imageUrl);
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(new ApiResponseDTO("File not found"));
-            
+                    .contentType(mediaType)
+                    .eTag(eTag)
+                    .cacheControl(cacheControl)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .body(streamImage(filePath, cachedImage, 0, Long.MAX_VALUE));
+
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid image request for {}", imageUrl, e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponseDTO("Invalid image request"));
+
         } catch (IOException e) {
             log.error("Error reading file from {}", imageUrl, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -98,10 +314,93 @@ public class FileHelper implements IFileHelper {
         }
     }
 
+    private ResponseEntity<?> invalidRange(String range, String imageUrl) {
+        log.warn("Invalid range {} for file {}", range, imageUrl);
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .body(new ApiResponseDTO("Invalid range"));
+    }
+
+    private StreamingResponseBody streamImage(Path filePath, CachedImage cachedImage, long start, long length) {
+        if (cachedImage != null) {
+            return outputStream -> {
+                ByteBuffer content = cachedImage.getContent().duplicate();
+                content.position((int) start);
+                content.limit((int) (start + Math.min(length, content.capacity() - start)));
+                WritableByteChannel channel = Channels.newChannel(outputStream);
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+            };
+        }
+        return outputStream -> {
+            try (InputStream inputStream = FileUtils.openDecodedStream(filePath)) {
+                FileUtils.copyRange(inputStream, outputStream, start, length);
+            }
+        };
+    }
+
+    private Path normalizeImagePath(String imageUrl) {
+        Path folder = Paths.get(FOLDER_PATH).toAbsolutePath().normalize();
+        Path filePath;
+        try {
+            filePath = Paths.get(imageUrl).toAbsolutePath().normalize();
+        } catch (InvalidPathException e) {
+            // a URL that cannot be a path cannot name a stored file
+            return null;
+        }
+        return filePath.startsWith(folder) ? filePath : null;
+    }
+
+    private Path resolveImagePath(Path filePath) {
+        if (!Files.exists(filePath)) {
+            Path folder = Paths.get(FOLDER_PATH).toAbsolutePath().normalize();
+            Path alternatePath = FileUtils.alternateLayoutPath(folder, filePath);
+            if (Files.exists(alternatePath)) {
+                return alternatePath;
+            }
+        }
+        return filePath;
+    }
+
+    private boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(eTag) || value.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public Boolean deleteImageFromFileSystem(String imageUrl) throws IOException {
         log.info("Attempting to delete file from {}", imageUrl);
-        Boolean fileIsDeleted = Files.deleteIfExists(Paths.get(imageUrl));
+
+        if (!contentAddressed) {
+            return deleteImageFiles(imageUrl);
+        }
+
+        ReentrantLock lock = lockFor(imageUrl);
+        lock.lock();
+        try {
+            return !isStillInUse(imageUrl) && deleteImageFiles(imageUrl);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(String imageUrl) {
+        return fileLocks.get(Paths.get(imageUrl).getFileName().toString());
+    }
+
+    private Boolean deleteImageFiles(String imageUrl) throws IOException {
+        Path alternatePath = FileUtils.alternateLayoutPath(Paths.get(FOLDER_PATH), Paths.get(imageUrl));
+        Boolean fileIsDeleted = Files.deleteIfExists(Paths.get(imageUrl)) | Files.deleteIfExists(alternatePath);
+        imageRenditions.deleteRenditions(Paths.get(imageUrl));
+        imageCache.invalidate(Paths.get(imageUrl));
         if (fileIsDeleted) {
             log.info("File deleted successfully from {}", imageUrl);
         } else {
@@ -109,4 +408,39 @@ public class FileHelper implements IFileHelper {
         }
         return fileIsDeleted;
     }
+
+    private boolean isStillInUse(String imageUrl) throws IOException {
+
+        Path alternatePath = FileUtils.alternateLayoutPath(Paths.get(FOLDER_PATH), Paths.get(imageUrl));
+        long references = imageReferenceCounter.countReferences(imageUrl)
+                + imageReferenceCounter.countReferences(alternatePath.toString());
+
+        if (references > 0) {
+            log.info("File at {} is still referenced {} times, keeping it", imageUrl, references);
+            return true;
+        }
+
+        Path imagePath = Files.exists(Paths.get(imageUrl)) ? Paths.get(imageUrl) : alternatePath;
+
+        if (Files.exists(imagePath) && System.currentTimeMillis()
+                - Files.getLastModifiedTime(imagePath).toMillis() < contentAddressedGracePeriod) {
+            log.info("File at {} was stored or reused recently, keeping it", imageUrl);
+            return true;
+        }
+
+        return false;
+
+    }
+
+    @Override
+    public void deleteImageQuietly(String imageUrl) {
+        if (imageUrl == null) {
+            return;
+        }
+        try {
+            deleteImageFromFileSystem(imageUrl);
+        } catch (IOException e) {
+            log.error("Failed to delete file at {}, leaving it for cleanup", imageUrl, e);
+        }
+    }
 }
@@ -0,0 +1,133 @@
+package com.luv2code.demo.helper.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.luv2code.demo.helper.IFileLayoutMigrator;
+import com.luv2code.demo.utils.FileUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves images stored flat in {@code file.path} into the two-level sharded
+ * layout while the application keeps serving them. Files are moved one batch
+ * at a time and the batch's image URLs are then rewritten in every table with
+ * one batched UPDATE per table; if that transaction fails the batch is moved
+ * back. Between the move and the commit, readers find the file through the
+ * alternate-layout fallback in the file helper.
+ */
+@Component
+@Slf4j
+public class FileLayoutMigrator implements IFileLayoutMigrator {
+
+    private static final List<String> UPDATE_IMAGE_URL_SQL = List.of(
+            "UPDATE products SET image_url = ? WHERE image_url = ?",
+            "UPDATE companies SET image_url = ? WHERE image_url = ?",
+            "UPDATE categories SET image_url = ? WHERE image_url = ?",
+            "UPDATE users SET image_url = ? WHERE image_url = ?");
+
+    private final String folderPath;
+    private final boolean enabled;
+    private final int batchSize;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public FileLayoutMigrator(@Value("${file.path}") String folderPath,
+            @Value("${file.sharded-layout.enabled}") boolean enabled,
+            @Value("${file.sharded-layout.migration-batch-size}") int batchSize, JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate) {
+        this.folderPath = folderPath;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void migrate() {
+
+        Path folder = Paths.get(folderPath);
+
+        if (!Files.isDirectory(folder)) {
+            return;
+        }
+
+        List<Path> files;
+        try (Stream<Path> stream = FileUtils.listStoredFiles(folder)) {
+            files = stream.filter(path -> folder.equals(path.getParent())).toList();
+        } catch (IOException e) {
+            log.error("Failed to list files in {}", folderPath, e);
+            return;
+        }
+
+        int migrated = 0;
+
+        for (int from = 0; from < files.size(); from += batchSize) {
+            migrated += migrateBatch(folder, files.subList(from, Math.min(from + batchSize, files.size())));
+        }
+
+        log.info("Sharded layout migration finished: {} of {} files moved", migrated, files.size());
+
+    }
+
+    private int migrateBatch(Path folder, List<Path> batch) {
+
+        List<Path[]> moved = new ArrayList<>();
+        List<Object[]> batchArgs = new ArrayList<>();
+
+        for (Path file : batch) {
+            String fileName = file.getFileName().toString();
+            Path target = FileUtils.shardedPath(folder, fileName);
+
+            try {
+                Files.createDirectories(target.getParent());
+                Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+                moved.add(new Path[] { file, target });
+                batchArgs.add(new Object[] { target.toString(), folderPath + fileName });
+            } catch (IOException e) {
+                log.error("Failed to move {} into the sharded layout", file, e);
+            }
+        }
+
+        if (batchArgs.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> UPDATE_IMAGE_URL_SQL
+                    .forEach(sql -> jdbcTemplate.batchUpdate(sql, batchArgs)));
+        } catch (RuntimeException e) {
+            log.error("Failed to rewrite image URLs for {} files, moving them back", moved.size(), e);
+            for (Path[] paths : moved) {
+                try {
+                    Files.move(paths[1], paths[0], StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException moveBackException) {
+                    log.error("Failed to move {} back to {}", paths[1], paths[0], moveBackException);
+                }
+            }
+            return 0;
+        }
+
+        log.debug("Moved {} files into the sharded layout", moved.size());
+
+        return moved.size();
+
+    }
+
+}
@@ -0,0 +1,195 @@
+package com.luv2code.demo.helper.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.luv2code.demo.helper.CachedImage;
+import com.luv2code.demo.helper.IImageCache;
+import com.luv2code.demo.utils.FileUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps decoded bytes of frequently requested images in direct buffers, so a
+ * hit is served without reading or inflating the stored file and without
+ * allocating on the heap. Entries are weighed by their size in bytes against
+ * {@code file.cache.maximum-bytes} and evicted by Caffeine's W-TinyLFU policy;
+ * images larger than {@code file.cache.maximum-entry-bytes} are never cached.
+ * Whether an image fits is decided from the length in its header, or for
+ * legacy headerless files from their size on disk, so a miss never inflates a
+ * file only to find it too large. Keys are indexed by file name, so
+ * invalidating an image does not scan the whole cache.
+ * Hit, miss and eviction counts are published as
+ * {@code cache.*{cache=images}} metrics.
+ */
+@Component
+@Slf4j
+public class ImageCache implements IImageCache {
+
+    private static final String CACHE_NAME = "images";
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final long maximumEntryBytes;
+    private final Cache<String, CachedImage> cache;
+    private final Map<String, Set<String>> keysByFileName = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ImageCache(@Value("${file.cache.maximum-bytes}") long maximumBytes,
+            @Value("${file.cache.maximum-entry-bytes}") long maximumEntryBytes, MeterRegistry meterRegistry) {
+        this(maximumBytes, maximumEntryBytes, meterRegistry, ForkJoinPool.commonPool());
+    }
+
+    public ImageCache(long maximumBytes, long maximumEntryBytes, MeterRegistry meterRegistry, Executor executor) {
+
+        this.maximumEntryBytes = maximumEntryBytes;
+        this.cache = Caffeine.newBuilder()
+                .executor(executor)
+                .maximumWeight(maximumBytes)
+                .weigher((String key, CachedImage image) -> image.getContent().capacity())
+                .evictionListener((String key, CachedImage image, RemovalCause cause) -> unindex(key))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+
+        log.info("Image cache created with a budget of {} bytes", maximumBytes);
+    }
+
+    @Override
+    public CachedImage getImage(Path filePath) throws IOException {
+
+        String key = filePath.toString();
+        CachedImage cachedImage = cache.getIfPresent(key);
+
+        if (cachedImage != null) {
+            return cachedImage;
+        }
+
+        long length = FileUtils.headerDecodedLength(filePath);
+
+        if (length > maximumEntryBytes || (length < 0 && Files.size(filePath) > maximumEntryBytes)) {
+            return null;
+        }
+
+        try {
+            return cache.get(key, ignored -> load(filePath, length));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+    }
+
+    /**
+     * Returns the cached image for a path, or null, without touching the file
+     * system. Deleting an image invalidates its entries, so a hit is current.
+     */
+    @Override
+    public CachedImage getCachedImage(Path filePath) {
+        return cache.getIfPresent(filePath.toString());
+    }
+
+    @Override
+    public void invalidate(Path filePath) {
+
+        Set<String> keys = keysByFileName.remove(filePath.getFileName().toString());
+
+        if (keys != null) {
+            cache.invalidateAll(keys);
+        }
+
+    }
+
+    /**
+     * Loads the decoded bytes of a file. A header length of -1 marks a legacy
+     * file: it is inflated once into the heap, bounded by the entry limit, and
+     * not cached (null) if it turns out larger.
+     */
+    private CachedImage load(Path filePath, long length) {
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+            ByteBuffer content;
+
+            try (InputStream inputStream = FileUtils.openDecodedStream(filePath)) {
+                if (length < 0) {
+                    byte[] data = inputStream.readNBytes((int) maximumEntryBytes + 1);
+                    if (data.length > maximumEntryBytes) {
+                        return null;
+                    }
+                    content = ByteBuffer.allocateDirect(data.length).put(data);
+                } else {
+                    content = ByteBuffer.allocateDirect((int) length);
+                    byte[] buffer = new byte[READ_BUFFER_SIZE];
+                    int read;
+                    while (content.hasRemaining()
+                            && (read = inputStream.read(buffer, 0, Math.min(buffer.length, content.remaining()))) != -1) {
+                        content.put(buffer, 0, read);
+                    }
+                    if (content.hasRemaining()) {
+                        throw new IOException("Expected " + length + " bytes in " + filePath + " but found "
+                                + content.position());
+                    }
+                }
+            }
+
+            content.flip();
+
+            index(filePath.toString());
+
+            log.debug("Cached {} bytes of {}", content.remaining(), filePath);
+
+            return new CachedImage(content.asReadOnlyBuffer(), FileUtils.eTag(filePath, attributes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+    }
+
+    private void index(String key) {
+
+        keysByFileName.compute(fileName(key), (fileName, keys) -> {
+            Set<String> indexed = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            indexed.add(key);
+            return indexed;
+        });
+
+    }
+
+    private void unindex(String key) {
+
+        keysByFileName.computeIfPresent(fileName(key), (fileName, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+
+    }
+
+    Set<String> indexedKeys(String fileName) {
+        return keysByFileName.getOrDefault(fileName, Set.of());
+    }
+
+    private static String fileName(String key) {
+        return Paths.get(key).getFileName().toString();
+    }
+
+}
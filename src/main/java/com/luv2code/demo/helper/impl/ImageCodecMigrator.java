@@ -0,0 +1,97 @@
+package com.luv2code.demo.helper.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import com.luv2code.demo.helper.IImageCodecMigrator;
+import com.luv2code.demo.utils.FileUtils;
+import com.luv2code.demo.utils.StorageCodec;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Re-encodes images written before storage codecs existed. Each legacy file is
+ * streamed through the codec for its media type into a sibling temp file and
+ * atomically moved over the original, so the stored image URL never
+ * changes and readers see either the old or the new file.
+ */
+@Component
+@Slf4j
+public class ImageCodecMigrator implements IImageCodecMigrator {
+
+    @Value("${file.path}")
+    private String FOLDER_PATH;
+
+    @Value("${file.codec-migration.enabled}")
+    private boolean enabled;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void migrate() {
+
+        Path folder = Paths.get(FOLDER_PATH);
+
+        if (!Files.isDirectory(folder)) {
+            return;
+        }
+
+        List<Path> files;
+        try (Stream<Path> stream = FileUtils.listStoredFiles(folder)) {
+            files = stream.toList();
+        } catch (IOException e) {
+            log.error("Failed to list files in {}", FOLDER_PATH, e);
+            return;
+        }
+
+        int migrated = 0;
+
+        for (Path file : files) {
+            try {
+                if (migrateFile(file)) {
+                    migrated++;
+                }
+            } catch (IOException e) {
+                log.error("Failed to migrate file {}", file, e);
+            }
+        }
+
+        log.info("Storage codec migration finished: {} of {} files re-encoded", migrated, files.size());
+
+    }
+
+    private boolean migrateFile(Path file) throws IOException {
+
+        if (!FileUtils.isLegacyEncoded(file)) {
+            return false;
+        }
+
+        String contentType = MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .map(Object::toString)
+                .orElse(null);
+
+        long length = FileUtils.decodedLength(file);
+
+        try (InputStream inputStream = FileUtils.openDecodedStream(file)) {
+            FileUtils.writeEncoded(inputStream, length, StorageCodec.forContentType(contentType), file);
+        }
+
+        log.debug("Re-encoded legacy file {}", file);
+
+        return true;
+
+    }
+
+}
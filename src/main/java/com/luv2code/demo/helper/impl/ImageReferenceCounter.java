@@ -0,0 +1,37 @@
+package com.luv2code.demo.helper.impl;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.luv2code.demo.helper.IImageReferenceCounter;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Derives the reference count of a stored image from the {@code image_url}
+ * columns of every table that points at the file store, so the count can
+ * never drift from the rows that actually use the image.
+ */
+@Component
+@RequiredArgsConstructor
+public class ImageReferenceCounter implements IImageReferenceCounter {
+
+    private static final String COUNT_REFERENCES_SQL = "SELECT "
+            + "(SELECT COUNT(*) FROM products WHERE image_url = ?) + "
+            + "(SELECT COUNT(*) FROM companies WHERE image_url = ?) + "
+            + "(SELECT COUNT(*) FROM categories WHERE image_url = ?) + "
+            + "(SELECT COUNT(*) FROM users WHERE image_url = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public long countReferences(String imageUrl) {
+
+        Long references = jdbcTemplate.queryForObject(COUNT_REFERENCES_SQL, Long.class, imageUrl, imageUrl, imageUrl,
+                imageUrl);
+
+        return references == null ? 0 : references;
+
+    }
+
+}
@@ -0,0 +1,231 @@
+package com.luv2code.demo.helper.impl;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.luv2code.demo.helper.IImageRenditions;
+import com.luv2code.demo.utils.FileUtils;
+import com.luv2code.demo.utils.StorageCodec;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Produces fixed-width copies of uploaded PNG and JPEG images on a bounded
+ * worker pool. A rendition of {@code <file.path>/name.png} at width 96 is
+ * stored as {@code <file.path>/renditions/96/name.png}; SVGs and images that
+ * are already narrower than a width are skipped and served as the original.
+ * Images are only decoded after their header shows at most
+ * {@code file.renditions.maximum-pixels} pixels, so a small compressed upload
+ * cannot inflate into a huge raster. When the queue is full, new work is
+ * dropped rather than blocking uploads.
+ */
+@Component
+@Slf4j
+public class ImageRenditions implements IImageRenditions {
+
+    private final Path renditionsFolder;
+    private final List<Integer> widths;
+    private final long maximumPixels;
+    private final ThreadPoolExecutor executor;
+
+    public ImageRenditions(@Value("${file.path}") String folderPath,
+            @Value("${file.renditions.widths}") List<Integer> widths,
+            @Value("${file.renditions.pool-size}") int poolSize,
+            @Value("${file.renditions.queue-capacity}") int queueCapacity,
+            @Value("${file.renditions.maximum-pixels}") long maximumPixels) {
+        this.renditionsFolder = Paths.get(folderPath).resolve(FileUtils.RENDITIONS_FOLDER);
+        this.widths = widths.stream().sorted().toList();
+        this.maximumPixels = maximumPixels;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-rendition-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public void generateRenditions(Path original) {
+
+        try {
+            executor.execute(() -> generate(original));
+        } catch (RejectedExecutionException e) {
+            log.warn("Rendition queue is full, skipping renditions for {}", original);
+        }
+
+    }
+
+    /**
+     * Returns the smallest rendition at least {@code size} pixels wide, or the
+     * original when no size is requested or it is larger than every configured
+     * width. Returns null when a rendition applies but its file does not exist,
+     * either because it is still being generated or because the image was too
+     * narrow or too large to get one; callers then serve the original without
+     * letting it be cached as the rendition.
+     */
+    @Override
+    public Path resolveRendition(Path original, Integer size) {
+
+        Path rendition = renditionFor(original, size);
+
+        return rendition == original || Files.isRegularFile(rendition) ? rendition : null;
+
+    }
+
+    /**
+     * Returns the path of the rendition {@link #resolveRendition} would pick,
+     * or the original when no rendition applies, without checking that the
+     * file exists.
+     */
+    @Override
+    public Path renditionFor(Path original, Integer size) {
+
+        if (size == null) {
+            return original;
+        }
+
+        Integer width = widths.stream()
+                .filter(candidate -> candidate >= size)
+                .findFirst()
+                .orElse(null);
+
+        return width != null ? renditionPath(original, width) : original;
+
+    }
+
+    @Override
+    public void deleteRenditions(Path original) {
+
+        for (Integer width : widths) {
+            try {
+                Files.deleteIfExists(renditionPath(original, width));
+            } catch (IOException e) {
+                log.error("Failed to delete {}px rendition of {}", width, original, e);
+            }
+        }
+
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void generate(Path original) {
+
+        String format;
+        BufferedImage image;
+
+        try (InputStream inputStream = FileUtils.openDecodedStream(original);
+                ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+
+            Iterator<ImageReader> readers = imageInputStream != null
+                    ? ImageIO.getImageReaders(imageInputStream)
+                    : null;
+
+            if (readers == null || !readers.hasNext()) {
+                log.debug("No raster reader for {}, skipping renditions", original);
+                return;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInputStream, true, true);
+
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maximumPixels) {
+                    log.warn("Image {} has {} pixels, over the limit of {}, skipping renditions", original, pixels,
+                            maximumPixels);
+                    return;
+                }
+
+                format = reader.getFormatName().toLowerCase();
+                image = reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            log.error("Failed to read {} for renditions", original, e);
+            return;
+        }
+
+        for (Integer width : widths) {
+            if (image.getWidth() <= width) {
+                continue;
+            }
+
+            try {
+                byte[] data = encode(scale(image, width), format);
+                Path target = renditionPath(original, width);
+                Files.createDirectories(target.getParent());
+                FileUtils.writeEncoded(new ByteArrayInputStream(data), data.length, StorageCodec.RAW, target);
+            } catch (IOException e) {
+                log.error("Failed to write {}px rendition of {}", width, original, e);
+            }
+        }
+
+        log.info("Generated renditions {} for {}", widths, original);
+
+    }
+
+    private BufferedImage scale(BufferedImage image, int width) {
+
+        int height = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage scaled = new BufferedImage(width, height, type);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        return scaled;
+
+    }
+
+    private byte[] encode(BufferedImage image, String format) throws IOException {
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        if (!ImageIO.write(image, format, outputStream)) {
+            throw new IOException("No image writer for format " + format);
+        }
+
+        return outputStream.toByteArray();
+
+    }
+
+    private Path renditionPath(Path original, int width) {
+        return renditionsFolder.resolve(String.valueOf(width)).resolve(original.getFileName());
+    }
+
+}
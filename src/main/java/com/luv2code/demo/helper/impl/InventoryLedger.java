@@ -0,0 +1,338 @@
+package com.luv2code.demo.helper.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.luv2code.demo.helper.IInventoryLedger;
+import com.luv2code.demo.utils.TransactionUtils;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Optional in-memory stock ledger. Each product gets a cell holding the
+ * quantity that is still available and the net delta that has not yet been
+ * written to {@code products.quantity}. Reservations are a CAS on the cell, so
+ * buyers of a hot product no longer queue on its InnoDB row lock; the pending
+ * deltas are written back in one JDBC batch every
+ * {@code inventory.ledger.flush-interval} ms, in their own transaction so a
+ * caller's rollback or commit never decides whether they reach the database.
+ *
+ * <p>
+ * Cells are loaded from the database on first use (and warmed on startup) and
+ * pending deltas are flushed on shutdown. Deltas reserved after the last flush
+ * are lost if the process dies, so the flush interval bounds the possible
+ * drift.
+ *
+ * <p>
+ * The ledger is the only authority on stock while it is enabled, so it is for
+ * single-node deployments only: a second instance would keep its own cells
+ * over the same rows and both could sell the same units. Leave
+ * {@code inventory.ledger.enabled} off when running more than one node.
+ */
+@Component
+@Slf4j
+public class InventoryLedger implements IInventoryLedger {
+
+    private static final String SELECT_QUANTITY_SQL = "SELECT COALESCE(quantity, 0) FROM products WHERE id = ?";
+    private static final String SELECT_ALL_QUANTITIES_SQL = "SELECT id, COALESCE(quantity, 0) FROM products";
+    private static final String FLUSH_SQL = "UPDATE products SET quantity = COALESCE(quantity, 0) + ? WHERE id = ?";
+
+    private final boolean enabled;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate isolatedTemplate;
+    private final Map<Long, Cell> cells = new ConcurrentHashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public InventoryLedger(@Value("${inventory.ledger.enabled}") boolean enabled, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.enabled = enabled;
+        this.jdbcTemplate = jdbcTemplate;
+        this.isolatedTemplate = new TransactionTemplate(transactionManager);
+        this.isolatedTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Warms the ledger with every product once the application is up. Requests
+     * may already be reserving by then, so cells that exist are kept as they
+     * are; only missing ones are loaded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+
+        if (!enabled) {
+            return;
+        }
+
+        long generation = evictions.get();
+
+        isolatedTemplate.executeWithoutResult(status -> jdbcTemplate.query(SELECT_ALL_QUANTITIES_SQL, rs -> {
+            install(rs.getLong(1), rs.getInt(2), generation);
+        }));
+
+        log.info("Inventory ledger warmed from database: {} products loaded", cells.size());
+
+    }
+
+    @Override
+    public boolean reserve(Long productId, Integer quantity) {
+
+        while (true) {
+            Cell cell = getCell(productId);
+
+            if (cell == null) {
+                log.warn("Product with ID {} not found in inventory ledger", productId);
+                return false;
+            }
+
+            cell.lock.readLock().lock();
+            try {
+                if (cell.retired) {
+                    continue;
+                }
+
+                if (!cell.tryReserve(quantity)) {
+                    return false;
+                }
+            } finally {
+                cell.lock.readLock().unlock();
+            }
+
+            TransactionUtils.afterRollback(() -> adjust(productId, quantity));
+
+            return true;
+        }
+
+    }
+
+    @Override
+    public boolean release(Long productId, Integer quantity) {
+
+        while (true) {
+            Cell cell = getCell(productId);
+
+            if (cell == null) {
+                log.warn("Product with ID {} not found in inventory ledger", productId);
+                return false;
+            }
+
+            cell.lock.readLock().lock();
+            try {
+                if (cell.retired) {
+                    continue;
+                }
+
+                cell.adjust(quantity);
+            } finally {
+                cell.lock.readLock().unlock();
+            }
+
+            TransactionUtils.afterRollback(() -> adjust(productId, -quantity));
+
+            return true;
+        }
+
+    }
+
+    @Override
+    public synchronized void evict(Long productId) {
+
+        Cell cell = cells.get(productId);
+
+        if (cell == null) {
+            return;
+        }
+
+        cell.lock.writeLock().lock();
+        try {
+            cell.retired = true;
+
+            int delta = cell.pending.getAndSet(0);
+            if (delta != 0) {
+                try {
+                    isolatedTemplate.executeWithoutResult(status -> jdbcTemplate.update(FLUSH_SQL, delta, productId));
+                } catch (RuntimeException e) {
+                    cell.pending.addAndGet(delta);
+                    cell.retired = false;
+                    throw e;
+                }
+            }
+
+            // the delta is committed, so a cell loaded from now on sees it
+            evictions.incrementAndGet();
+            cells.remove(productId, cell);
+        } finally {
+            cell.lock.writeLock().unlock();
+        }
+
+        log.info("Evicted product ID: {} from inventory ledger", productId);
+
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval}")
+    public synchronized void flush() {
+
+        if (!enabled || cells.isEmpty()) {
+            return;
+        }
+
+        List<Long> productIds = new ArrayList<>();
+        List<Object[]> batchArgs = new ArrayList<>();
+
+        cells.forEach((productId, cell) -> {
+            int delta = cell.pending.getAndSet(0);
+            if (delta != 0) {
+                productIds.add(productId);
+                batchArgs.add(new Object[] { delta, productId });
+            }
+        });
+
+        if (batchArgs.isEmpty()) {
+            return;
+        }
+
+        try {
+            isolatedTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(FLUSH_SQL, batchArgs));
+            log.debug("Flushed inventory deltas for {} products", batchArgs.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to flush inventory deltas for {} products, retrying on next flush", batchArgs.size(), e);
+            for (int i = 0; i < productIds.size(); i++) {
+                Cell cell = cells.get(productIds.get(i));
+                if (cell != null) {
+                    cell.pending.addAndGet((Integer) batchArgs.get(i)[0]);
+                }
+            }
+        }
+
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        if (enabled) {
+            log.info("Flushing inventory ledger before shutdown");
+            flush();
+        }
+
+    }
+
+    private Cell getCell(Long productId) {
+
+        while (true) {
+            Cell cell = cells.get(productId);
+
+            if (cell != null) {
+                return cell;
+            }
+
+            long generation = evictions.get();
+
+            List<Integer> quantity = isolatedTemplate
+                    .execute(status -> jdbcTemplate.queryForList(SELECT_QUANTITY_SQL, Integer.class, productId));
+
+            if (quantity == null || quantity.isEmpty()) {
+                return null;
+            }
+
+            cell = install(productId, quantity.get(0), generation);
+
+            if (cell != null) {
+                return cell;
+            }
+        }
+
+    }
+
+    /**
+     * Maps a cell built from a row read at {@code generation}. An existing cell
+     * always wins; if a product was evicted since the row was read, the row may
+     * predate that eviction's flush, so nothing is mapped and null is returned
+     * for the caller to read it again.
+     */
+    private Cell install(Long productId, int quantity, long generation) {
+
+        return cells.compute(productId, (id, current) -> {
+            if (current != null) {
+                return current;
+            }
+            return evictions.get() == generation ? new Cell(quantity) : null;
+        });
+
+    }
+
+    private void adjust(Long productId, int quantity) {
+
+        Cell cell = getCell(productId);
+
+        if (cell == null) {
+            return;
+        }
+
+        cell.lock.readLock().lock();
+        try {
+            if (cell.retired) {
+                isolatedTemplate.executeWithoutResult(status -> jdbcTemplate.update(FLUSH_SQL, quantity, productId));
+            } else {
+                cell.adjust(quantity);
+            }
+        } finally {
+            cell.lock.readLock().unlock();
+        }
+
+    }
+
+    private static final class Cell {
+
+        private final AtomicInteger available;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile boolean retired;
+
+        private Cell(int available) {
+            this.available = new AtomicInteger(available);
+        }
+
+        private boolean tryReserve(int quantity) {
+            int current;
+            do {
+                current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!available.compareAndSet(current, current - quantity));
+
+            pending.addAndGet(-quantity);
+
+            return true;
+        }
+
+        private void adjust(int quantity) {
+            available.addAndGet(quantity);
+            pending.addAndGet(quantity);
+        }
+
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.luv2code.demo.helper.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.luv2code.demo.helper.IFileHelper;
+import com.luv2code.demo.helper.IImageReferenceCounter;
+import com.luv2code.demo.helper.IOrphanImageCollector;
+import com.luv2code.demo.utils.FileUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deletes stored images that no row points at any more, such as uploads left
+ * behind by rolled-back transactions or products removed through a cascade.
+ * Each sweep first loads the file names of every {@code image_url} into a
+ * sorted array of 64-bit hashes, then walks the file store in batches and
+ * deletes files that are not in it and were last modified a grace period
+ * before the sweep started. A hash collision only keeps an orphan, and every
+ * candidate is re-checked against the database before it is deleted. Batches
+ * are paced to {@code file.orphan-collector.files-per-second} so the sweep
+ * never competes with serving traffic.
+ */
+@Component
+@Slf4j
+public class OrphanImageCollector implements IOrphanImageCollector {
+
+    private static final String IMAGE_URLS_SQL = "SELECT image_url FROM products WHERE image_url IS NOT NULL "
+            + "UNION ALL SELECT image_url FROM companies WHERE image_url IS NOT NULL "
+            + "UNION ALL SELECT image_url FROM categories WHERE image_url IS NOT NULL "
+            + "UNION ALL SELECT image_url FROM users WHERE image_url IS NOT NULL";
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String folderPath;
+    private final boolean enabled;
+    private final long gracePeriod;
+    private final int batchSize;
+    private final int filesPerSecond;
+    private final JdbcTemplate jdbcTemplate;
+    private final IImageReferenceCounter imageReferenceCounter;
+    private final IFileHelper fileHelper;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public OrphanImageCollector(@Value("${file.path}") String folderPath,
+            @Value("${file.orphan-collector.enabled}") boolean enabled,
+            @Value("${file.orphan-collector.grace-period}") long gracePeriod,
+            @Value("${file.orphan-collector.batch-size}") int batchSize,
+            @Value("${file.orphan-collector.files-per-second}") int filesPerSecond, JdbcTemplate jdbcTemplate,
+            IImageReferenceCounter imageReferenceCounter, IFileHelper fileHelper) {
+        this.folderPath = folderPath;
+        this.enabled = enabled;
+        this.gracePeriod = gracePeriod;
+        this.batchSize = batchSize;
+        this.filesPerSecond = filesPerSecond;
+        this.jdbcTemplate = jdbcTemplate;
+        this.imageReferenceCounter = imageReferenceCounter;
+        this.fileHelper = fileHelper;
+    }
+
+    @Async
+    @Scheduled(fixedDelayString = "${file.orphan-collector.interval}", initialDelayString = "${file.orphan-collector.initial-delay}")
+    public void onSchedule() {
+
+        if (enabled) {
+            collect();
+        }
+
+    }
+
+    @Override
+    public int collect() {
+
+        Path folder = Paths.get(folderPath);
+
+        if (!Files.isDirectory(folder) || !running.compareAndSet(false, true)) {
+            return 0;
+        }
+
+        try {
+            long sweepStartedAt = System.currentTimeMillis();
+            long[] referenced = loadReferencedFileNames();
+            int deleted = 0;
+            int scanned = 0;
+
+            log.info("Orphaned image sweep started with {} referenced images", referenced.length);
+
+            try (Stream<Path> stream = FileUtils.listStoredFiles(folder)) {
+                Iterator<Path> files = stream.iterator();
+                List<Path> batch = new ArrayList<>(batchSize);
+
+                while (files.hasNext()) {
+                    batch.add(files.next());
+
+                    if (batch.size() == batchSize || !files.hasNext()) {
+                        long batchStartedAt = System.nanoTime();
+                        deleted += collectBatch(folder, batch, referenced, sweepStartedAt - gracePeriod);
+                        scanned += batch.size();
+                        batch.clear();
+                        pace(batchStartedAt, batchSize);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("Orphaned image sweep of {} stopped after {} files", folderPath, scanned, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Orphaned image sweep interrupted after {} files", scanned);
+            }
+
+            log.info("Orphaned image sweep finished: {} of {} files deleted", deleted, scanned);
+
+            return deleted;
+        } finally {
+            running.set(false);
+        }
+
+    }
+
+    private long[] loadReferencedFileNames() {
+
+        long[][] hashes = { new long[1024] };
+        int[] size = { 0 };
+
+        jdbcTemplate.query(IMAGE_URLS_SQL, resultSet -> {
+            if (size[0] == hashes[0].length) {
+                hashes[0] = Arrays.copyOf(hashes[0], size[0] * 2);
+            }
+            hashes[0][size[0]++] = hash(fileNameOf(resultSet.getString(1)));
+        });
+
+        long[] referenced = Arrays.copyOf(hashes[0], size[0]);
+        Arrays.sort(referenced);
+
+        return referenced;
+
+    }
+
+    private int collectBatch(Path folder, List<Path> batch, long[] referenced, long modifiedBefore)
+            throws IOException {
+
+        int deleted = 0;
+
+        for (Path file : batch) {
+            String fileName = file.getFileName().toString();
+
+            if (Arrays.binarySearch(referenced, hash(fileName)) >= 0) {
+                continue;
+            }
+
+            try {
+                if (Files.getLastModifiedTime(file).toMillis() >= modifiedBefore) {
+                    continue;
+                }
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+
+            String alternateUrl = FileUtils.alternateLayoutPath(folder, file).toString();
+            if (imageReferenceCounter.countReferences(file.toString()) > 0
+                    || imageReferenceCounter.countReferences(alternateUrl) > 0) {
+                continue;
+            }
+
+            if (fileHelper.deleteImageFromFileSystem(file.toString())) {
+                log.debug("Deleted orphaned image {}", file);
+                deleted++;
+            }
+        }
+
+        return deleted;
+
+    }
+
+    private void pace(long batchStartedAt, int files) throws InterruptedException {
+
+        long budget = TimeUnit.SECONDS.toNanos(files) / filesPerSecond;
+        long remaining = budget - (System.nanoTime() - batchStartedAt);
+
+        if (remaining > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+
+    }
+
+    private static String fileNameOf(String imageUrl) {
+        int separator = Math.max(imageUrl.lastIndexOf('/'), imageUrl.lastIndexOf('\\'));
+        return imageUrl.substring(separator + 1);
+    }
+
+    private static long hash(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+}
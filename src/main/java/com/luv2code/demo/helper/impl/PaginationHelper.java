@@ -1,5 +1,8 @@
 package com.luv2code.demo.helper.impl;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
 import org.springframework.stereotype.Component;
 
 import com.luv2code.demo.helper.IPaginationHelper;
@@ -10,6 +13,9 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class PaginationHelper implements IPaginationHelper {
 
+    private static final String CURSOR_PREFIX = "id:";
+    private static final int MAX_SLICE_SIZE = 100;
+
     @Override
     public void validatePageParameters(Integer page, Integer size) {
 
@@ -20,4 +26,46 @@ public class PaginationHelper implements IPaginationHelper {
 
     }
 
+    @Override
+    public void validateSliceSize(Integer size) {
+
+        if (size < 1 || size > MAX_SLICE_SIZE) {
+            log.warn("Invalid slice size: size={}", size);
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_SLICE_SIZE + ".");
+        }
+
+    }
+
+    @Override
+    public Long decodeCursor(String cursor) {
+
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+
+            if (decoded.startsWith(CURSOR_PREFIX)) {
+                long lastId = Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+                if (lastId > 0) {
+                    return lastId;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Cursor could not be decoded: {}", cursor);
+        }
+
+        throw new IllegalArgumentException("Invalid cursor.");
+
+    }
+
+    @Override
+    public String encodeCursor(Long lastId) {
+
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+
+    }
+
 }
@@ -0,0 +1,100 @@
+package com.luv2code.demo.helper.impl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.luv2code.demo.exc.custom.ServiceUnavailableException;
+import com.luv2code.demo.helper.IPasswordHasher;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs password checks on a small dedicated pool so that a burst of logins
+ * cannot take CPU away from request threads serving the rest of the API. The
+ * pool and its queue are bounded by {@code security.password-hashing.*}; when
+ * both are full the check is rejected at once with a 503 instead of queueing
+ * behind the burst. Pool and queue gauges are published as
+ * {@code executor.*{name=password-hashing}} and rejections are counted in
+ * {@code security.password-hashing.rejected}.
+ */
+@Component
+@Slf4j
+public class PasswordHasher implements IPasswordHasher {
+
+    private static final String EXECUTOR_NAME = "password-hashing";
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor threadPoolExecutor;
+    private final ExecutorService executor;
+    private final Counter rejections;
+
+    public PasswordHasher(@Value("${security.password-hashing.pool-size}") int poolSize,
+            @Value("${security.password-hashing.queue-capacity}") int queueCapacity, PasswordEncoder passwordEncoder,
+            MeterRegistry meterRegistry) {
+
+        AtomicInteger threadCount = new AtomicInteger();
+
+        this.passwordEncoder = passwordEncoder;
+        this.threadPoolExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, EXECUTOR_NAME + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, threadPoolExecutor, EXECUTOR_NAME);
+        this.rejections = Counter.builder("security.password-hashing.rejected")
+                .description("Password checks rejected because the hashing pool was saturated")
+                .register(meterRegistry);
+
+        log.info("Password hashing pool created with {} threads and a queue of {}", poolSize, queueCapacity);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+
+        Future<Boolean> result;
+
+        try {
+            result = executor.submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            log.warn("Password hashing pool saturated with {} queued checks, rejecting login",
+                    threadPoolExecutor.getQueue().size());
+            throw new ServiceUnavailableException("Too many login attempts, please try again shortly", e);
+        }
+
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            throw new ServiceUnavailableException("Password check was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password check failed", e.getCause());
+        }
+
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        threadPoolExecutor.shutdown();
+    }
+
+}
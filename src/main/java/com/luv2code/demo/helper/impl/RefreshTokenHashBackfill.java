@@ -0,0 +1,89 @@
+package com.luv2code.demo.helper.impl;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import com.luv2code.demo.helper.IRefreshTokenHashBackfill;
+import com.luv2code.demo.utils.HashUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fills {@code refresh_token.token_hash} for rows written before refresh
+ * tokens were looked up by digest. Rows are read in primary key order, one
+ * batch at a time, and each batch is written with a single JDBC batch update
+ * that skips rows whose hash was set in the meantime by a token rotation.
+ * Until the backfill has finished, lookups that miss on the digest fall back
+ * to the raw token column.
+ */
+@Component
+@Slf4j
+public class RefreshTokenHashBackfill implements IRefreshTokenHashBackfill {
+
+    private static final String SELECT_UNHASHED_SQL = "SELECT id, token FROM refresh_token "
+            + "WHERE token_hash IS NULL AND id > ? ORDER BY id LIMIT ?";
+    private static final String UPDATE_HASH_SQL = "UPDATE refresh_token SET token_hash = ? "
+            + "WHERE id = ? AND token_hash IS NULL";
+
+    private final int batchSize;
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean complete;
+
+    public RefreshTokenHashBackfill(@Value("${security.refresh-token.backfill-batch-size}") int batchSize,
+            JdbcTemplate jdbcTemplate) {
+        this.batchSize = batchSize;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        backfill();
+    }
+
+    @Override
+    public void backfill() {
+
+        long lastId = 0;
+        int hashed = 0;
+
+        try {
+            List<Object[]> batch;
+
+            do {
+                batch = jdbcTemplate.query(SELECT_UNHASHED_SQL,
+                        (resultSet, rowNum) -> new Object[] { HashUtils.sha256Hex(resultSet.getString("token")),
+                                resultSet.getLong("id") },
+                        lastId, batchSize);
+
+                if (!batch.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_HASH_SQL, batch);
+                    lastId = (Long) batch.get(batch.size() - 1)[1];
+                    hashed += batch.size();
+                    log.debug("Hashed refresh tokens up to id {}", lastId);
+                }
+            } while (batch.size() == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Refresh token hash backfill stopped after {} rows, lookups keep the raw token fallback",
+                    hashed, e);
+            return;
+        }
+
+        complete = true;
+
+        log.info("Refresh token hash backfill finished: {} rows hashed", hashed);
+
+    }
+
+    @Override
+    public boolean isComplete() {
+        return complete;
+    }
+
+}
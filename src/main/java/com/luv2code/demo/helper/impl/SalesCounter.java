@@ -0,0 +1,101 @@
+package com.luv2code.demo.helper.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.luv2code.demo.helper.ISalesCounter;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Accumulates units sold per product in memory and adds them to
+ * {@code products.sales_count} with one multi-row UPDATE every
+ * {@code sales.counter.flush-interval} ms, so checkouts never take row locks
+ * on the products they sold.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class SalesCounter implements ISalesCounter {
+
+    private static final int MAX_PRODUCTS_PER_UPDATE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, Long> pendingSales = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordSale(Long productId, Integer quantity) {
+        pendingSales.merge(productId, quantity.longValue(), Long::sum);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${sales.counter.flush-interval}")
+    public synchronized void flush() {
+
+        if (pendingSales.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Long> deltas = new LinkedHashMap<>();
+
+        for (Long productId : pendingSales.keySet()) {
+            Long delta = pendingSales.remove(productId);
+            if (delta != null) {
+                deltas.put(productId, delta);
+            }
+
+            if (deltas.size() == MAX_PRODUCTS_PER_UPDATE) {
+                update(deltas);
+                deltas.clear();
+            }
+        }
+
+        if (!deltas.isEmpty()) {
+            update(deltas);
+        }
+
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Flushing pending sales counts before shutdown");
+        flush();
+    }
+
+    private void update(Map<Long, Long> deltas) {
+
+        StringBuilder sql = new StringBuilder("UPDATE products SET sales_count = sales_count + CASE id");
+        List<Object> args = new ArrayList<>(deltas.size() * 3);
+
+        deltas.forEach((productId, delta) -> {
+            sql.append(" WHEN ? THEN ?");
+            args.add(productId);
+            args.add(delta);
+        });
+
+        sql.append(" ELSE 0 END WHERE id IN (");
+        sql.append(String.join(", ", Collections.nCopies(deltas.size(), "?")));
+        sql.append(")");
+        args.addAll(deltas.keySet());
+
+        try {
+            int updated = jdbcTemplate.update(sql.toString(), args.toArray());
+            log.info("Flushed sales counts for {} products", updated);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush sales counts for {} products, retrying on next flush", deltas.size(), e);
+            deltas.forEach((productId, delta) -> pendingSales.merge(productId, delta, Long::sum));
+        }
+
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.luv2code.demo.helper.impl;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import com.luv2code.demo.helper.IFileLayoutMigrator;
+import com.luv2code.demo.helper.IImageCodecMigrator;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the file store migrations on startup, one after the other on a single
+ * async thread. Stored files are re-encoded in place first and only then moved
+ * into the sharded layout, so the codec pass never rewrites a flat path the
+ * layout pass has already moved or reads a file in the middle of a move.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class StorageMigrationRunner {
+
+    private final IImageCodecMigrator imageCodecMigrator;
+    private final IFileLayoutMigrator fileLayoutMigrator;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+
+        if (imageCodecMigrator.isEnabled()) {
+            log.info("Starting storage codec migration");
+            imageCodecMigrator.migrate();
+        }
+
+        if (fileLayoutMigrator.isEnabled()) {
+            log.info("Starting sharded layout migration");
+            fileLayoutMigrator.migrate();
+        }
+
+    }
+
+}
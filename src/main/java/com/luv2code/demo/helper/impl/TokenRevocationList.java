@@ -0,0 +1,167 @@
+package com.luv2code.demo.helper.impl;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.luv2code.demo.entity.RevokedToken;
+import com.luv2code.demo.helper.ITokenRevocationList;
+import com.luv2code.demo.repository.RevokedTokenRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the ids ({@code jti}) of revoked token pairs in memory so the JWT
+ * filter can reject them with a single hash lookup and no allocation. Each id
+ * is also placed in a hashed timing wheel slot for its token's expiry; the
+ * wheel advances once per tick and drops ids whose tokens have expired, so
+ * the set only ever holds tokens that could still be presented. Revocations
+ * are written to {@code revoked_tokens}, loaded on startup and polled every
+ * {@code security.revocation.sync-interval} ms so that every node picks up
+ * logouts handled by the others.
+ */
+@Component
+@Slf4j
+public class TokenRevocationList implements ITokenRevocationList {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 512;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long syncInterval;
+    private final Clock clock;
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Queue<String>[] wheel;
+    private long lastTick;
+    private Instant lastSync;
+
+    @Autowired
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository,
+            @Value("${security.revocation.sync-interval}") long syncInterval) {
+        this(revokedTokenRepository, syncInterval, Clock.systemUTC());
+    }
+
+    @SuppressWarnings("unchecked")
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository, long syncInterval, Clock clock) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.syncInterval = syncInterval;
+        this.clock = clock;
+        this.wheel = new Queue[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.lastTick = clock.millis() / TICK_MILLIS;
+    }
+
+    @PostConstruct
+    public void load() {
+        lastSync = Instant.EPOCH;
+        synchronize();
+    }
+
+    @Override
+    public void revoke(String tokenId, Instant expiresAt) {
+
+        if (tokenId == null || !expiresAt.isAfter(clock.instant())) {
+            return;
+        }
+
+        revokedTokenRepository.save(RevokedToken.builder().tokenId(tokenId).expiresAt(expiresAt)
+                .revokedAt(clock.instant()).build());
+
+        add(tokenId, expiresAt.toEpochMilli());
+
+        log.info("Revoked access token {} until {}", tokenId, expiresAt);
+
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null && !revokedTokens.isEmpty() && revokedTokens.containsKey(tokenId);
+    }
+
+    @Scheduled(fixedRate = TICK_MILLIS)
+    public synchronized void advance() {
+
+        long now = clock.millis();
+        long currentTick = now / TICK_MILLIS;
+        long lastSlot = Math.min(currentTick, lastTick + WHEEL_SIZE);
+
+        for (long tick = lastTick + 1; tick <= lastSlot; tick++) {
+            Queue<String> slot = wheel[slotFor(tick)];
+
+            for (int remaining = slot.size(); remaining > 0; remaining--) {
+                String tokenId = slot.poll();
+                if (tokenId == null) {
+                    break;
+                }
+
+                Long expiresAt = revokedTokens.get(tokenId);
+                if (expiresAt == null) {
+                    continue;
+                }
+
+                if (expiresAt <= now) {
+                    revokedTokens.remove(tokenId, expiresAt);
+                } else if (slotFor(tickFor(expiresAt)) == slotFor(tick)) {
+                    slot.add(tokenId);
+                }
+            }
+        }
+
+        lastTick = currentTick;
+
+    }
+
+    @Scheduled(fixedDelayString = "${security.revocation.sync-interval}", initialDelayString = "${security.revocation.sync-interval}")
+    public void synchronize() {
+
+        Instant now = clock.instant();
+        Instant since = lastSync.minusMillis(syncInterval);
+
+        try {
+            int loaded = 0;
+            for (RevokedToken revokedToken : revokedTokenRepository.findActiveRevokedSince(since, now)) {
+                if (!revokedTokens.containsKey(revokedToken.getTokenId())) {
+                    add(revokedToken.getTokenId(), revokedToken.getExpiresAt().toEpochMilli());
+                    loaded++;
+                }
+            }
+
+            int purged = revokedTokenRepository.deleteExpired(now);
+            lastSync = now;
+
+            if (loaded > 0 || purged > 0) {
+                log.info("Loaded {} revoked tokens, purged {} expired revocations", loaded, purged);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to synchronize revoked tokens, retrying on next sync", e);
+        }
+
+    }
+
+    private void add(String tokenId, long expiresAt) {
+
+        revokedTokens.merge(tokenId, expiresAt, Math::max);
+        wheel[slotFor(tickFor(expiresAt))].add(tokenId);
+
+    }
+
+    private static long tickFor(long epochMilli) {
+        return Math.floorDiv(epochMilli + TICK_MILLIS - 1, TICK_MILLIS);
+    }
+
+    private static int slotFor(long tick) {
+        return (int) Math.floorMod(tick, WHEEL_SIZE);
+    }
+
+}
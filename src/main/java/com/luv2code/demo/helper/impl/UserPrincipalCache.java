@@ -0,0 +1,64 @@
+package com.luv2code.demo.helper.impl;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.luv2code.demo.helper.IUserPrincipalCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded, time-limited cache of authenticated principals keyed by email, so
+ * that {@code JwtAuthenticationFilter} does not query the users table on every
+ * request. Hit, miss and eviction counts are published as
+ * {@code cache.*{cache=userPrincipals}} metrics.
+ */
+@Component
+@Slf4j
+public class UserPrincipalCache implements IUserPrincipalCache {
+
+    private static final String CACHE_NAME = "userPrincipals";
+
+    private final Cache<String, UserDetails> cache;
+
+    public UserPrincipalCache(@Value("${security.principal-cache.maximum-size}") long maximumSize,
+            @Value("${security.principal-cache.expiration-time}") long expirationTime,
+            MeterRegistry meterRegistry) {
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expirationTime))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+
+        log.info("User principal cache created with maximum size: {} and expiration time: {} ms", maximumSize,
+                expirationTime);
+    }
+
+    @Override
+    public UserDetails getUserPrincipal(String email, Function<String, UserDetails> loader) {
+
+        return cache.get(email, loader);
+
+    }
+
+    @Override
+    public void evictUserPrincipal(String email) {
+
+        log.info("Evicting cached principal for email: {}", email);
+
+        cache.invalidate(email);
+
+    }
+
+}
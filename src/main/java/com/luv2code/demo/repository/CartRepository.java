@@ -28,24 +28,29 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
 
     @Modifying
     @Transactional
-    @Query(value = "UPDATE products p " + "JOIN cart_items ci ON p.id = ci.product_id "
-            + "SET p.quantity = COALESCE(p.quantity, 0) + :quantity "
-            + "WHERE ci.cart_id = :cartId", nativeQuery = true)
-    Integer updateProductQuantity(@Param("cartId") Long cartId, @Param("quantity") Integer quantity);
+    @Query(value = "DELETE ci FROM cart_items ci " + "JOIN carts c ON ci.cart_id = c.id "
+            + "WHERE c.user_id = :userId AND c.id <= :maxCartId", nativeQuery = true)
+    Integer deleteCartItemsByUserId(@Param("userId") Long userId, @Param("maxCartId") Long maxCartId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM carts " + "WHERE user_id = :userId AND id <= :maxCartId", nativeQuery = true)
+    Integer deleteCartsByUserId(@Param("userId") Long userId, @Param("maxCartId") Long maxCartId);
 
     @Modifying
     @Transactional
     @Query(value = "UPDATE cart_items ci " + "SET ci.quantity = :quantity "
-            + "WHERE ci.cart_id = :cartId", nativeQuery = true)
-    Integer updateCartItemQuantity(@Param("cartId") Long cartId, @Param("quantity") Integer quantity);
+            + "WHERE ci.cart_id = :cartId AND ci.quantity = :expectedQuantity", nativeQuery = true)
+    Integer updateCartItemQuantity(@Param("cartId") Long cartId, @Param("expectedQuantity") Integer expectedQuantity,
+            @Param("quantity") Integer quantity);
 
     @Query(value = "SELECT new com.luv2code.demo.dto.ProductGetterDTO(p.id, p.name, p.quantity, ci.quantity) "
             + "FROM Cart c " + "JOIN c.cartItem ci " + "JOIN ci.product p " + "WHERE c.id = :cartId")
     Optional<ProductGetterDTO> findProductGetterDTO(@Param("cartId") Long cartId);
 
     @Query(value = "SELECT new com.luv2code.demo.dto.response.CartItemResponseDTO(p.id, p.name, p.description, cp.name, ci.quantity, ci.price, c.id) "
-            + "FROM Cart c " + "JOIN c.user u " + "JOIN c.cartItem ci " + "JOIN ci.product p " + "JOIN p.company cp "
-            + "WHERE u.email = :userEmail")
-    List<CartItemResponseDTO> findAllCartItemsWithUserEmail(@Param("userEmail") String userEmail);
+            + "FROM Cart c " + "JOIN c.cartItem ci " + "JOIN ci.product p " + "JOIN p.company cp "
+            + "WHERE c.user.id = :userId")
+    List<CartItemResponseDTO> findAllCartItemsByUserId(@Param("userId") Long userId);
 
 }
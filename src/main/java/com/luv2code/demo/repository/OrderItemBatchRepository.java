@@ -0,0 +1,11 @@
+package com.luv2code.demo.repository;
+
+import java.util.List;
+
+import com.luv2code.demo.entity.OrderItem;
+
+public interface OrderItemBatchRepository {
+
+    void batchInsertOrderItems(Long orderId, List<OrderItem> orderItems);
+
+}
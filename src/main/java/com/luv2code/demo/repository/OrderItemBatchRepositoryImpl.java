@@ -0,0 +1,41 @@
+package com.luv2code.demo.repository;
+
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.luv2code.demo.entity.OrderItem;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Inserts order items with one JDBC batch. {@code OrderItem} uses IDENTITY
+ * ids, which makes Hibernate insert cascaded items one statement at a time;
+ * with {@code rewriteBatchedStatements=true} on the MySQL URL this batch is
+ * sent as a single multi-row INSERT.
+ */
+@Slf4j
+@AllArgsConstructor
+public class OrderItemBatchRepositoryImpl implements OrderItemBatchRepository {
+
+    private static final String INSERT_ORDER_ITEM_SQL = "INSERT INTO order_items (order_id, product_id, quantity, price) "
+            + "VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void batchInsertOrderItems(Long orderId, List<OrderItem> orderItems) {
+
+        jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM_SQL, orderItems, orderItems.size(), (ps, orderItem) -> {
+            ps.setLong(1, orderId);
+            ps.setLong(2, orderItem.getProduct().getId());
+            ps.setInt(3, orderItem.getQuantity());
+            ps.setBigDecimal(4, orderItem.getPrice());
+        });
+
+        log.info("Inserted {} order items for order ID: {}", orderItems.size(), orderId);
+
+    }
+
+}
@@ -10,7 +10,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.luv2code.demo.entity.OrderItem;
 
 @Repository
-public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long>, OrderItemBatchRepository {
 
     @Modifying
     @Transactional
@@ -5,6 +5,7 @@ import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -42,6 +43,23 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     Page<ProductDetailsCategoryResponseDTO> findProductsByCategoryName(@Param("categoryName") String categoryName,
             Pageable pageable);
 
+    @Query("SELECT new com.luv2code.demo.dto.response.ProductCompanyResponseDTO(p.id, p.name, p.imageUrl) "
+            + "FROM Product p " + "WHERE p.company.name = :companyName AND p.id > :afterId " + "ORDER BY p.id")
+    Slice<ProductCompanyResponseDTO> findAllProductsAfter(@Param("companyName") String companyName,
+            @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.luv2code.demo.dto.response.ProductDetailsCompanyResponseDTO("
+            + "p.id, p.description, p.discount, p.imageUrl, p.price, p.quantity) " + "FROM Product p "
+            + "WHERE p.company.name = :companyName AND p.id > :afterId " + "ORDER BY p.id")
+    Slice<ProductDetailsCompanyResponseDTO> findProductsByCompanyNameAfter(@Param("companyName") String companyName,
+            @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.luv2code.demo.dto.response.ProductDetailsCategoryResponseDTO("
+            + "p.id, p.description, p.discount, p.imageUrl, p.price, p.company.name) " + "FROM Product p "
+            + "WHERE p.category.name = :categoryName AND p.id > :afterId " + "ORDER BY p.id")
+    Slice<ProductDetailsCategoryResponseDTO> findProductsByCategoryNameAfter(
+            @Param("categoryName") String categoryName, @Param("afterId") Long afterId, Pageable pageable);
+
     @Query("SELECT new com.luv2code.demo.dto.response.ProductBestSellerResponseDTO(p.id, p.name, p.description, p.discount, p.imageUrl) "
             + "FROM Product p " + "ORDER BY p.salesCount DESC")
     List<ProductBestSellerResponseDTO> findTopBestSellers(Pageable pageable);
@@ -75,4 +93,14 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("UPDATE Product p SET p.quantity = :quantity WHERE p.id = :id")
     Integer updateProductQuantity(@Param("id") Long id, @Param("quantity") Integer quantity);
 
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.quantity = p.quantity - :quantity WHERE p.id = :id AND p.quantity >= :quantity")
+    Integer decrementProductQuantity(@Param("id") Long id, @Param("quantity") Integer quantity);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.quantity = p.quantity + :quantity WHERE p.id = :id")
+    Integer incrementProductQuantity(@Param("id") Long id, @Param("quantity") Integer quantity);
+
 }
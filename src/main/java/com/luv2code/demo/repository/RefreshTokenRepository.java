@@ -16,4 +16,8 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
             + "WHERE rt.token = :token")
     Optional<RefreshToken> findByToken(@Param("token") String token);
 
+    @Query("SELECT rt FROM RefreshToken rt " + "JOIN FETCH rt.user u " + "JOIN FETCH u.address " + "JOIN FETCH u.role "
+            + "WHERE rt.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHash(@Param("tokenHash") String tokenHash);
+
 }
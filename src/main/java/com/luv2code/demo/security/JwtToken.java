@@ -0,0 +1,19 @@
+package com.luv2code.demo.security;
+
+import java.util.Date;
+
+import io.jsonwebtoken.Claims;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class JwtToken {
+
+    private final String subject;
+
+    private final Date expiration;
+
+    private final Claims claims;
+
+}
@@ -21,6 +21,10 @@ public class SecurityUser implements UserDetails {
     private static final long serialVersionUID = 1L;
     private final User user;
 
+    public Long getUserId() {
+        return user.getId();
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
 
@@ -10,12 +10,12 @@ import com.luv2code.demo.dto.response.CartItemResponseDTO;
 
 public interface ICartService {
 
-    CartItemResponseDTO addCartItem(CartRequestDTO cartRequestDTO);
+    CartItemResponseDTO addCartItem(Long userId, CartRequestDTO cartRequestDTO);
 
     ResponseEntity<ApiResponseDTO> deleteCartItem(Long theId);
     
     ResponseEntity<Map<String,Integer>> updateCartItem(Integer newQuantity,Long theId);
     
-    ResponseEntity<Map<String,Object>> getAllCartItemsForUserEmail(String userEmail);
+    ResponseEntity<Map<String,Object>> getAllCartItemsForUser(Long userId);
 
 }
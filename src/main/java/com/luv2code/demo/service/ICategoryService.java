@@ -16,9 +16,9 @@ public interface ICategoryService {
 
     ResponseEntity<ApiResponseDTO> deleteCategory(String name) throws IOException;
 
-    CategoryResponseDTO createCategory(CategoryRequestDTO categoryRequestDTO) throws IllegalStateException, IOException;
+    CategoryResponseDTO createCategory(String owner, CategoryRequestDTO categoryRequestDTO) throws IllegalStateException, IOException;
 
-    CategoryResponseDTO updateCategory(String name, CategoryRequestDTO categoryRequestDTO)
+    CategoryResponseDTO updateCategory(String owner, String name, CategoryRequestDTO categoryRequestDTO)
             throws IllegalStateException, IOException;
 
     Category getCategorySetter(String name);
@@ -16,9 +16,9 @@ public interface ICompanyService {
 
     ResponseEntity<ApiResponseDTO> deleteCompany(String name) throws IOException;
 
-    CompanyResponseDTO createCompany(CompanyRequestDTO companyRequestDTO) throws IllegalStateException, IOException;
+    CompanyResponseDTO createCompany(String owner, CompanyRequestDTO companyRequestDTO) throws IllegalStateException, IOException;
 
-    CompanyResponseDTO updateCompany(String name, CompanyRequestDTO companyRequestDTO)
+    CompanyResponseDTO updateCompany(String owner, String name, CompanyRequestDTO companyRequestDTO)
             throws IllegalStateException, IOException;
 
     Company getCompanySetter(String name);
@@ -5,6 +5,9 @@ import java.util.function.Function;
 
 import org.springframework.security.core.userdetails.UserDetails;
 
+import com.luv2code.demo.entity.User;
+import com.luv2code.demo.security.JwtToken;
+
 import io.jsonwebtoken.Claims;
 
 public interface IJwtService {
@@ -17,8 +20,22 @@ public interface IJwtService {
 
     Boolean validateToken(String token, UserDetails userDetails);
 
+    JwtToken parseToken(String token);
+
+    Boolean validateToken(JwtToken token, UserDetails userDetails);
+
     String generateToken(String username, UserDetails userDetail);
 
+    String generateToken(String username, UserDetails userDetail, String tokenId);
+
     String generateRefreshToken(String username);
 
+    String generateRefreshToken(String username, String tokenId);
+
+    String generateRefreshToken(String username, String tokenId, User user);
+
+    UserDetails extractPrincipal(JwtToken token);
+
+    Integer extractRoleVersion(String token);
+
 }
@@ -8,7 +8,7 @@ import com.luv2code.demo.dto.response.ApiResponseDTO;
 
 public interface IOrderService {
 
-	ResponseEntity<Map<String , Object>> createOrder(String userEmail);
+	ResponseEntity<Map<String , Object>> createOrder(Long userId);
 	
 	ResponseEntity<ApiResponseDTO> deleteOrder(Long orderId);
 	
@@ -1,15 +1,13 @@
 package com.luv2code.demo.service;
 
 import java.io.IOException;
-import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 
 import com.luv2code.demo.dto.request.ProductRequestDTO;
 import com.luv2code.demo.dto.response.ApiResponseDTO;
-import com.luv2code.demo.dto.response.DiscountedProductsResponseDTO;
-import com.luv2code.demo.dto.response.ProductBestSellerResponseDTO;
+import com.luv2code.demo.dto.response.CursorSliceResponseDTO;
 import com.luv2code.demo.dto.response.ProductCompanyResponseDTO;
 import com.luv2code.demo.dto.response.ProductDetailsCategoryResponseDTO;
 import com.luv2code.demo.dto.response.ProductDetailsCompanyResponseDTO;
@@ -18,11 +16,12 @@ import com.luv2code.demo.entity.Product;
 
 public interface IProductService {
 
-    ProductDetailsResponseDTO createProduct(ProductRequestDTO productRequestDTO) throws IllegalStateException, IOException;
+    ProductDetailsResponseDTO createProduct(String owner, ProductRequestDTO productRequestDTO)
+            throws IllegalStateException, IOException;
 
     ResponseEntity<ApiResponseDTO> deleteProductById(Long theId) throws IOException;
 
-    ProductDetailsResponseDTO updateProductById(Long theId, ProductRequestDTO productRequestDTO)
+    ProductDetailsResponseDTO updateProductById(String owner, Long theId, ProductRequestDTO productRequestDTO)
             throws IllegalStateException, IOException;
 
     Page<ProductCompanyResponseDTO> getAllProductsInCompany(String companyName, Integer page, Integer size);
@@ -31,9 +30,11 @@ public interface IProductService {
 
     Page<ProductDetailsCategoryResponseDTO> getAllProductsDetailsInCategory(String categoryName, Integer page, Integer size);
 
-    List<ProductBestSellerResponseDTO> getTopSevenProductsWithBestSeller();
-    
-    List<DiscountedProductsResponseDTO> getAllDiscountedProduct();
+    CursorSliceResponseDTO<ProductCompanyResponseDTO> getAllProductsInCompanyAfter(String companyName, String after, Integer size);
+
+    CursorSliceResponseDTO<ProductDetailsCompanyResponseDTO> getAllProductsDetailsInCompanyAfter(String companyName, String after, Integer size);
+
+    CursorSliceResponseDTO<ProductDetailsCategoryResponseDTO> getAllProductsDetailsInCategoryAfter(String categoryName, String after, Integer size);
 
     ProductDetailsResponseDTO getProductDetailsById(Long theId);
 
@@ -41,4 +42,8 @@ public interface IProductService {
 
     Integer updateProductQuantityById(Long theId, Integer quantity);
 
+    Boolean decrementProductQuantityById(Long theId, Integer quantity);
+
+    Integer incrementProductQuantityById(Long theId, Integer quantity);
+
 }
@@ -0,0 +1,20 @@
+package com.luv2code.demo.service;
+
+import java.util.List;
+
+import com.luv2code.demo.dto.response.DiscountedProductsResponseDTO;
+import com.luv2code.demo.dto.response.ProductBestSellerResponseDTO;
+
+public interface IProductSnapshotService {
+
+    List<ProductBestSellerResponseDTO> getTopSevenProductsWithBestSeller();
+
+    List<DiscountedProductsResponseDTO> getAllDiscountedProduct();
+
+    void refresh();
+
+    void requestRefresh();
+
+    void refreshIfRequested();
+
+}
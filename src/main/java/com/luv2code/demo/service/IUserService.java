@@ -16,15 +16,19 @@ public interface IUserService {
 
 	User getUserTokenDetails(String email);
 
+	User getUserLoginDetails(String email);
+
 	void createUser(User user);
 
 	User getUserSetterByEmail(String email);
 
+	User getUserReference(Long userId);
+
 	ResponseEntity<ApiResponseDTO> UpdatePassword(ChangePasswordRequestDTO changePasswordRequest);
 
 	ResponseEntity<ApiResponseDTO> deleteUser(String email);
 
-	ResponseEntity<Map<String, String>> updateUserImage(UpdateUserImageRequestDTO updateUserImageRequest)
+	ResponseEntity<Map<String, String>> updateUserImage(String owner, UpdateUserImageRequestDTO updateUserImageRequest)
 			throws IOException;
 
 	UpdateUserProfileResponseDTO updateUserProfile(UpdateUserProfileRequestDTO updateUserProfileRequest)
@@ -1,10 +1,11 @@
 package com.luv2code.demo.service.impl;
 
 import java.io.IOException;
+import java.util.UUID;
 
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -16,8 +17,8 @@ import com.luv2code.demo.dto.response.JwtResponseDTO;
 import com.luv2code.demo.entity.RefreshToken;
 import com.luv2code.demo.entity.User;
 import com.luv2code.demo.exc.custom.NotFoundException;
-import com.luv2code.demo.exc.custom.NotFoundTypeException;
 import com.luv2code.demo.helper.IFileHelper;
+import com.luv2code.demo.helper.IPasswordHasher;
 import com.luv2code.demo.repository.RoleRepository;
 import com.luv2code.demo.security.SecurityUser;
 import com.luv2code.demo.service.IAuthenticationService;
@@ -37,7 +38,7 @@ public class AuthenticationService implements IAuthenticationService {
     private final RoleRepository roleRepository;
     private final IFileHelper fileHelper;
     private final PasswordEncoder passwordEncoder;
-    private final AuthenticationManager authenticationManager;
+    private final IPasswordHasher passwordHasher;
     private final SystemMapper mapper;
     private final IJwtService jwtService;
     private final IRefreshTokenService refreshTokenService;
@@ -47,18 +48,23 @@ public class AuthenticationService implements IAuthenticationService {
 
         log.info("Attempting to authenticate user with email: {}", loginRequestDTO.getEmail());
 
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(loginRequestDTO.getEmail(), loginRequestDTO.getPassword()));
+        User user;
 
-        User user = userService.getUserTokenDetails(loginRequestDTO.getEmail());
-
-        if (user == null) {
+        try {
+            user = userService.getUserLoginDetails(loginRequestDTO.getEmail());
+        } catch (NotFoundException e) {
             log.warn("User not found for email: {}", loginRequestDTO.getEmail());
-            throw new NotFoundException(NotFoundTypeException.USER + " Not Found!");
+            throw new InternalAuthenticationServiceException(e.getMessage(), e);
+        }
+
+        if (!passwordHasher.matches(loginRequestDTO.getPassword(), user.getPassword())) {
+            log.warn("Invalid password for email: {}", loginRequestDTO.getEmail());
+            throw new BadCredentialsException("Bad credentials");
         }
 
-        String accessToken = jwtService.generateToken(loginRequestDTO.getEmail(), new SecurityUser(user));
-        String refreshToken = jwtService.generateRefreshToken(loginRequestDTO.getEmail());
+        String tokenId = UUID.randomUUID().toString();
+        String accessToken = jwtService.generateToken(loginRequestDTO.getEmail(), new SecurityUser(user), tokenId);
+        String refreshToken = jwtService.generateRefreshToken(loginRequestDTO.getEmail(), tokenId, user);
 
         RefreshToken refresh_token = RefreshToken.builder().token(refreshToken).user(user)
                 .expireDate(jwtService.extractExpiration(refreshToken).toInstant()).build();
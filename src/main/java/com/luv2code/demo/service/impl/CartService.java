@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -39,11 +40,11 @@ public class CartService implements ICartService {
 
     @Transactional
     @Override
-    public CartItemResponseDTO addCartItem(CartRequestDTO cartRequestDTO) {
+    public CartItemResponseDTO addCartItem(Long userId, CartRequestDTO cartRequestDTO) {
 
         CartItemRequestDTO cartItemDTO = cartRequestDTO.getCartItems();
         Cart cart = new Cart();
-        cart.setUser(userService.getUserSetterByEmail(cartRequestDTO.getEmail()));
+        cart.setUser(userService.getUserReference(userId));
 
         Product product = productService.getProductCartSetter(cartItemDTO.getProductId());
 
@@ -52,10 +53,12 @@ public class CartService implements ICartService {
             throw new QuantityNotAvailableException("Quantity Is Not Available For Product: " + product.getName());
         }
 
-        log.info("Product: {} - Reducing quantity from {} to {}", product.getName(), product.getQuantity(),
-                product.getQuantity() - cartItemDTO.getQuantity());
+        log.info("Product: {} - Reserving quantity {}", product.getName(), cartItemDTO.getQuantity());
 
-        productService.updateProductQuantityById(product.getId(), product.getQuantity() - cartItemDTO.getQuantity());
+        if (!productService.decrementProductQuantityById(product.getId(), cartItemDTO.getQuantity())) {
+            log.warn("Quantity not available for product: {}", product.getName());
+            throw new QuantityNotAvailableException("Quantity Is Not Available For Product: " + product.getName());
+        }
 
         CartItem cartItem = new CartItem();
         cartItem.setCart(cart);
@@ -92,7 +95,8 @@ public class CartService implements ICartService {
             throw new NotFoundException(NotFoundTypeException.CARTITEM + " Not Found!");
         }
 
-        cartRepository.updateProductQuantity(theId, cart.get().getCartItem().getQuantity());
+        CartItem cartItem = cart.get().getCartItem();
+        productService.incrementProductQuantityById(cartItem.getProduct().getId(), cartItem.getQuantity());
         cartRepository.delete(cart.get());
 
         log.info("Cart item with ID: {} deleted successfully", theId);
@@ -123,25 +127,35 @@ public class CartService implements ICartService {
             throw new QuantityNotAvailableException("Quantity Is Not Available For Product: " + productName);
         }
 
-        cartRepository.updateCartItemQuantity(theId, newQuantity);
+        if (cartRepository.updateCartItemQuantity(theId, cartQuantity, newQuantity) == 0) {
+            log.warn("Cart item with ID: {} was changed by another request", theId);
+            throw new OptimisticLockingFailureException("Cart Item Was Changed By Another Request, Please Retry!");
+        }
 
-        log.info("Product: {} - Updating quantity from {} to {}", productName, productQuantity, productQuantity - newQuantity);
+        log.info("Product: {} - Changing cart quantity from {} to {}", productName, cartQuantity, newQuantity);
 
-        productService.updateProductQuantityById(productId, productQuantity - newQuantity);
+        if (newQuantity > cartQuantity) {
+            if (!productService.decrementProductQuantityById(productId, newQuantity - cartQuantity)) {
+                log.warn("Requested quantity {} exceeds available quantity for product: {}", newQuantity, productName);
+                throw new QuantityNotAvailableException("Quantity Is Not Available For Product: " + productName);
+            }
+        } else if (newQuantity < cartQuantity) {
+            productService.incrementProductQuantityById(productId, cartQuantity - newQuantity);
+        }
 
         return ResponseEntity.ok(Map.of("quantity", newQuantity));
     }
 
     @Override
-    public ResponseEntity<Map<String, Object>> getAllCartItemsForUserEmail(String userEmail) {
+    public ResponseEntity<Map<String, Object>> getAllCartItemsForUser(Long userId) {
 
-        List<CartItemResponseDTO> cartItemResponseDTO = cartRepository.findAllCartItemsWithUserEmail(userEmail);
+        List<CartItemResponseDTO> cartItemResponseDTO = cartRepository.findAllCartItemsByUserId(userId);
 
         BigDecimal totalPrice = cartItemResponseDTO.stream()
                 .map(CartItemResponseDTO::getCartItemPrice)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        log.info("Retrieved cart items for user email: {}. Total price: {}", userEmail, totalPrice);
+        log.info("Retrieved cart items for user ID: {}. Total price: {}", userId, totalPrice);
 
         return ResponseEntity.ok(Map.of("total_price", totalPrice, "cartItems", cartItemResponseDTO));
     }
@@ -3,10 +3,11 @@ package com.luv2code.demo.service.impl;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.luv2code.demo.dto.SystemMapper;
 import com.luv2code.demo.dto.request.CategoryRequestDTO;
@@ -30,6 +31,7 @@ public class CategoryService implements ICategoryService {
     private final CategoryRepository categoryRepository;
     private final IFileHelper fileHelper;
     private final SystemMapper mapper;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     public List<CategoryResponseDTO> getAllCategories() {
@@ -52,29 +54,41 @@ public class CategoryService implements ICategoryService {
             throw new NotFoundException(NotFoundTypeException.CATEGORY + " Not Found!");
         }
 
-        log.info("Deleting image from file system for category: {}", name);
-        fileHelper.deleteImageFromFileSystem(category.get().getImageUrl());
-
         log.info("Deleting category from repository: {}", name);
         categoryRepository.delete(category.get());
 
+        log.info("Deleting image from file system for category: {}", name);
+        fileHelper.deleteImageQuietly(category.get().getImageUrl());
+
         return ResponseEntity.ok(new ApiResponseDTO("Success Delete Category."));
 
     }
 
     @Override
-    public CategoryResponseDTO createCategory(CategoryRequestDTO categoryRequestDTO)
+    public CategoryResponseDTO createCategory(String owner, CategoryRequestDTO categoryRequestDTO)
             throws IllegalStateException, IOException {
 
         log.info("Creating new category with name: {}", categoryRequestDTO.getName());
 
-        String imageUrl = fileHelper.uploadFileToFileSystem(categoryRequestDTO.getImage());
+        String imageUrl = categoryRequestDTO.getUploadId() != null
+                ? fileHelper.uploadStagedFileToFileSystem(owner, categoryRequestDTO.getUploadId())
+                : fileHelper.uploadFileToFileSystem(categoryRequestDTO.getImage());
 
-        Category category = mapper.categoryRequestDTOTOCategory(categoryRequestDTO);
+        CategoryResponseDTO categoryDto;
 
-        category.setImageUrl(imageUrl);
+        try {
+            Category category = mapper.categoryRequestDTOTOCategory(categoryRequestDTO);
 
-        CategoryResponseDTO categoryDto = mapper.categoryTOCategoryResponseDTO(categoryRepository.save(category));
+            category.setImageUrl(imageUrl);
+
+            categoryDto = mapper.categoryTOCategoryResponseDTO(categoryRepository.save(category));
+        } catch (RuntimeException e) {
+            log.warn("Failed to create category, discarding uploaded image: {}", imageUrl);
+            fileHelper.deleteImageQuietly(imageUrl);
+            throw e;
+        }
+
+        fileHelper.discardStagedUpload(categoryRequestDTO.getUploadId());
 
         log.info("Category created successfully with name: {}", categoryDto.getName());
 
@@ -82,13 +96,40 @@ public class CategoryService implements ICategoryService {
 
     }
 
-    @Transactional
     @Override
-    public CategoryResponseDTO updateCategory(String name, CategoryRequestDTO categoryRequestDTO)
+    public CategoryResponseDTO updateCategory(String owner, String name, CategoryRequestDTO categoryRequestDTO)
             throws IllegalStateException, IOException {
 
         log.info("Updating category with name: {}", name);
 
+        String newImageUrl = categoryRequestDTO.getUploadId() != null
+                ? fileHelper.uploadStagedFileToFileSystem(owner, categoryRequestDTO.getUploadId())
+                : categoryRequestDTO.getImage() != null
+                        ? fileHelper.uploadFileToFileSystem(categoryRequestDTO.getImage())
+                        : null;
+
+        AtomicReference<String> oldImageUrl = new AtomicReference<>();
+        CategoryResponseDTO categoryDto;
+
+        try {
+            categoryDto = transactionTemplate.execute(status -> saveCategory(name, categoryRequestDTO, newImageUrl,
+                    oldImageUrl));
+        } catch (RuntimeException e) {
+            log.warn("Failed to update category: {}, discarding uploaded image: {}", name, newImageUrl);
+            fileHelper.deleteImageQuietly(newImageUrl);
+            throw e;
+        }
+
+        fileHelper.discardStagedUpload(categoryRequestDTO.getUploadId());
+        fileHelper.deleteImageQuietly(oldImageUrl.get());
+
+        return categoryDto;
+
+    }
+
+    private CategoryResponseDTO saveCategory(String name, CategoryRequestDTO categoryRequestDTO, String newImageUrl,
+            AtomicReference<String> oldImageUrl) {
+
         Optional<Category> category = categoryRepository.findByName(name);
 
         if (category.isEmpty()) {
@@ -105,15 +146,13 @@ public class CategoryService implements ICategoryService {
             category.get().setName(categoryRequestDTO.getName());
         }
 
-        if (categoryRequestDTO.getImage() != null) {
+        if (newImageUrl != null) {
 
             log.info("Updating category image for: {}", name);
 
-            fileHelper.deleteImageFromFileSystem(category.get().getImageUrl());
-
-            String imageUrl = fileHelper.uploadFileToFileSystem(categoryRequestDTO.getImage());
+            oldImageUrl.set(category.get().getImageUrl());
 
-            category.get().setImageUrl(imageUrl);
+            category.get().setImageUrl(newImageUrl);
 
         }
 
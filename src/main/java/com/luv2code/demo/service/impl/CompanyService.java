@@ -3,10 +3,11 @@ package com.luv2code.demo.service.impl;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.luv2code.demo.dto.SystemMapper;
 import com.luv2code.demo.dto.request.CompanyRequestDTO;
@@ -30,6 +31,7 @@ public class CompanyService implements ICompanyService {
     private final CompanyRepository companyRepository;
     private final IFileHelper fileHelper;
     private final SystemMapper mapper;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     public List<CompanyResponseDTO> getAllCompanies() {
@@ -52,29 +54,41 @@ public class CompanyService implements ICompanyService {
             throw new NotFoundException(NotFoundTypeException.COMPANY + " Not Found!");
         }
 
-        log.info("Deleting image from file system for company: {}", name);
-        fileHelper.deleteImageFromFileSystem(company.get().getImageUrl());
-
         log.info("Deleting company from repository: {}", name);
         companyRepository.delete(company.get());
 
+        log.info("Deleting image from file system for company: {}", name);
+        fileHelper.deleteImageQuietly(company.get().getImageUrl());
+
         return ResponseEntity.ok(new ApiResponseDTO("Success Delete Company."));
 
     }
 
     @Override
-    public CompanyResponseDTO createCompany(CompanyRequestDTO companyRequestDTO)
+    public CompanyResponseDTO createCompany(String owner, CompanyRequestDTO companyRequestDTO)
             throws IllegalStateException, IOException {
 
         log.info("Creating new company with name: {}", companyRequestDTO.getName());
 
-        String imageUrl = fileHelper.uploadFileToFileSystem(companyRequestDTO.getImage());
+        String imageUrl = companyRequestDTO.getUploadId() != null
+                ? fileHelper.uploadStagedFileToFileSystem(owner, companyRequestDTO.getUploadId())
+                : fileHelper.uploadFileToFileSystem(companyRequestDTO.getImage());
 
-        Company company = mapper.companyRequestDTOTOCompany(companyRequestDTO);
+        CompanyResponseDTO companyDto;
 
-        company.setImageUrl(imageUrl);
+        try {
+            Company company = mapper.companyRequestDTOTOCompany(companyRequestDTO);
 
-        CompanyResponseDTO companyDto = mapper.companyTOCompanyResponseDTO(companyRepository.save(company));
+            company.setImageUrl(imageUrl);
+
+            companyDto = mapper.companyTOCompanyResponseDTO(companyRepository.save(company));
+        } catch (RuntimeException e) {
+            log.warn("Failed to create company, discarding uploaded image: {}", imageUrl);
+            fileHelper.deleteImageQuietly(imageUrl);
+            throw e;
+        }
+
+        fileHelper.discardStagedUpload(companyRequestDTO.getUploadId());
 
         log.info("Company created successfully with name: {}", companyDto.getName());
 
@@ -82,13 +96,40 @@ public class CompanyService implements ICompanyService {
 
     }
 
-    @Transactional
     @Override
-    public CompanyResponseDTO updateCompany(String name, CompanyRequestDTO companyRequestDTO)
+    public CompanyResponseDTO updateCompany(String owner, String name, CompanyRequestDTO companyRequestDTO)
             throws IllegalStateException, IOException {
 
         log.info("Updating company with name: {}", name);
 
+        String newImageUrl = companyRequestDTO.getUploadId() != null
+                ? fileHelper.uploadStagedFileToFileSystem(owner, companyRequestDTO.getUploadId())
+                : companyRequestDTO.getImage() != null
+                        ? fileHelper.uploadFileToFileSystem(companyRequestDTO.getImage())
+                        : null;
+
+        AtomicReference<String> oldImageUrl = new AtomicReference<>();
+        CompanyResponseDTO companyDto;
+
+        try {
+            companyDto = transactionTemplate.execute(status -> saveCompany(name, companyRequestDTO, newImageUrl,
+                    oldImageUrl));
+        } catch (RuntimeException e) {
+            log.warn("Failed to update company: {}, discarding uploaded image: {}", name, newImageUrl);
+            fileHelper.deleteImageQuietly(newImageUrl);
+            throw e;
+        }
+
+        fileHelper.discardStagedUpload(companyRequestDTO.getUploadId());
+        fileHelper.deleteImageQuietly(oldImageUrl.get());
+
+        return companyDto;
+
+    }
+
+    private CompanyResponseDTO saveCompany(String name, CompanyRequestDTO companyRequestDTO, String newImageUrl,
+            AtomicReference<String> oldImageUrl) {
+
         Optional<Company> company = companyRepository.findByName(name);
 
         if (company.isEmpty()) {
@@ -101,15 +142,13 @@ public class CompanyService implements ICompanyService {
             company.get().setName(companyRequestDTO.getName());
         }
 
-        if (companyRequestDTO.getImage() != null) {
+        if (newImageUrl != null) {
 
             log.info("Updating company image for: {}", name);
 
-            fileHelper.deleteImageFromFileSystem(company.get().getImageUrl());
-
-            String imageUrl = fileHelper.uploadFileToFileSystem(companyRequestDTO.getImage());
+            oldImageUrl.set(company.get().getImageUrl());
 
-            company.get().setImageUrl(imageUrl);
+            company.get().setImageUrl(newImageUrl);
 
         }
 
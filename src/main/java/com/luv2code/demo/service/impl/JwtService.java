@@ -4,25 +4,35 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import com.luv2code.demo.entity.Role;
+import com.luv2code.demo.entity.User;
+import com.luv2code.demo.security.JwtToken;
 import com.luv2code.demo.security.SecurityUser;
 import com.luv2code.demo.service.IJwtService;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 
 @Service
 public class JwtService implements IJwtService {
 
+    private static final String USER_ID_CLAIM = "uid";
+
+    private static final String ROLE_VERSION_CLAIM = "rv";
+
     @Value("${security.jwt.secret-key}")
     private String secretKey;
 
@@ -33,6 +43,23 @@ public class JwtService implements IJwtService {
     @Value("${security.jwt.refresh-token.expiration-time}")
     private long refreshTokenExpiration;
 
+    @Value("${security.jwt.claims-only.enabled}")
+    private boolean claimsOnly;
+
+    @Value("${security.jwt.claims-only.expiration-time}")
+    private long claimsOnlyExpiration;
+
+    private Key signKey;
+
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        signKey = Keys.hmacShaKeyFor(keyBytes);
+        jwtParser = Jwts.parserBuilder().setSigningKey(signKey).build();
+    }
+
     @Override
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -50,36 +77,109 @@ public class JwtService implements IJwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(getSignKey()).build().parseClaimsJws(token).getBody();
+        return jwtParser.parseClaimsJws(token).getBody();
+    }
+
+    @Override
+    public JwtToken parseToken(String token) {
+        final Claims claims = extractAllClaims(token);
+        return new JwtToken(claims.getSubject(), claims.getExpiration(), claims);
     }
 
     @Override
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(parseToken(token), userDetails);
+    }
+
+    @Override
+    public Boolean validateToken(JwtToken token, UserDetails userDetails) {
+        return (token.getSubject().equals(userDetails.getUsername()) && !token.getExpiration().before(new Date()));
+    }
+
+    /**
+     * In claims-only mode the principal is rebuilt from the token alone, so a
+     * role change is only picked up when the access token is refreshed. The
+     * shorter of the two lifetimes bounds how long a stale role stays usable.
+     */
+    private long accessTokenExpiration() {
+        return claimsOnly ? Math.min(jwtExpiration, claimsOnlyExpiration) : jwtExpiration;
+    }
+
+    private static int roleVersion(User user) {
+        return user.getRoleVersion() == null ? 0 : user.getRoleVersion();
+    }
+
+    @Override
+    public UserDetails extractPrincipal(JwtToken token) {
+
+        Claims claims = token.getClaims();
+
+        if (!claimsOnly || claims.get(USER_ID_CLAIM) == null || claims.get("role") == null) {
+            return null;
+        }
+
+        User user = new User();
+        user.setId(claims.get(USER_ID_CLAIM, Long.class));
+        user.setEmail(token.getSubject());
+        user.setFullName(claims.get("fullName", String.class));
+        user.setPhoneNumber(claims.get("phoneNumber", String.class));
+        user.setImageUrl(claims.get("imageUrl", String.class));
+        user.setRoleVersion(claims.get(ROLE_VERSION_CLAIM, Integer.class));
+
+        Role role = new Role();
+        role.setRole(claims.get("role", String.class));
+        user.setRole(role);
+
+        return new SecurityUser(user);
 
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    @Override
+    public Integer extractRoleVersion(String token) {
+        return extractClaim(token, claims -> claims.get(ROLE_VERSION_CLAIM, Integer.class));
     }
 
     @Override
     public String generateToken(String username, UserDetails userDetail) {
+        return generateToken(username, userDetail, UUID.randomUUID().toString());
+    }
+
+    @Override
+    public String generateToken(String username, UserDetails userDetail, String tokenId) {
         Map<String, Object> claims = new HashMap<>();
-        return buildToken(claims, username, jwtExpiration, userDetail);
+        if (userDetail != null) {
+            User user = ((SecurityUser) userDetail).getUser();
+            claims.put(USER_ID_CLAIM, user.getId());
+            claims.put(ROLE_VERSION_CLAIM, roleVersion(user));
+        }
+
+        return buildToken(claims, username, tokenId, accessTokenExpiration(), userDetail);
     }
 
     @Override
     public String generateRefreshToken(String username) {
+        return generateRefreshToken(username, UUID.randomUUID().toString());
+    }
+
+    @Override
+    public String generateRefreshToken(String username, String tokenId) {
+        return generateRefreshToken(username, tokenId, null);
+    }
+
+    @Override
+    public String generateRefreshToken(String username, String tokenId, User user) {
         Map<String, Object> claims = new HashMap<>();
-        return buildToken(claims, username, refreshTokenExpiration, null);
+        if (user != null) {
+            claims.put(ROLE_VERSION_CLAIM, roleVersion(user));
+        }
+        return buildToken(claims, username, tokenId, refreshTokenExpiration, null);
     }
 
-    private String buildToken(Map<String, Object> claims, String username, long expirationTime,
+    private String buildToken(Map<String, Object> claims, String username, String tokenId, long expirationTime,
             UserDetails userDetail) {
 
-        JwtBuilder jwtBuilder = Jwts.builder().setSubject(username).setIssuedAt(new Date(System.currentTimeMillis()))
+        JwtBuilder jwtBuilder = Jwts.builder().addClaims(claims).setSubject(username).setId(tokenId)
+                .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expirationTime));
 
         if (userDetail != null) {
@@ -91,13 +191,8 @@ public class JwtService implements IJwtService {
                     .claim("imageUrl", ((SecurityUser) userDetail).getUser().getImageUrl());
         }
 
-        return jwtBuilder.signWith(getSignKey(), SignatureAlgorithm.HS256).compact();
+        return jwtBuilder.signWith(signKey, SignatureAlgorithm.HS256).compact();
 
     }
 
-    private Key getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
 }
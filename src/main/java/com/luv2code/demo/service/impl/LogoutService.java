@@ -4,6 +4,10 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.web.authentication.logout.LogoutHandler;
 import org.springframework.stereotype.Service;
 
+import com.luv2code.demo.helper.ITokenRevocationList;
+import com.luv2code.demo.security.JwtToken;
+import com.luv2code.demo.service.IJwtService;
+
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
@@ -13,6 +17,8 @@ import lombok.AllArgsConstructor;
 public class LogoutService implements LogoutHandler {
 
     private final RefreshTokenService refreshTokenService;
+    private final IJwtService jwtService;
+    private final ITokenRevocationList tokenRevocationList;
 
     @Override
     public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
@@ -25,6 +31,10 @@ public class LogoutService implements LogoutHandler {
 
         refreshTokenService.deleteToken(jwt);
 
+        // The filter accepts the refresh token as a Bearer token too, so its id stays revoked for as long as it is valid
+        JwtToken token = jwtService.parseToken(jwt);
+        tokenRevocationList.revoke(token.getClaims().getId(), token.getExpiration().toInstant());
+
         handleLogoutSuccess(request, response);
 
     }
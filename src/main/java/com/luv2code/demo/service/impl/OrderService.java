@@ -14,18 +14,19 @@ import org.springframework.transaction.annotation.Transactional;
 import com.luv2code.demo.dto.response.ApiResponseDTO;
 import com.luv2code.demo.dto.response.CartItemResponseDTO;
 import com.luv2code.demo.dto.response.OrderItemResponseDTO;
-import com.luv2code.demo.entity.Cart;
 import com.luv2code.demo.entity.Order;
 import com.luv2code.demo.entity.OrderItem;
 import com.luv2code.demo.entity.Product;
 import com.luv2code.demo.exc.custom.CalculationException;
 import com.luv2code.demo.exc.custom.NotFoundException;
 import com.luv2code.demo.exc.custom.NotFoundTypeException;
+import com.luv2code.demo.helper.ISalesCounter;
 import com.luv2code.demo.repository.CartRepository;
 import com.luv2code.demo.repository.OrderItemRepository;
 import com.luv2code.demo.repository.OrderRepository;
 import com.luv2code.demo.service.IOrderService;
 import com.luv2code.demo.service.IUserService;
+import com.luv2code.demo.utils.TransactionUtils;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -39,16 +40,17 @@ public class OrderService implements IOrderService {
     private final OrderItemRepository orderItemRepository;
     private final CartRepository cartRepository;
     private final IUserService userService;
+    private final ISalesCounter salesCounter;
 
     @Transactional
     @Override
-    public ResponseEntity<Map<String, Object>> createOrder(String userEmail) {
-        log.info("Entering createOrder method for userEmail: {}", userEmail);
+    public ResponseEntity<Map<String, Object>> createOrder(Long userId) {
+        log.info("Entering createOrder method for user ID: {}", userId);
 
-        List<CartItemResponseDTO> cartItemResponseDTOs = cartRepository.findAllCartItemsWithUserEmail(userEmail);
+        List<CartItemResponseDTO> cartItemResponseDTOs = cartRepository.findAllCartItemsByUserId(userId);
 
         if (cartItemResponseDTOs.isEmpty()) {
-            log.error("No cart items found for userEmail: {}", userEmail);
+            log.error("No cart items found for user ID: {}", userId);
             throw new NotFoundException(NotFoundTypeException.CARTITEM + "S Not Found!");
         }
 
@@ -56,9 +58,8 @@ public class OrderService implements IOrderService {
         List<OrderItemResponseDTO> orderItemResponseDTOs = new ArrayList<>();
         List<OrderItem> orderItems = processOrderItems(cartItemResponseDTOs, orderItemResponseDTOs, order);
 
-        order.setOrderItems(orderItems);
         order.setTotalPrice(calculateOrderTotalPrice(orderItems));
-        order.setUser(userService.getUserSetterByEmail(userEmail));
+        order.setUser(userService.getUserReference(userId));
 
         if (order.getTotalPrice().compareTo(BigDecimal.ZERO) <= 0) {
             throw new CalculationException("Total Price Is Negative, Please Make sure Of Product Price and retry!");
@@ -66,7 +67,12 @@ public class OrderService implements IOrderService {
 
         Order savedOrder = orderRepository.save(order);
 
-        deleteCarts(cartItemResponseDTOs);
+        orderItemRepository.batchInsertOrderItems(savedOrder.getId(), orderItems);
+
+        TransactionUtils.afterCommit(() -> orderItems.forEach(
+                orderItem -> salesCounter.recordSale(orderItem.getProduct().getId(), orderItem.getQuantity())));
+
+        deleteCarts(userId, cartItemResponseDTOs);
 
         log.info("Order created successfully with ID: {}", savedOrder.getId());
         return ResponseEntity.ok(Map.of(
@@ -115,14 +121,14 @@ public class OrderService implements IOrderService {
         return totalPrice;
     }
 
-    private void deleteCarts(List<CartItemResponseDTO> cartItems) {
-        log.info("Deleting carts for cartItem IDs: {}", cartItems.stream().map(CartItemResponseDTO::getCartId).collect(Collectors.toList()));
+    private void deleteCarts(Long userId, List<CartItemResponseDTO> cartItems) {
+        Long maxCartId = cartItems.stream().map(CartItemResponseDTO::getCartId).max(Long::compare).get();
+        log.info("Deleting carts up to ID: {} for user ID: {}", maxCartId, userId);
 
-        List<Cart> cartsToDelete = cartRepository
-                .findAllById(cartItems.stream().map(CartItemResponseDTO::getCartId).toList());
+        Integer deletedCartItems = cartRepository.deleteCartItemsByUserId(userId, maxCartId);
+        Integer deletedCarts = cartRepository.deleteCartsByUserId(userId, maxCartId);
 
-        cartRepository.deleteAll(cartsToDelete);
-        log.info("Deleted {} carts", cartsToDelete.size());
+        log.info("Deleted {} carts with {} cart items", deletedCarts, deletedCartItems);
     }
 
     @Transactional
@@ -3,19 +3,21 @@ package com.luv2code.demo.service.impl;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.luv2code.demo.dto.SystemMapper;
 import com.luv2code.demo.dto.request.ProductRequestDTO;
 import com.luv2code.demo.dto.response.ApiResponseDTO;
-import com.luv2code.demo.dto.response.DiscountedProductsResponseDTO;
-import com.luv2code.demo.dto.response.ProductBestSellerResponseDTO;
+import com.luv2code.demo.dto.response.CursorSliceResponseDTO;
 import com.luv2code.demo.dto.response.ProductCompanyResponseDTO;
 import com.luv2code.demo.dto.response.ProductDetailsCategoryResponseDTO;
 import com.luv2code.demo.dto.response.ProductDetailsCompanyResponseDTO;
@@ -26,11 +28,14 @@ import com.luv2code.demo.entity.Product;
 import com.luv2code.demo.exc.custom.NotFoundException;
 import com.luv2code.demo.exc.custom.NotFoundTypeException;
 import com.luv2code.demo.helper.IFileHelper;
+import com.luv2code.demo.helper.IInventoryLedger;
 import com.luv2code.demo.helper.IPaginationHelper;
 import com.luv2code.demo.repository.ProductRepository;
 import com.luv2code.demo.service.ICategoryService;
 import com.luv2code.demo.service.ICompanyService;
 import com.luv2code.demo.service.IProductService;
+import com.luv2code.demo.service.IProductSnapshotService;
+import com.luv2code.demo.utils.TransactionUtils;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -46,23 +51,46 @@ public class ProductService implements IProductService {
     private final IPaginationHelper paginationHelper;
     private final ICategoryService categoryService;
     private final ICompanyService companyService;
+    private final IInventoryLedger inventoryLedger;
+    private final IProductSnapshotService productSnapshotService;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
     @Override
-    public ProductDetailsResponseDTO createProduct(ProductRequestDTO productRequestDTO)
+    public ProductDetailsResponseDTO createProduct(String owner, ProductRequestDTO productRequestDTO)
             throws IllegalStateException, IOException {
 
         log.info("Starting product creation process for product: {}", productRequestDTO.getName());
 
+        String imageUrl = productRequestDTO.getUploadId() != null
+                ? fileHelper.uploadStagedFileToFileSystem(owner, productRequestDTO.getUploadId())
+                : fileHelper.uploadFileToFileSystem(productRequestDTO.getImage());
+        log.debug("Image uploaded with URL: {}", imageUrl);
+
+        ProductDetailsResponseDTO productDto;
+
+        try {
+            productDto = transactionTemplate.execute(status -> saveNewProduct(productRequestDTO, imageUrl));
+        } catch (RuntimeException e) {
+            log.warn("Failed to create product: {}, discarding uploaded image: {}", productRequestDTO.getName(),
+                    imageUrl);
+            fileHelper.deleteImageQuietly(imageUrl);
+            throw e;
+        }
+
+        fileHelper.discardStagedUpload(productRequestDTO.getUploadId());
+
+        return productDto;
+
+    }
+
+    private ProductDetailsResponseDTO saveNewProduct(ProductRequestDTO productRequestDTO, String imageUrl) {
+
         Company company = companyService.getCompanySetter(productRequestDTO.getCompanyName());
         log.debug("Company retrieved: {}", company.getName());
 
         Category category = categoryService.getCategorySetter(productRequestDTO.getCategoryName());
         log.debug("Category retrieved: {}", category.getName());
 
-        String imageUrl = fileHelper.uploadFileToFileSystem(productRequestDTO.getImage());
-        log.debug("Image uploaded with URL: {}", imageUrl);
-
         Product product = mapper.productRequestDTOTOProduct(productRequestDTO);
 
         product.setImageUrl(imageUrl);
@@ -72,6 +100,8 @@ public class ProductService implements IProductService {
 
         log.info("Product created successfully with name: {}", product.getName());
 
+        TransactionUtils.afterCommit(productSnapshotService::requestRefresh);
+
         return mapper.ProductTOproductDetailsResponseDTO(productRepository.save(product));
 
     }
@@ -89,23 +119,55 @@ public class ProductService implements IProductService {
             throw new NotFoundException(NotFoundTypeException.PRODUCT + " Not Found!");
         }
 
-        fileHelper.deleteImageFromFileSystem(product.get().getImageUrl());
-        log.debug("Image deleted for product ID: {}", theId);
-
         productRepository.delete(product.get());
+        inventoryLedger.evict(theId);
         log.info("Product with ID {} deleted successfully", theId);
 
+        fileHelper.deleteImageQuietly(product.get().getImageUrl());
+        log.debug("Image deleted for product ID: {}", theId);
+
+        TransactionUtils.afterCommit(productSnapshotService::requestRefresh);
+
         return ResponseEntity.ok(new ApiResponseDTO("Success Deleted Product."));
 
     }
 
-    @Transactional
     @Override
-    public ProductDetailsResponseDTO updateProductById(Long theId, ProductRequestDTO productRequestDTO)
+    public ProductDetailsResponseDTO updateProductById(String owner, Long theId, ProductRequestDTO productRequestDTO)
             throws IllegalStateException, IOException {
 
         log.info("Starting product update process for product ID: {}", theId);
 
+        String newImageUrl = productRequestDTO.getUploadId() != null
+                ? fileHelper.uploadStagedFileToFileSystem(owner, productRequestDTO.getUploadId())
+                : productRequestDTO.getImage() != null
+                        ? fileHelper.uploadFileToFileSystem(productRequestDTO.getImage())
+                        : null;
+
+        AtomicReference<String> oldImageUrl = new AtomicReference<>();
+        ProductDetailsResponseDTO productDto;
+
+        try {
+            productDto = transactionTemplate.execute(status -> saveProduct(theId, productRequestDTO, newImageUrl,
+                    oldImageUrl));
+        } catch (RuntimeException e) {
+            log.warn("Failed to update product ID: {}, discarding uploaded image: {}", theId, newImageUrl);
+            fileHelper.deleteImageQuietly(newImageUrl);
+            throw e;
+        }
+
+        fileHelper.discardStagedUpload(productRequestDTO.getUploadId());
+        fileHelper.deleteImageQuietly(oldImageUrl.get());
+
+        return productDto;
+
+    }
+
+    private ProductDetailsResponseDTO saveProduct(Long theId, ProductRequestDTO productRequestDTO,
+            String newImageUrl, AtomicReference<String> oldImageUrl) {
+
+        inventoryLedger.evict(theId);
+
         Optional<Product> product = productRepository.findById(theId);
 
         if (product.isEmpty()) {
@@ -135,13 +197,11 @@ public class ProductService implements IProductService {
 
         }
 
-        if (productRequestDTO.getImage() != null) {
+        if (newImageUrl != null) {
 
-            fileHelper.deleteImageFromFileSystem(product.get().getImageUrl());
+            oldImageUrl.set(product.get().getImageUrl());
 
-            String imageUrl = fileHelper.uploadFileToFileSystem(productRequestDTO.getImage());
-
-            product.get().setImageUrl(imageUrl);
+            product.get().setImageUrl(newImageUrl);
             log.debug("Updated image for product ID: {}", theId);
 
         }
@@ -150,6 +210,9 @@ public class ProductService implements IProductService {
 
         log.info("Product with ID {} updated successfully", product.get().getId());
 
+        TransactionUtils.afterCommit(() -> inventoryLedger.evict(theId));
+        TransactionUtils.afterCommit(productSnapshotService::requestRefresh);
+
         return mapper.ProductTOproductDetailsResponseDTO(productRepository.save(product.get()));
 
     }
@@ -192,12 +255,59 @@ public class ProductService implements IProductService {
     }
 
     @Override
-    public List<ProductBestSellerResponseDTO> getTopSevenProductsWithBestSeller() {
+    public CursorSliceResponseDTO<ProductCompanyResponseDTO> getAllProductsInCompanyAfter(String companyName, String after, Integer size) {
+
+        log.info("Fetching products in company: {} after cursor: {}", companyName, after);
+
+        paginationHelper.validateSliceSize(size);
+        Long afterId = paginationHelper.decodeCursor(after);
+
+        Slice<ProductCompanyResponseDTO> slice = productRepository.findAllProductsAfter(companyName, afterId,
+                PageRequest.of(0, size));
+
+        return toCursorSlice(slice, ProductCompanyResponseDTO::getId);
+
+    }
+
+    @Override
+    public CursorSliceResponseDTO<ProductDetailsCompanyResponseDTO> getAllProductsDetailsInCompanyAfter(String companyName, String after, Integer size) {
+
+        log.info("Fetching product details in company: {} after cursor: {}", companyName, after);
+
+        paginationHelper.validateSliceSize(size);
+        Long afterId = paginationHelper.decodeCursor(after);
+
+        Slice<ProductDetailsCompanyResponseDTO> slice = productRepository.findProductsByCompanyNameAfter(companyName,
+                afterId, PageRequest.of(0, size));
+
+        return toCursorSlice(slice, ProductDetailsCompanyResponseDTO::getId);
+
+    }
+
+    @Override
+    public CursorSliceResponseDTO<ProductDetailsCategoryResponseDTO> getAllProductsDetailsInCategoryAfter(String categoryName, String after, Integer size) {
+
+        log.info("Fetching product details in category: {} after cursor: {}", categoryName, after);
+
+        paginationHelper.validateSliceSize(size);
+        Long afterId = paginationHelper.decodeCursor(after);
+
+        Slice<ProductDetailsCategoryResponseDTO> slice = productRepository.findProductsByCategoryNameAfter(categoryName,
+                afterId, PageRequest.of(0, size));
+
+        return toCursorSlice(slice, ProductDetailsCategoryResponseDTO::getId);
+
+    }
+
+    private <T> CursorSliceResponseDTO<T> toCursorSlice(Slice<T> slice, Function<T, Long> idExtractor) {
 
-        log.info("Fetching top seven best-selling products");
-        Pageable pageable = PageRequest.of(0, 7);
+        List<T> content = slice.getContent();
 
-        return productRepository.findTopBestSellers(pageable);
+        String nextCursor = slice.hasNext()
+                ? paginationHelper.encodeCursor(idExtractor.apply(content.get(content.size() - 1)))
+                : null;
+
+        return new CursorSliceResponseDTO<>(content, content.size(), slice.hasNext(), nextCursor);
 
     }
 
@@ -237,6 +347,8 @@ public class ProductService implements IProductService {
 
         log.info("Starting update process for product ID: {} with new quantity: {}", theId, quantity);
 
+        inventoryLedger.evict(theId);
+
         Integer updateProduct = productRepository.updateProductQuantity(theId, quantity);
 
         if (updateProduct == 0) {
@@ -246,15 +358,47 @@ public class ProductService implements IProductService {
 
         log.info("Successfully updated product with ID: {} to new quantity: {}", theId, quantity);
 
+        TransactionUtils.afterCommit(() -> inventoryLedger.evict(theId));
+
         return updateProduct;
     }
 
     @Override
-    public List<DiscountedProductsResponseDTO> getAllDiscountedProduct() {
+    public Boolean decrementProductQuantityById(Long theId, Integer quantity) {
+
+        log.info("Reserving quantity: {} for product ID: {}", quantity, theId);
+
+        boolean reserved = inventoryLedger.isEnabled()
+                ? inventoryLedger.reserve(theId, quantity)
+                : productRepository.decrementProductQuantity(theId, quantity) > 0;
+
+        if (!reserved) {
+            log.warn("Quantity: {} is not available for product ID: {}", quantity, theId);
+            return false;
+        }
+
+        log.info("Successfully reserved quantity: {} for product ID: {}", quantity, theId);
+
+        return true;
+    }
+
+    @Override
+    public Integer incrementProductQuantityById(Long theId, Integer quantity) {
+
+        log.info("Releasing quantity: {} for product ID: {}", quantity, theId);
+
+        boolean released = inventoryLedger.isEnabled()
+                ? inventoryLedger.release(theId, quantity)
+                : productRepository.incrementProductQuantity(theId, quantity) > 0;
+
+        if (!released) {
+            log.error("Failed to release quantity for product with ID: {}", theId);
+            throw new RuntimeException("Update Product With ID: {}" + theId);
+        }
 
-        log.info("Fetching All Products With Discount.");
+        log.info("Successfully released quantity: {} for product ID: {}", quantity, theId);
 
-        return productRepository.findAllProductsWithDiscount();
+        return 1;
     }
 
 }
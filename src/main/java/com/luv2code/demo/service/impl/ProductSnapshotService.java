@@ -0,0 +1,109 @@
+package com.luv2code.demo.service.impl;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.luv2code.demo.dto.response.DiscountedProductsResponseDTO;
+import com.luv2code.demo.dto.response.ProductBestSellerResponseDTO;
+import com.luv2code.demo.repository.ProductRepository;
+import com.luv2code.demo.service.IProductSnapshotService;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ProductSnapshotService implements IProductSnapshotService {
+
+    private final ProductRepository productRepository;
+
+    private final AtomicBoolean refreshRequested = new AtomicBoolean();
+
+    private volatile Snapshot snapshot;
+
+    @Override
+    public List<ProductBestSellerResponseDTO> getTopSevenProductsWithBestSeller() {
+        return currentSnapshot().getBestSellers();
+    }
+
+    @Override
+    public List<DiscountedProductsResponseDTO> getAllDiscountedProduct() {
+        return currentSnapshot().getDiscountedProducts();
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${product.snapshot.refresh-interval}", initialDelayString = "${product.snapshot.refresh-interval}")
+    public synchronized void refresh() {
+
+        // this refresh already sees every write that requested one before it started
+        refreshRequested.set(false);
+
+        log.info("Refreshing best-seller and discounted product snapshots");
+
+        List<ProductBestSellerResponseDTO> bestSellers = List
+                .copyOf(productRepository.findTopBestSellers(PageRequest.of(0, 7)));
+
+        List<DiscountedProductsResponseDTO> discountedProducts = List
+                .copyOf(productRepository.findAllProductsWithDiscount());
+
+        snapshot = new Snapshot(bestSellers, discountedProducts);
+
+        log.info("Snapshots refreshed with {} best sellers and {} discounted products", bestSellers.size(),
+                discountedProducts.size());
+
+    }
+
+    /**
+     * Marks the snapshots stale after a product write. The refresh runs on the
+     * scheduler, so the write does not wait for the snapshot queries and a
+     * burst of writes costs a single refresh.
+     */
+    @Override
+    public void requestRefresh() {
+        refreshRequested.set(true);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${product.snapshot.request-delay}")
+    public void refreshIfRequested() {
+
+        if (refreshRequested.get()) {
+            refresh();
+        }
+
+    }
+
+    private Snapshot currentSnapshot() {
+
+        Snapshot current = snapshot;
+
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+
+        return current;
+
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class Snapshot {
+
+        private final List<ProductBestSellerResponseDTO> bestSellers;
+
+        private final List<DiscountedProductsResponseDTO> discountedProducts;
+
+    }
+
+}
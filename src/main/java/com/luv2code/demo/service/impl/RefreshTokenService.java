@@ -2,6 +2,7 @@ package com.luv2code.demo.service.impl;
 
 import java.time.Instant;
 import java.util.Optional;
+import java.util.UUID;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,10 +13,12 @@ import com.luv2code.demo.entity.User;
 import com.luv2code.demo.exc.custom.NotFoundException;
 import com.luv2code.demo.exc.custom.NotFoundTypeException;
 import com.luv2code.demo.exc.custom.ExpiredException;
+import com.luv2code.demo.helper.IRefreshTokenHashBackfill;
 import com.luv2code.demo.repository.RefreshTokenRepository;
 import com.luv2code.demo.security.SecurityUser;
 import com.luv2code.demo.service.IJwtService;
 import com.luv2code.demo.service.IRefreshTokenService;
+import com.luv2code.demo.utils.HashUtils;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,12 +30,15 @@ public class RefreshTokenService implements IRefreshTokenService {
 
     private final RefreshTokenRepository refreshTokenRepository;
     private final IJwtService jwtService;
+    private final IRefreshTokenHashBackfill refreshTokenHashBackfill;
 
     @Override
     public RefreshToken save(RefreshToken refreshToken) {
 
         log.info("Saving refresh token for user: {}", refreshToken.getUser().getEmail());
 
+        refreshToken.setTokenHash(HashUtils.sha256Hex(refreshToken.getToken()));
+
         return refreshTokenRepository.save(refreshToken);
 
     }
@@ -41,7 +47,17 @@ public class RefreshTokenService implements IRefreshTokenService {
 
         log.info("Finding refresh token: {}", token);
 
-        Optional<RefreshToken> refreshToken = refreshTokenRepository.findByToken(token);
+        if (token == null) {
+            log.error("Refresh token is missing");
+            throw new NotFoundException(NotFoundTypeException.TOKEN + " Not Found OR Revoked!");
+        }
+
+        Optional<RefreshToken> refreshToken = refreshTokenRepository.findByTokenHash(HashUtils.sha256Hex(token));
+
+        if (refreshToken.isEmpty() && !refreshTokenHashBackfill.isComplete()) {
+            log.debug("Refresh token hash not found before backfill finished, falling back to raw token lookup");
+            refreshToken = refreshTokenRepository.findByToken(token);
+        }
 
         if (refreshToken.isEmpty()) {
             log.error("Refresh token not found or revoked: {}", token);
@@ -68,12 +84,22 @@ public class RefreshTokenService implements IRefreshTokenService {
 
         User user = refreshToken.getUser();
 
-        String accessToken = jwtService.generateToken(user.getEmail(), new SecurityUser(user));
-        String newRefreshToken = jwtService.generateRefreshToken(user.getEmail());
+        Integer roleVersion = jwtService.extractRoleVersion(token);
+        int currentRoleVersion = user.getRoleVersion() == null ? 0 : user.getRoleVersion();
+
+        if (roleVersion != null && roleVersion != currentRoleVersion) {
+            log.error("Role of user: {} changed since refresh token was issued", user.getEmail());
+            throw new ExpiredException("Your role has changed. Please make a new login..!");
+        }
+
+        String tokenId = UUID.randomUUID().toString();
+        String accessToken = jwtService.generateToken(user.getEmail(), new SecurityUser(user), tokenId);
+        String newRefreshToken = jwtService.generateRefreshToken(user.getEmail(), tokenId, user);
 
         refreshToken.setExpireDate(jwtService.extractExpiration(newRefreshToken).toInstant());
 
         refreshToken.setToken(newRefreshToken);
+        refreshToken.setTokenHash(HashUtils.sha256Hex(newRefreshToken));
         refreshTokenRepository.save(refreshToken);
 
         log.info("Generated new access token and refresh token for user: {}", user.getEmail());
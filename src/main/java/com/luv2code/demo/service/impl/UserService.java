@@ -21,8 +21,10 @@ import com.luv2code.demo.exc.StatusCode;
 import com.luv2code.demo.exc.custom.NotFoundException;
 import com.luv2code.demo.exc.custom.NotFoundTypeException;
 import com.luv2code.demo.helper.IFileHelper;
+import com.luv2code.demo.helper.IUserPrincipalCache;
 import com.luv2code.demo.repository.UserRepository;
 import com.luv2code.demo.service.IUserService;
+import com.luv2code.demo.utils.TransactionUtils;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -36,6 +38,7 @@ public class UserService implements IUserService {
     private final IFileHelper fileHelper;
     private final PasswordEncoder passwordEncoder;
     private final SystemMapper mapper;
+    private final IUserPrincipalCache userPrincipalCache;
 
     @Override
     public User getUserTokenDetails(String email) {
@@ -57,6 +60,26 @@ public class UserService implements IUserService {
         return user.get();
     }
 
+    @Override
+    public User getUserLoginDetails(String email) {
+        log.info("Entering getUserLoginDetails method with email: {}", email);
+
+        if (email.isEmpty()) {
+            log.error("Email is empty");
+            throw new IllegalArgumentException("Email must not be empty");
+        }
+
+        Optional<User> user = userRepository.findByEmail(email);
+
+        if (user.isEmpty()) {
+            log.error("User not found with email: {}", email);
+            throw new NotFoundException(NotFoundTypeException.USER + " Not Found!");
+        }
+
+        log.info("Successfully fetched user login details for email: {}", email);
+        return user.get();
+    }
+
     @Override
     public void createUser(User user) {
         log.info("Entering createUser method with email: {}", user.getEmail());
@@ -93,6 +116,11 @@ public class UserService implements IUserService {
         return user.get();
     }
 
+    @Override
+    public User getUserReference(Long userId) {
+        return userRepository.getReferenceById(userId);
+    }
+
     @Transactional
     @Override
     public ResponseEntity<ApiResponseDTO> UpdatePassword(ChangePasswordRequestDTO changePasswordRequest) {
@@ -127,6 +155,8 @@ public class UserService implements IUserService {
             throw new NotFoundException("password not change ,please try later!");
         }
 
+        TransactionUtils.afterCommit(() -> userPrincipalCache.evictUserPrincipal(changePasswordRequest.getEmail()));
+
         log.info("Password successfully changed for email: {}", changePasswordRequest.getEmail());
         return ResponseEntity.ok(new ApiResponseDTO("Password has been changed!"));
     }
@@ -143,29 +173,43 @@ public class UserService implements IUserService {
         }
 
         userRepository.delete(user.get());
+        TransactionUtils.afterCommit(() -> userPrincipalCache.evictUserPrincipal(email));
         log.info("User successfully deleted with email: {}", email);
 
+        fileHelper.deleteImageQuietly(user.get().getImageUrl());
+
         return ResponseEntity.ok(new ApiResponseDTO("Success Deleted User!"));
     }
 
-    @Transactional
     @Override
-    public ResponseEntity<Map<String, String>> updateUserImage(UpdateUserImageRequestDTO updateUserImageRequest)
+    public ResponseEntity<Map<String, String>> updateUserImage(String owner,
+            UpdateUserImageRequestDTO updateUserImageRequest)
             throws IOException {
         log.info("Entering updateUserImage method with email: {}", updateUserImageRequest.getEmail());
 
         String newImageUrl = null;
 
-        if (updateUserImageRequest.getImage() != null) {
-            log.info("Deleting old image from File System for user: {}", updateUserImageRequest.getEmail());
-            fileHelper.deleteImageFromFileSystem(updateUserImageRequest.getOldImageUrl());
-
+        if (updateUserImageRequest.getUploadId() != null) {
+            newImageUrl = fileHelper.uploadStagedFileToFileSystem(owner, updateUserImageRequest.getUploadId());
+        } else if (updateUserImageRequest.getImage() != null) {
             newImageUrl = fileHelper.uploadFileToFileSystem(updateUserImageRequest.getImage());
         }
 
         if (newImageUrl != null) {
             log.info("Updating image URL for user: {}", updateUserImageRequest.getEmail());
-            userRepository.updateImageByEmail(updateUserImageRequest.getEmail(), newImageUrl);
+            try {
+                userRepository.updateImageByEmail(updateUserImageRequest.getEmail(), newImageUrl);
+            } catch (RuntimeException e) {
+                log.warn("Failed to update image URL for user: {}, discarding uploaded image",
+                        updateUserImageRequest.getEmail());
+                fileHelper.deleteImageQuietly(newImageUrl);
+                throw e;
+            }
+
+            fileHelper.discardStagedUpload(updateUserImageRequest.getUploadId());
+
+            log.info("Deleting old image from File System for user: {}", updateUserImageRequest.getEmail());
+            fileHelper.deleteImageQuietly(updateUserImageRequest.getOldImageUrl());
         }
 
         log.info("Update User Image successfully with email: {}", updateUserImageRequest.getEmail());
@@ -194,6 +238,7 @@ public class UserService implements IUserService {
         user.get().getAddress().setZipCode(updateUserProfileRequest.getZipCode());
 
         userRepository.save(user.get());
+        TransactionUtils.afterCommit(() -> userPrincipalCache.evictUserPrincipal(updateUserProfileRequest.getEmail()));
         log.info("User profile successfully updated for email: {}", updateUserProfileRequest.getEmail());
 
         return mapper.updateUserProfileRequestTOUpdateUserProfileResponse(updateUserProfileRequest);
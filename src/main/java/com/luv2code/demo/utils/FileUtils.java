@@ -1,63 +1,414 @@
 package com.luv2code.demo.utils;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import org.springframework.stereotype.Component;
 
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Stored images start with a 12 byte header: the magic bytes {@code MRC}, the
+ * {@link StorageCodec} id and the original length. Files written before the
+ * header existed are a bare zlib stream at best compression; they are detected
+ * by the missing magic and still decode.
+ *
+ * <p>
+ * Deflaters and inflaters hold native zlib memory until {@code end()} is
+ * called, so they are borrowed from small bounded pools and reset on return;
+ * instances that do not fit back into a pool are ended immediately.
+ */
 @Component
 @Slf4j
 public class FileUtils {
 
-    public static byte[] compressFile(byte[] data) {
+    private static final int STREAM_BUFFER_SIZE = 8192;
+    private static final byte[] MAGIC = { 'M', 'R', 'C' };
+    private static final int HEADER_LENGTH = MAGIC.length + 1 + Long.BYTES;
+    public static final String RENDITIONS_FOLDER = "renditions";
+    public static final String UPLOAD_PREFIX = ".upload-";
+    private static final String PART_SUFFIX = ".part";
+    private static final Pattern CONTENT_ADDRESSED_NAME = Pattern.compile("([0-9a-f]{64})\\.[a-z]+");
+    private static final int SHARD_DEPTH = 2;
+    private static final Set<String> SUPPORTED_IMAGE_TYPES = Set.of("image/png", "image/jpeg", "image/svg+xml",
+            "image/jpg");
+    static final int CODEC_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
 
-        Deflater deflater = new Deflater();
-        deflater.setInput(data);
-        deflater.setLevel(Deflater.BEST_COMPRESSION);
-        deflater.finish();
+    private static final BlockingQueue<Deflater> DEFLATERS = new ArrayBlockingQueue<>(CODEC_POOL_SIZE);
+    private static final BlockingQueue<Inflater> INFLATERS = new ArrayBlockingQueue<>(CODEC_POOL_SIZE);
+    private static final AtomicInteger LIVE_DEFLATERS = new AtomicInteger();
+    private static final AtomicInteger LIVE_INFLATERS = new AtomicInteger();
+    private static final ThreadLocal<byte[]> SCRATCH_BUFFER = ThreadLocal
+            .withInitial(() -> new byte[STREAM_BUFFER_SIZE]);
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        byte[] buffer = new byte[1024];
+    public static byte[] encode(byte[] data, StorageCodec codec) {
 
-        while (!deflater.finished()) {
-            int size = deflater.deflate(buffer);
-            outputStream.write(buffer, 0, size);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(HEADER_LENGTH + data.length);
+        outputStream.writeBytes(header(codec, data.length));
+
+        if (codec == StorageCodec.DEFLATE) {
+            Deflater deflater = borrowDeflater();
+            try {
+                deflater.setInput(data);
+                deflater.finish();
+
+                byte[] buffer = SCRATCH_BUFFER.get();
+                while (!deflater.finished()) {
+                    int size = deflater.deflate(buffer);
+                    outputStream.write(buffer, 0, size);
+                }
+            } finally {
+                releaseDeflater(deflater);
+            }
+        } else {
+            outputStream.writeBytes(data);
         }
 
+        log.debug("Encoded {} KB with {} into {} KB", data.length / 1024, codec, outputStream.size() / 1024);
+
+        return outputStream.toByteArray();
+    }
+
+    public static void writeEncoded(InputStream inputStream, long length, StorageCodec codec, Path target)
+            throws IOException {
+
+        Path tempFile = target.resolveSibling(target.getFileName() + PART_SUFFIX);
+
         try {
-            outputStream.close();
-        } catch (Exception e) {
-            e.printStackTrace();
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+                channel.write(ByteBuffer.wrap(header(codec, length)));
+
+                OutputStream channelStream = Channels.newOutputStream(channel);
+                long written;
+
+                if (codec == StorageCodec.DEFLATE) {
+                    Deflater deflater = borrowDeflater();
+                    try {
+                        DeflaterOutputStream deflaterStream = new DeflaterOutputStream(channelStream, deflater,
+                                STREAM_BUFFER_SIZE);
+                        written = copy(inputStream, deflaterStream);
+                        deflaterStream.finish();
+                    } finally {
+                        releaseDeflater(deflater);
+                    }
+                } else {
+                    written = copy(inputStream, channelStream);
+                }
+
+                if (written != length) {
+                    throw new IOException("Expected " + length + " bytes but received " + written);
+                }
+
+                channel.force(false);
+            }
+
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
         }
 
-        byte[] outputData = outputStream.toByteArray();
-        log.info(data.length / 1024 + " KB");
-        log.info(outputData.length / 1024 + " KB");
+        log.debug("Streamed {} KB with {} into {}", length / 1024, codec, target);
 
-        return outputData;
     }
 
-    public static byte[] decompressFile(byte[] data) {
-        Inflater inflater = new Inflater();
-        inflater.setInput(data);
+    public static boolean isSupportedImageType(String contentType) {
+        return contentType != null && SUPPORTED_IMAGE_TYPES.contains(contentType);
+    }
 
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        byte[] buffer = new byte[1024];
+    public static Path shardedPath(Path folder, String fileName) {
 
-        try {
-            while (!inflater.finished()) {
-                int size = inflater.inflate(buffer);
-                stream.write(buffer, 0, size);
+        String hash = HashUtils.sha256Hex(fileName);
+
+        return folder.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(fileName);
+
+    }
+
+    public static Path alternateLayoutPath(Path folder, Path file) {
+
+        Path normalizedFolder = folder.normalize();
+        Path normalizedFile = file.normalize();
+        String fileName = normalizedFile.getFileName().toString();
+
+        return normalizedFolder.equals(normalizedFile.getParent())
+                ? shardedPath(normalizedFolder, fileName)
+                : normalizedFolder.resolve(fileName);
+
+    }
+
+    public static Stream<Path> listStoredFiles(Path folder) throws IOException {
+
+        return Files.walk(folder, SHARD_DEPTH + 1)
+                .filter(Files::isRegularFile)
+                .filter(path -> !folder.relativize(path).startsWith(RENDITIONS_FOLDER))
+                .filter(path -> {
+                    String fileName = path.getFileName().toString();
+                    return !fileName.endsWith(PART_SUFFIX) && !fileName.startsWith(UPLOAD_PREFIX);
+                });
+
+    }
+
+    public static byte[] decode(byte[] data) throws IOException {
+
+        byte[] header = data.length >= HEADER_LENGTH ? Arrays.copyOf(data, HEADER_LENGTH) : data;
+
+        if (isHeader(header)) {
+            int length = Math.toIntExact(ByteBuffer.wrap(header, MAGIC.length + 1, Long.BYTES).getLong());
+
+            if (StorageCodec.fromId(header[MAGIC.length]) == StorageCodec.RAW) {
+                return Arrays.copyOfRange(data, HEADER_LENGTH, HEADER_LENGTH + length);
             }
-            stream.close();
-        } catch (Exception e) {
-            e.printStackTrace();
+
+            byte[] decoded = new byte[length];
+            Inflater inflater = borrowInflater();
+            try {
+                inflater.setInput(data, HEADER_LENGTH, data.length - HEADER_LENGTH);
+                int offset = 0;
+                while (offset < length && !inflater.finished()) {
+                    int size = inflater.inflate(decoded, offset, length - offset);
+                    if (size == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    offset += size;
+                }
+                if (offset != length) {
+                    throw new IOException("Truncated data: expected " + length + " bytes, got " + offset);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt data", e);
+            } finally {
+                releaseInflater(inflater);
+            }
+
+            return decoded;
+        }
+
+        try (InputStream inputStream = openDecodedStream(new ByteArrayInputStream(data))) {
+            return inputStream.readAllBytes();
         }
 
-        return stream.toByteArray();
+    }
+
+    public static InputStream openDecodedStream(Path path) throws IOException {
+        return openDecodedStream(Files.newInputStream(path));
+    }
+
+    public static long decodedLength(Path path) throws IOException {
+
+        long length = headerDecodedLength(path);
+
+        if (length >= 0) {
+            return length;
+        }
+
+        try (InputStream inputStream = openDecodedStream(path)) {
+            return inputStream.transferTo(OutputStream.nullOutputStream());
+        }
+
+    }
+
+    /**
+     * Returns the decoded length recorded in the file's header, or -1 for a
+     * legacy headerless file whose length is only known after inflating it.
+     */
+    public static long headerDecodedLength(Path path) throws IOException {
+
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            byte[] header = inputStream.readNBytes(HEADER_LENGTH);
+
+            return isHeader(header) ? ByteBuffer.wrap(header, MAGIC.length + 1, Long.BYTES).getLong() : -1;
+        }
+
+    }
+
+    public static String eTag(Path path, BasicFileAttributes attributes) {
+        Matcher matcher = CONTENT_ADDRESSED_NAME.matcher(path.getFileName().toString());
+        // content-addressed files are touched on every reuse, so their mtime says nothing about their bytes
+        if (matcher.matches()) {
+            return "\"" + matcher.group(1) + "-" + Long.toHexString(attributes.size()) + "\"";
+        }
+        return "\"" + Long.toHexString(attributes.size()) + "-"
+                + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "\"";
+    }
+
+    public static boolean isLegacyEncoded(Path path) throws IOException {
+
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            return !isHeader(inputStream.readNBytes(HEADER_LENGTH));
+        }
+
+    }
+
+    public static void copyRange(InputStream inputStream, OutputStream outputStream, long start, long length)
+            throws IOException {
+
+        inputStream.skipNBytes(start);
+
+        byte[] buffer = SCRATCH_BUFFER.get();
+        long remaining = length;
+
+        while (remaining > 0) {
+            int read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                break;
+            }
+            outputStream.write(buffer, 0, read);
+            remaining -= read;
+        }
+
+    }
+
+    private static InputStream openDecodedStream(InputStream source) throws IOException {
+
+        InputStream inputStream = new BufferedInputStream(source, STREAM_BUFFER_SIZE);
+
+        inputStream.mark(HEADER_LENGTH);
+        byte[] header = inputStream.readNBytes(HEADER_LENGTH);
+
+        if (!isHeader(header)) {
+            inputStream.reset();
+            return inflating(inputStream);
+        }
+
+        return switch (StorageCodec.fromId(header[MAGIC.length])) {
+            case RAW -> inputStream;
+            case DEFLATE -> inflating(inputStream);
+        };
+
+    }
+
+    private static InputStream inflating(InputStream inputStream) {
+
+        Inflater inflater = borrowInflater();
+
+        return new InflaterInputStream(inputStream, inflater, STREAM_BUFFER_SIZE) {
+
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    super.close();
+                } finally {
+                    releaseInflater(inflater);
+                }
+            }
+        };
+
+    }
+
+    private static long copy(InputStream inputStream, OutputStream outputStream) throws IOException {
+
+        byte[] buffer = SCRATCH_BUFFER.get();
+        long total = 0;
+        int read;
+
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+            total += read;
+        }
+
+        return total;
+
+    }
+
+    static int liveDeflaters() {
+        return LIVE_DEFLATERS.get();
+    }
+
+    static int liveInflaters() {
+        return LIVE_INFLATERS.get();
+    }
+
+    private static Deflater borrowDeflater() {
+
+        Deflater deflater = DEFLATERS.poll();
+
+        if (deflater == null) {
+            LIVE_DEFLATERS.incrementAndGet();
+            deflater = new Deflater(Deflater.BEST_SPEED);
+        }
+
+        return deflater;
+
+    }
+
+    private static void releaseDeflater(Deflater deflater) {
+
+        deflater.reset();
+
+        if (!DEFLATERS.offer(deflater)) {
+            deflater.end();
+            LIVE_DEFLATERS.decrementAndGet();
+        }
+
+    }
+
+    private static Inflater borrowInflater() {
+
+        Inflater inflater = INFLATERS.poll();
+
+        if (inflater == null) {
+            LIVE_INFLATERS.incrementAndGet();
+            inflater = new Inflater();
+        }
+
+        return inflater;
+
+    }
+
+    private static void releaseInflater(Inflater inflater) {
+
+        inflater.reset();
+
+        if (!INFLATERS.offer(inflater)) {
+            inflater.end();
+            LIVE_INFLATERS.decrementAndGet();
+        }
+
+    }
+
+    private static byte[] header(StorageCodec codec, long originalLength) {
+
+        return ByteBuffer.allocate(HEADER_LENGTH).put(MAGIC).put(codec.getId()).putLong(originalLength).array();
+
+    }
+
+    private static boolean isHeader(byte[] header) {
+
+        return header.length == HEADER_LENGTH && header[0] == MAGIC[0] && header[1] == MAGIC[1]
+                && header[2] == MAGIC[2];
+
     }
 
 }
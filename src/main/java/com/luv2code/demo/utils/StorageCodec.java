@@ -0,0 +1,36 @@
+package com.luv2code.demo.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum StorageCodec {
+
+    RAW((byte) 0), DEFLATE((byte) 1);
+
+    private final byte id;
+
+    public static StorageCodec fromId(byte id) {
+
+        for (StorageCodec codec : values()) {
+            if (codec.id == id) {
+                return codec;
+            }
+        }
+
+        throw new IllegalStateException("Unknown storage codec: " + id);
+
+    }
+
+    public static StorageCodec forContentType(String contentType) {
+
+        if ("image/svg+xml".equals(contentType)) {
+            return DEFLATE;
+        }
+
+        return RAW;
+
+    }
+
+}
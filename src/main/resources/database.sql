@@ -12,6 +12,7 @@ DROP TABLE IF EXISTS products;
 DROP TABLE IF EXISTS categories;
 DROP TABLE IF EXISTS companies;
 DROP TABLE IF EXISTS otps;
+DROP TABLE IF EXISTS revoked_tokens;
 DROP TABLE IF EXISTS refresh_token;
 DROP TABLE IF EXISTS roles;
 DROP TABLE IF EXISTS users;
@@ -46,6 +47,7 @@ CREATE TABLE users (
     image_url VARCHAR(1000) NOT NULL,
     address_id BIGINT NOT NULL,
     role_id BIGINT NOT NULL,
+    role_version INT NOT NULL DEFAULT 0,
     FOREIGN KEY (address_id) REFERENCES addresses(id) ON DELETE CASCADE,
     FOREIGN KEY (role_id) REFERENCES roles(id) ON DELETE RESTRICT
 )ENGINE=InnoDB;
@@ -54,6 +56,7 @@ CREATE TABLE users (
 CREATE TABLE refresh_token (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     token VARCHAR(1000) NOT NULL,
+    token_hash CHAR(64),
     expire_date DATETIME NOT NULL,
     user_id BIGINT NOT NULL,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE RESTRICT
@@ -94,6 +97,13 @@ CREATE TABLE products (
     FOREIGN KEY (company_id) REFERENCES companies(id) ON DELETE CASCADE
 )ENGINE=InnoDB;
 
+-- Create revoked_tokens table
+CREATE TABLE revoked_tokens (
+    token_id VARCHAR(36) PRIMARY KEY,
+    expires_at DATETIME NOT NULL,
+    revoked_at DATETIME NOT NULL
+)ENGINE=InnoDB;
+
 -- Create otps table
 CREATE TABLE otps (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -163,10 +173,18 @@ CREATE INDEX idx_category_name ON categories(name);
 CREATE INDEX idx_company_id ON companies(id);
 CREATE INDEX idx_category_id ON categories(id);
 CREATE INDEX idx_refresh_token_user_id ON refresh_token(user_id);
+CREATE INDEX idx_refresh_token_token_hash ON refresh_token(token_hash);
+CREATE INDEX idx_revoked_tokens_revoked_at ON revoked_tokens(revoked_at);
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens(expires_at);
 CREATE INDEX idx_products_sales_count ON products(sales_count);
 CREATE INDEX idx_user_address_id ON users(address_id);
 CREATE INDEX idx_user_role_id ON users(role_id);
 CREATE INDEX idx_role_id ON roles(id);
+-- Image URL indexes used to count references to content-addressed images
+CREATE INDEX idx_products_image_url ON products(image_url(191));
+CREATE INDEX idx_companies_image_url ON companies(image_url(191));
+CREATE INDEX idx_categories_image_url ON categories(image_url(191));
+CREATE INDEX idx_users_image_url ON users(image_url(191));
 
 -- Drop procedure if exists
 DROP PROCEDURE IF EXISTS delete_expired_entries;
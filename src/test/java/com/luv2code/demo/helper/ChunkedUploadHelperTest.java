@@ -0,0 +1,335 @@
+package com.luv2code.demo.helper;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.luv2code.demo.dto.request.ChunkedUploadRequestDTO;
+import com.luv2code.demo.dto.response.ChunkedUploadResponseDTO;
+import com.luv2code.demo.exc.custom.NotFoundException;
+import com.luv2code.demo.exc.custom.ServiceUnavailableException;
+import com.luv2code.demo.helper.impl.ChunkedUploadHelper;
+
+public class ChunkedUploadHelperTest {
+
+    private static final String OWNER = "owner@gmail.com";
+    private static final String OTHER_OWNER = "other@gmail.com";
+    private static final long MAXIMUM_SIZE = 1_000;
+    private static final long EXPIRATION = 60_000;
+
+    @TempDir
+    Path folder;
+
+    private ChunkedUploadHelper chunkedUploadHelper;
+
+    /**
+     * Creates a helper over an empty temporary folder, allowing two uploads
+     * per user, three in total and 1000 staged bytes.
+     */
+    @BeforeEach
+    void setUp() {
+        chunkedUploadHelper = newHelper();
+    }
+
+    private ChunkedUploadHelper newHelper() {
+        return new ChunkedUploadHelper(folder.toString(), MAXIMUM_SIZE, EXPIRATION, 3, 2, 1_000);
+    }
+
+    private String createUpload(String owner, long size) throws IOException {
+        return chunkedUploadHelper.createUpload(owner, new ChunkedUploadRequestDTO("image/png", size, "image.png"))
+                .getUploadId();
+    }
+
+    private ChunkedUploadResponseDTO writeChunk(String uploadId, String contentRange, byte[] content)
+            throws IOException {
+        return chunkedUploadHelper.writeChunk(OWNER, uploadId, contentRange, new ByteArrayInputStream(content));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes();
+    }
+
+    /**
+     * Tests that a new upload starts with an empty data file instead of one
+     * preallocated to the announced size.
+     */
+    @Test
+    void shouldNotPreallocateDataFile() throws IOException {
+        String uploadId = createUpload(OWNER, 1_000);
+
+        try (var files = Files.list(folder)) {
+            assertTrue(files.filter(path -> !path.toString().endsWith(".meta"))
+                    .allMatch(path -> path.toFile().length() == 0));
+        }
+        assertEquals(Long.valueOf(0), chunkedUploadHelper.getUpload(OWNER, uploadId).getReceivedBytes());
+    }
+
+    /**
+     * Tests that chunks written in order complete the upload and that the
+     * completed upload holds exactly the bytes that were sent.
+     */
+    @Test
+    void shouldCompleteUploadFromChunks() throws IOException {
+        String uploadId = createUpload(OWNER, 10);
+
+        writeChunk(uploadId, "bytes 0-4/10", bytes("01234"));
+        ChunkedUploadResponseDTO response = writeChunk(uploadId, "bytes 5-9/10", bytes("56789"));
+
+        assertTrue(response.getCompleted());
+        StagedUpload upload = chunkedUploadHelper.getCompletedUpload(OWNER, uploadId);
+        assertArrayEquals(bytes("0123456789"), Files.readAllBytes(upload.getPath()));
+        assertEquals("image/png", upload.getContentType());
+    }
+
+    /**
+     * Tests that missing and malformed Content-Range headers, and ranges that
+     * do not fit the announced size, are rejected.
+     */
+    @Test
+    void shouldRejectMalformedContentRange() throws IOException {
+        String uploadId = createUpload(OWNER, 10);
+
+        assertThrows(IllegalArgumentException.class, () -> writeChunk(uploadId, null, bytes("0")));
+        assertThrows(IllegalArgumentException.class, () -> writeChunk(uploadId, "bytes 0-4", bytes("01234")));
+        assertThrows(IllegalArgumentException.class, () -> writeChunk(uploadId, "bytes=0-4/10", bytes("01234")));
+        assertThrows(IllegalArgumentException.class, () -> writeChunk(uploadId, "bytes -1-4/10", bytes("01234")));
+        assertThrows(IllegalArgumentException.class, () -> writeChunk(uploadId, "bytes 4-0/10", bytes("01234")));
+        assertThrows(IllegalArgumentException.class, () -> writeChunk(uploadId, "bytes 0-4/11", bytes("01234")));
+        assertThrows(IllegalArgumentException.class, () -> writeChunk(uploadId, "bytes 5-10/10", bytes("567890")));
+        assertThrows(IllegalArgumentException.class,
+                () -> writeChunk(uploadId, "bytes 0-99999999999999999999/10", bytes("0")));
+
+        assertEquals(Long.valueOf(0), chunkedUploadHelper.getUpload(OWNER, uploadId).getReceivedBytes());
+    }
+
+    /**
+     * Tests that a chunk starting after the received bytes is rejected, so an
+     * upload can never contain a gap.
+     */
+    @Test
+    void shouldRejectChunkLeavingGap() throws IOException {
+        String uploadId = createUpload(OWNER, 10);
+        writeChunk(uploadId, "bytes 0-2/10", bytes("012"));
+
+        assertThrows(IllegalArgumentException.class, () -> writeChunk(uploadId, "bytes 4-6/10", bytes("456")));
+
+        assertEquals(Long.valueOf(3), chunkedUploadHelper.getUpload(OWNER, uploadId).getReceivedBytes());
+    }
+
+    /**
+     * Tests that a chunk overlapping bytes already received is accepted and
+     * overwrites them, which is how a client resends a chunk it is unsure of.
+     */
+    @Test
+    void shouldAcceptOverlappingChunk() throws IOException {
+        String uploadId = createUpload(OWNER, 10);
+        writeChunk(uploadId, "bytes 0-5/10", bytes("01xx45"));
+
+        ChunkedUploadResponseDTO response = writeChunk(uploadId, "bytes 2-9/10", bytes("23456789"));
+
+        assertTrue(response.getCompleted());
+        assertArrayEquals(bytes("0123456789"),
+                Files.readAllBytes(chunkedUploadHelper.getCompletedUpload(OWNER, uploadId).getPath()));
+    }
+
+    /**
+     * Tests that a chunk whose body ends early only counts the bytes that
+     * actually arrived, so the client resumes from there.
+     */
+    @Test
+    void shouldCountOnlyReceivedBytesOfShortChunk() throws IOException {
+        String uploadId = createUpload(OWNER, 10);
+
+        ChunkedUploadResponseDTO response = writeChunk(uploadId, "bytes 0-9/10", bytes("0123"));
+
+        assertEquals(Long.valueOf(4), response.getReceivedBytes());
+        assertFalse(response.getCompleted());
+        assertThrows(IllegalArgumentException.class, () -> chunkedUploadHelper.getCompletedUpload(OWNER, uploadId));
+    }
+
+    /**
+     * Tests that a complete upload is sealed and rejects any further chunk.
+     */
+    @Test
+    void shouldRejectChunksAfterCompletion() throws IOException {
+        String uploadId = createUpload(OWNER, 4);
+        writeChunk(uploadId, "bytes 0-3/4", bytes("0123"));
+
+        assertThrows(IllegalArgumentException.class, () -> writeChunk(uploadId, "bytes 0-3/4", bytes("xxxx")));
+
+        assertArrayEquals(bytes("0123"),
+                Files.readAllBytes(chunkedUploadHelper.getCompletedUpload(OWNER, uploadId).getPath()));
+    }
+
+    /**
+     * Tests that another user gets 404 for an upload, whether writing to it,
+     * asking for its state or claiming it for an entity.
+     */
+    @Test
+    void shouldHideUploadFromOtherOwners() throws IOException {
+        String uploadId = createUpload(OWNER, 4);
+        writeChunk(uploadId, "bytes 0-3/4", bytes("0123"));
+
+        assertThrows(NotFoundException.class, () -> chunkedUploadHelper.writeChunk(OTHER_OWNER, uploadId,
+                "bytes 0-3/4", new ByteArrayInputStream(bytes("xxxx"))));
+        assertThrows(NotFoundException.class, () -> chunkedUploadHelper.getUpload(OTHER_OWNER, uploadId));
+        assertThrows(NotFoundException.class, () -> chunkedUploadHelper.getCompletedUpload(OTHER_OWNER, uploadId));
+    }
+
+    /**
+     * Tests that the per-user limit rejects a third upload of the same user
+     * while other users can still create uploads.
+     */
+    @Test
+    void shouldLimitUploadsPerUser() throws IOException {
+        createUpload(OWNER, 10);
+        createUpload(OWNER, 10);
+
+        assertThrows(IllegalArgumentException.class, () -> createUpload(OWNER, 10));
+
+        createUpload(OTHER_OWNER, 10);
+    }
+
+    /**
+     * Tests that the total limit rejects a new upload once the maximum number
+     * of uploads are in progress, and accepts one again after a discard.
+     */
+    @Test
+    void shouldLimitActiveUploads() throws IOException {
+        String uploadId = createUpload(OWNER, 10);
+        createUpload(OWNER, 10);
+        createUpload(OTHER_OWNER, 10);
+
+        assertThrows(ServiceUnavailableException.class, () -> createUpload("third@gmail.com", 10));
+
+        chunkedUploadHelper.discardUpload(uploadId);
+        createUpload("third@gmail.com", 10);
+    }
+
+    /**
+     * Tests that the staged bytes limit counts the announced sizes of the
+     * uploads in progress.
+     */
+    @Test
+    void shouldLimitStagedBytes() throws IOException {
+        createUpload(OWNER, 600);
+
+        assertThrows(ServiceUnavailableException.class, () -> createUpload(OTHER_OWNER, 401));
+
+        createUpload(OTHER_OWNER, 400);
+    }
+
+    /**
+     * Tests that uploads larger than the maximum size or of unsupported types
+     * are rejected.
+     */
+    @Test
+    void shouldRejectOversizedAndUnsupportedUploads() {
+        assertThrows(IllegalArgumentException.class, () -> createUpload(OWNER, MAXIMUM_SIZE + 1));
+        assertThrows(IllegalArgumentException.class, () -> chunkedUploadHelper.createUpload(OWNER,
+                new ChunkedUploadRequestDTO("application/pdf", 10L, "file.pdf")));
+    }
+
+    /**
+     * Tests that a chunk arriving while another chunk of the same upload is
+     * still being read is rejected instead of waiting for it, and that other
+     * uploads are not blocked.
+     */
+    @Test
+    void shouldRejectConcurrentChunkOfSameUpload() throws Exception {
+        String uploadId = createUpload(OWNER, 10);
+        String otherUploadId = createUpload(OWNER, 4);
+
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InputStream stalledStream = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                reading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return -1;
+            }
+        };
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ChunkedUploadResponseDTO> stalled = executor
+                    .submit(() -> chunkedUploadHelper.writeChunk(OWNER, uploadId, "bytes 0-9/10", stalledStream));
+            assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+            assertThrows(OptimisticLockingFailureException.class,
+                    () -> writeChunk(uploadId, "bytes 0-9/10", bytes("0123456789")));
+            assertTrue(writeChunk(otherUploadId, "bytes 0-3/4", bytes("0123")).getCompleted());
+
+            release.countDown();
+            stalled.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(writeChunk(uploadId, "bytes 0-9/10", bytes("0123456789")).getCompleted());
+    }
+
+    /**
+     * Tests that uploads without activity for longer than the expiration are
+     * deleted and no longer count towards the limits, while recent ones stay.
+     */
+    @Test
+    void shouldDeleteExpiredUploads() throws IOException {
+        String expiredUploadId = createUpload(OWNER, 10);
+        String recentUploadId = createUpload(OWNER, 10);
+        Files.setLastModifiedTime(folder.resolve(".upload-chunked-" + expiredUploadId + ".meta"),
+                FileTime.fromMillis(System.currentTimeMillis() - EXPIRATION - 1_000));
+
+        chunkedUploadHelper.deleteExpiredUploads();
+
+        assertThrows(NotFoundException.class, () -> chunkedUploadHelper.getUpload(OWNER, expiredUploadId));
+        assertFalse(Files.exists(folder.resolve(".upload-chunked-" + expiredUploadId)));
+        chunkedUploadHelper.getUpload(OWNER, recentUploadId);
+        createUpload(OWNER, 10);
+    }
+
+    /**
+     * Tests that a restarted helper picks up the uploads on disk, so they can
+     * be resumed by their owner and still count towards the limits.
+     */
+    @Test
+    void shouldReloadUploadsAfterRestart() throws IOException {
+        String uploadId = createUpload(OWNER, 10);
+        createUpload(OWNER, 10);
+        writeChunk(uploadId, "bytes 0-2/10", bytes("012"));
+
+        chunkedUploadHelper = newHelper();
+        chunkedUploadHelper.loadActiveUploads();
+
+        assertEquals(Long.valueOf(3), chunkedUploadHelper.getUpload(OWNER, uploadId).getReceivedBytes());
+        assertThrows(NotFoundException.class, () -> chunkedUploadHelper.getUpload(OTHER_OWNER, uploadId));
+        assertThrows(IllegalArgumentException.class, () -> createUpload(OWNER, 10));
+
+        assertTrue(writeChunk(uploadId, "bytes 3-9/10", bytes("3456789")).getCompleted());
+    }
+
+}
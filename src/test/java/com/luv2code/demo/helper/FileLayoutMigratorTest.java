@@ -0,0 +1,157 @@
+package com.luv2code.demo.helper;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.luv2code.demo.helper.impl.FileLayoutMigrator;
+import com.luv2code.demo.utils.FileUtils;
+
+public class FileLayoutMigratorTest {
+
+    private static final String UPDATE_PRODUCTS_SQL = "UPDATE products SET image_url = ? WHERE image_url = ?";
+    private static final String UPDATE_CATEGORIES_SQL = "UPDATE categories SET image_url = ? WHERE image_url = ?";
+
+    @TempDir
+    Path folder;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    /**
+     * Makes the mocked transaction template run the callback it is given, so
+     * a failing UPDATE fails the whole batch as it would in a transaction.
+     */
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(transactionStatus);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any(Consumer.class));
+    }
+
+    private FileLayoutMigrator newMigrator(int batchSize) {
+        return new FileLayoutMigrator(folder.toString() + "/", true, batchSize, jdbcTemplate, transactionTemplate);
+    }
+
+    private Path createFile(String relativePath) throws IOException {
+        Path file = folder.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[] { 1, 2, 3 });
+        return file;
+    }
+
+    /**
+     * Tests that flat files are moved to their sharded path, that each batch
+     * rewrites the old flat URL to the sharded URL in every table, and that
+     * files already in the sharded layout are left alone.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldMoveFlatFilesAndRewriteTheirUrls() throws IOException {
+        Path first = createFile("first.png");
+        Path second = createFile("second.png");
+        Path third = createFile("third.png");
+        Path alreadySharded = createFile("ab/cd/sharded.png");
+
+        newMigrator(2).migrate();
+
+        Path firstTarget = FileUtils.shardedPath(folder, "first.png");
+        Path secondTarget = FileUtils.shardedPath(folder, "second.png");
+        Path thirdTarget = FileUtils.shardedPath(folder, "third.png");
+
+        assertFalse(Files.exists(first));
+        assertFalse(Files.exists(second));
+        assertFalse(Files.exists(third));
+        assertTrue(Files.isRegularFile(firstTarget));
+        assertTrue(Files.isRegularFile(secondTarget));
+        assertTrue(Files.isRegularFile(thirdTarget));
+        assertTrue(Files.isRegularFile(alreadySharded));
+
+        verify(transactionTemplate, times(2)).executeWithoutResult(any(Consumer.class));
+        verify(jdbcTemplate, times(8)).batchUpdate(anyString(), anyList());
+
+        ArgumentCaptor<List<Object[]>> batchArgs = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(UPDATE_PRODUCTS_SQL), batchArgs.capture());
+
+        List<Object[]> rewritten = batchArgs.getAllValues().stream().flatMap(List::stream)
+                .sorted((left, right) -> ((String) left[1]).compareTo((String) right[1])).toList();
+
+        assertEquals(3, rewritten.size());
+        assertArrayEquals(new Object[] { firstTarget.toString(), folder.toString() + "/first.png" },
+                rewritten.get(0));
+        assertArrayEquals(new Object[] { secondTarget.toString(), folder.toString() + "/second.png" },
+                rewritten.get(1));
+        assertArrayEquals(new Object[] { thirdTarget.toString(), folder.toString() + "/third.png" },
+                rewritten.get(2));
+    }
+
+    /**
+     * Tests that when rewriting the URLs fails the batch's files are moved
+     * back to their flat path, so the rows still point at existing files.
+     */
+    @Test
+    void shouldMoveFilesBackWhenRewritingUrlsFails() throws IOException {
+        Path first = createFile("first.png");
+        Path second = createFile("second.png");
+
+        when(jdbcTemplate.batchUpdate(eq(UPDATE_CATEGORIES_SQL), anyList()))
+                .thenThrow(new QueryTimeoutException("Lock wait timeout exceeded"));
+
+        newMigrator(10).migrate();
+
+        assertTrue(Files.isRegularFile(first));
+        assertTrue(Files.isRegularFile(second));
+        assertFalse(Files.exists(FileUtils.shardedPath(folder, "first.png")));
+        assertFalse(Files.exists(FileUtils.shardedPath(folder, "second.png")));
+    }
+
+    /**
+     * Tests that a missing file store is skipped without touching the
+     * database.
+     */
+    @Test
+    void shouldSkipMissingFolder() {
+        new FileLayoutMigrator(folder.resolve("missing").toString() + "/", true, 10, jdbcTemplate,
+                transactionTemplate).migrate();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+}
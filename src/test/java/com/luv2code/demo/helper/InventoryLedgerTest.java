@@ -0,0 +1,195 @@
+package com.luv2code.demo.helper;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.luv2code.demo.helper.impl.InventoryLedger;
+
+public class InventoryLedgerTest {
+
+    private static final Long PRODUCT_ID = 1L;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private InventoryLedger inventoryLedger;
+
+    /**
+     * Creates an enabled ledger over a mocked JdbcTemplate before each test
+     * case.
+     */
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        inventoryLedger = new InventoryLedger(true, jdbcTemplate, transactionManager);
+    }
+
+    private void stubQuantity(Integer... quantities) {
+        List<Integer> first = List.of(quantities[0]);
+        @SuppressWarnings("unchecked")
+        List<Integer>[] rest = new List[quantities.length - 1];
+        for (int i = 1; i < quantities.length; i++) {
+            rest[i - 1] = List.of(quantities[i]);
+        }
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), eq(PRODUCT_ID))).thenReturn(first, rest);
+    }
+
+    /**
+     * Tests that reservations are granted until the loaded stock runs out and
+     * that the net delta is written back on flush.
+     */
+    @Test
+    void shouldReserveUntilStockRunsOut() {
+        stubQuantity(5);
+
+        assertTrue(inventoryLedger.reserve(PRODUCT_ID, 3));
+        assertFalse(inventoryLedger.reserve(PRODUCT_ID, 3));
+        assertTrue(inventoryLedger.reserve(PRODUCT_ID, 2));
+
+        inventoryLedger.flush();
+
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(Integer.class), eq(PRODUCT_ID));
+        verify(jdbcTemplate).batchUpdate(anyString(),
+                argThat((List<Object[]> args) -> args.size() == 1 && args.get(0)[0].equals(-5)));
+    }
+
+    /**
+     * Tests that a reservation made inside a transaction that rolls back is
+     * returned to the ledger.
+     */
+    @Test
+    void shouldReturnReservationWhenCallerRollsBack() {
+        stubQuantity(10);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(inventoryLedger.reserve(PRODUCT_ID, 4));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(inventoryLedger.reserve(PRODUCT_ID, 10));
+    }
+
+    /**
+     * Tests that deltas of a failed flush are kept and written, together with
+     * newer reservations, by the next flush.
+     */
+    @Test
+    void shouldRetryDeltasWhenFlushFails() {
+        stubQuantity(10);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new RuntimeException("Database error"))
+                .thenReturn(new int[] { 1 });
+
+        assertTrue(inventoryLedger.reserve(PRODUCT_ID, 2));
+        inventoryLedger.flush();
+
+        assertTrue(inventoryLedger.reserve(PRODUCT_ID, 1));
+        inventoryLedger.flush();
+
+        verify(jdbcTemplate).batchUpdate(anyString(),
+                argThat((List<Object[]> args) -> args.size() == 1 && args.get(0)[0].equals(-3)));
+    }
+
+    /**
+     * Tests that a reservation racing an eviction waits until the evicted
+     * cell's delta is written, and only then reloads the product, so it never
+     * sees the stock from before the flush.
+     */
+    @Test
+    void shouldNotReloadProductUntilEvictedDeltaIsWritten() throws Exception {
+        stubQuantity(10, 6);
+        assertTrue(inventoryLedger.reserve(PRODUCT_ID, 4));
+
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.update(anyString(), eq(-4), eq(PRODUCT_ID))).thenAnswer(invocation -> {
+            flushing.countDown();
+            release.await();
+            return 1;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> eviction = executor.submit(() -> inventoryLedger.evict(PRODUCT_ID));
+            assertTrue(flushing.await(5, TimeUnit.SECONDS));
+
+            Future<Boolean> reservation = executor.submit(() -> inventoryLedger.reserve(PRODUCT_ID, 6));
+            Thread.sleep(100);
+
+            assertFalse(reservation.isDone());
+            verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(Integer.class), eq(PRODUCT_ID));
+
+            release.countDown();
+            eviction.get(5, TimeUnit.SECONDS);
+
+            assertTrue(reservation.get(5, TimeUnit.SECONDS));
+            verify(jdbcTemplate, times(2)).queryForList(anyString(), eq(Integer.class), eq(PRODUCT_ID));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that warming the ledger after reservations were made keeps the
+     * existing cell and its unflushed delta.
+     */
+    @Test
+    void shouldKeepExistingCellsOnWarmUp() throws Exception {
+        stubQuantity(5);
+        assertTrue(inventoryLedger.reserve(PRODUCT_ID, 5));
+
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getLong(1)).thenReturn(PRODUCT_ID);
+        when(resultSet.getInt(2)).thenReturn(5);
+        doAnswer(invocation -> {
+            invocation.getArgument(1, RowCallbackHandler.class).processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        inventoryLedger.warmUp();
+
+        assertFalse(inventoryLedger.reserve(PRODUCT_ID, 1));
+
+        inventoryLedger.flush();
+
+        verify(jdbcTemplate).batchUpdate(anyString(),
+                argThat((List<Object[]> args) -> args.size() == 1 && args.get(0)[0].equals(-5)));
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.luv2code.demo.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.luv2code.demo.helper.impl.OrphanImageCollector;
+
+public class OrphanImageCollectorTest {
+
+    private static final long GRACE_PERIOD = 60_000;
+
+    @TempDir
+    Path folder;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private IImageReferenceCounter imageReferenceCounter;
+
+    @Mock
+    private IFileHelper fileHelper;
+
+    /**
+     * Makes the mocked file helper actually delete the files it is asked to
+     * delete, so the test can check what is left on disk.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        MockitoAnnotations.openMocks(this);
+
+        when(fileHelper.deleteImageFromFileSystem(anyString()))
+                .thenAnswer(invocation -> Files.deleteIfExists(Paths.get(invocation.<String>getArgument(0))));
+    }
+
+    private OrphanImageCollector newCollector(int batchSize, int filesPerSecond) {
+        return new OrphanImageCollector(folder.toString(), true, GRACE_PERIOD, batchSize, filesPerSecond,
+                jdbcTemplate, imageReferenceCounter, fileHelper);
+    }
+
+    private void stubImageUrls(String... imageUrls) throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1, RowCallbackHandler.class);
+            for (String imageUrl : imageUrls) {
+                ResultSet resultSet = mock(ResultSet.class);
+                when(resultSet.getString(1)).thenReturn(imageUrl);
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    private Path createFile(String relativePath, long ageMillis) throws IOException {
+        Path file = folder.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[] { 1, 2, 3 });
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - ageMillis));
+        return file;
+    }
+
+    /**
+     * Tests that a sweep deletes only old files no row points at, and keeps
+     * referenced files, files inside the grace period, staged uploads,
+     * renditions and files the database re-check still finds referenced.
+     */
+    @Test
+    void shouldDeleteOnlyOldUnreferencedFiles() throws Exception {
+        Path referenced = createFile("ab/cd/referenced.png", 2 * GRACE_PERIOD);
+        Path recent = createFile("recent.png", 0);
+        Path staged = createFile(".upload-chunked-3f2c7c1e-8d4b-4b7a-9c3e-2a1f5e6d7c8b", 2 * GRACE_PERIOD);
+        Path rendition = createFile("renditions/320/orphan.png", 2 * GRACE_PERIOD);
+        Path recheckedReference = createFile("rechecked.png", 2 * GRACE_PERIOD);
+        Path orphan = createFile("orphan.png", 2 * GRACE_PERIOD);
+        Path shardedOrphan = createFile("ef/01/sharded-orphan.png", 2 * GRACE_PERIOD);
+
+        stubImageUrls("/var/images/referenced.png");
+        when(imageReferenceCounter.countReferences(recheckedReference.toString())).thenReturn(1L);
+
+        int deleted = newCollector(2, 10_000).collect();
+
+        assertEquals(2, deleted);
+        assertTrue(Files.exists(referenced));
+        assertTrue(Files.exists(recent));
+        assertTrue(Files.exists(staged));
+        assertTrue(Files.exists(rendition));
+        assertTrue(Files.exists(recheckedReference));
+        assertFalse(Files.exists(orphan));
+        assertFalse(Files.exists(shardedOrphan));
+        verify(fileHelper, never()).deleteImageFromFileSystem(staged.toString());
+        verify(fileHelper, never()).deleteImageFromFileSystem(rendition.toString());
+    }
+
+    /**
+     * Tests that batches are paced so the sweep never checks more files per
+     * second than configured.
+     */
+    @Test
+    void shouldPaceBatchesToFilesPerSecond() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            createFile("referenced-" + i + ".png", 2 * GRACE_PERIOD);
+        }
+        stubImageUrls(List.of(0, 1, 2, 3, 4, 5).stream().map(i -> "referenced-" + i + ".png")
+                .toArray(String[]::new));
+
+        long startedAt = System.nanoTime();
+        int deleted = newCollector(2, 20).collect();
+        long elapsed = System.nanoTime() - startedAt;
+
+        assertEquals(0, deleted);
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(300),
+                "Three batches of two files at 20 files per second took only " + elapsed + " ns");
+    }
+
+    /**
+     * Tests that a missing file store is skipped without querying the
+     * database.
+     */
+    @Test
+    void shouldSkipMissingFolder() {
+        OrphanImageCollector collector = new OrphanImageCollector(folder.resolve("missing").toString(), true,
+                GRACE_PERIOD, 2, 20, jdbcTemplate, imageReferenceCounter, fileHelper);
+
+        assertEquals(0, collector.collect());
+        verify(jdbcTemplate, never()).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+}
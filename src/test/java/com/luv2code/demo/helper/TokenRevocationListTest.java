@@ -0,0 +1,225 @@
+package com.luv2code.demo.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.luv2code.demo.entity.RevokedToken;
+import com.luv2code.demo.helper.impl.TokenRevocationList;
+import com.luv2code.demo.repository.RevokedTokenRepository;
+
+public class TokenRevocationListTest {
+
+    private static final long START = 1_800_000_000_000L;
+    private static final long SYNC_INTERVAL = 10_000;
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private MutableClock clock;
+
+    private TokenRevocationList tokenRevocationList;
+
+    /**
+     * Creates a revocation list over a mocked repository and a clock that only
+     * moves when a test moves it, starting on a whole second.
+     */
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        clock = new MutableClock(START);
+        tokenRevocationList = new TokenRevocationList(revokedTokenRepository, SYNC_INTERVAL, clock);
+        tokenRevocationList.load();
+    }
+
+    private void advanceTo(long millis) {
+        clock.setMillis(millis);
+        tokenRevocationList.advance();
+    }
+
+    private void advanceEverySecondUntil(long millis) {
+        for (long now = clock.millis() + 1_000; now <= millis; now += 1_000) {
+            advanceTo(now);
+        }
+    }
+
+    /**
+     * Tests that a revoked id is kept until the last millisecond before its
+     * expiry and evicted by the tick at its expiry.
+     */
+    @Test
+    void shouldEvictExactlyAtExpiry() {
+        tokenRevocationList.revoke("token", Instant.ofEpochMilli(START + 5_000));
+
+        advanceEverySecondUntil(START + 4_000);
+        advanceTo(START + 4_999);
+        assertTrue(tokenRevocationList.isRevoked("token"));
+
+        advanceTo(START + 5_000);
+        assertFalse(tokenRevocationList.isRevoked("token"));
+    }
+
+    /**
+     * Tests that an id expiring in the middle of a tick is evicted by the
+     * first tick after its expiry.
+     */
+    @Test
+    void shouldEvictOnFirstTickAfterExpiry() {
+        tokenRevocationList.revoke("token", Instant.ofEpochMilli(START + 2_500));
+
+        advanceTo(START + 2_000);
+        assertTrue(tokenRevocationList.isRevoked("token"));
+
+        advanceTo(START + 3_000);
+        assertFalse(tokenRevocationList.isRevoked("token"));
+    }
+
+    /**
+     * Tests that an id expiring more than one turn of the wheel out is
+     * re-queued when its slot comes round early and evicted only at expiry.
+     */
+    @Test
+    void shouldKeepIdsExpiringBeyondOneWheelTurn() {
+        tokenRevocationList.revoke("token", Instant.ofEpochMilli(START + 1_300_000));
+
+        advanceEverySecondUntil(START + 1_299_000);
+        assertTrue(tokenRevocationList.isRevoked("token"));
+
+        advanceTo(START + 1_300_000);
+        assertFalse(tokenRevocationList.isRevoked("token"));
+    }
+
+    /**
+     * Tests that after a stalled scheduler the wheel catches up in one run,
+     * visiting each slot once, evicting what expired and keeping the rest.
+     */
+    @Test
+    void shouldCatchUpAfterStalledScheduler() {
+        tokenRevocationList.revoke("expired", Instant.ofEpochMilli(START + 30_000));
+        tokenRevocationList.revoke("alive", Instant.ofEpochMilli(START + 1_000_000));
+
+        advanceTo(START + 900_000);
+        assertFalse(tokenRevocationList.isRevoked("expired"));
+        assertTrue(tokenRevocationList.isRevoked("alive"));
+
+        advanceEverySecondUntil(START + 999_000);
+        assertTrue(tokenRevocationList.isRevoked("alive"));
+
+        advanceTo(START + 1_000_000);
+        assertFalse(tokenRevocationList.isRevoked("alive"));
+    }
+
+    /**
+     * Tests that revoking an id again with a later expiry extends it, and
+     * that a later revocation with an earlier expiry does not shorten it.
+     */
+    @Test
+    void shouldKeepLatestExpiryWhenRevokedAgain() {
+        tokenRevocationList.revoke("token", Instant.ofEpochMilli(START + 5_000));
+        tokenRevocationList.revoke("token", Instant.ofEpochMilli(START + 20_000));
+        tokenRevocationList.revoke("token", Instant.ofEpochMilli(START + 10_000));
+
+        advanceEverySecondUntil(START + 19_000);
+        assertTrue(tokenRevocationList.isRevoked("token"));
+
+        advanceTo(START + 20_000);
+        assertFalse(tokenRevocationList.isRevoked("token"));
+    }
+
+    /**
+     * Tests that revocations are stored so other nodes can load them, and that
+     * tokens that already expired are neither stored nor kept.
+     */
+    @Test
+    void shouldStoreOnlyRevocationsThatCanStillMatter() {
+        tokenRevocationList.revoke("expired", Instant.ofEpochMilli(START));
+        tokenRevocationList.revoke("token", Instant.ofEpochMilli(START + 5_000));
+
+        ArgumentCaptor<RevokedToken> revokedToken = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(revokedTokenRepository).save(revokedToken.capture());
+
+        assertEquals("token", revokedToken.getValue().getTokenId());
+        assertEquals(Instant.ofEpochMilli(START + 5_000), revokedToken.getValue().getExpiresAt());
+        assertFalse(tokenRevocationList.isRevoked("expired"));
+        assertTrue(tokenRevocationList.isRevoked("token"));
+    }
+
+    /**
+     * Tests that synchronizing picks up rows written by another node, looks
+     * back one interval from the previous sync so slow commits are not missed,
+     * and lets the wheel evict the loaded ids at their expiry.
+     */
+    @Test
+    void shouldLoadRevocationsWrittenByOtherNodes() {
+        RevokedToken otherNode = RevokedToken.builder().tokenId("other").expiresAt(Instant.ofEpochMilli(START + 30_000))
+                .revokedAt(Instant.ofEpochMilli(START + 1_000)).build();
+        when(revokedTokenRepository.findActiveRevokedSince(any(), any())).thenReturn(List.of(otherNode));
+
+        clock.setMillis(START + SYNC_INTERVAL);
+        tokenRevocationList.synchronize();
+
+        verify(revokedTokenRepository).findActiveRevokedSince(eq(Instant.ofEpochMilli(START - SYNC_INTERVAL)),
+                eq(Instant.ofEpochMilli(START + SYNC_INTERVAL)));
+        verify(revokedTokenRepository, never()).save(any());
+        assertTrue(tokenRevocationList.isRevoked("other"));
+
+        advanceEverySecondUntil(START + 29_000);
+        assertTrue(tokenRevocationList.isRevoked("other"));
+
+        advanceTo(START + 30_000);
+        assertFalse(tokenRevocationList.isRevoked("other"));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private long millis;
+
+        private MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        private void setMillis(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+    }
+
+}
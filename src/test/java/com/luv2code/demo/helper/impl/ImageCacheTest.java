@@ -0,0 +1,212 @@
+package com.luv2code.demo.helper.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.luv2code.demo.helper.CachedImage;
+import com.luv2code.demo.utils.FileUtils;
+import com.luv2code.demo.utils.StorageCodec;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ImageCacheTest {
+
+    private static final long MAXIMUM_BYTES = 3000;
+    private static final long MAXIMUM_ENTRY_BYTES = 2000;
+
+    @TempDir
+    Path folder;
+
+    private ImageCache imageCache;
+
+    /**
+     * Creates a cache that runs its maintenance on the calling thread, so
+     * evictions have happened by the time a call returns.
+     */
+    @BeforeEach
+    void setUp() {
+        imageCache = new ImageCache(MAXIMUM_BYTES, MAXIMUM_ENTRY_BYTES, new SimpleMeterRegistry(), Runnable::run);
+    }
+
+    private Path writeEncoded(String relativePath, byte[] data, StorageCodec codec) throws IOException {
+        Path file = folder.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.write(file, FileUtils.encode(data, codec));
+        return file;
+    }
+
+    private Path writeLegacy(String relativePath, byte[] data) throws IOException {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                outputStream.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } finally {
+            deflater.end();
+        }
+
+        Path file = folder.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.write(file, outputStream.toByteArray());
+        return file;
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Tests that a hit returns the same entry with the decoded bytes, and that
+     * looking up a path that was never loaded misses without reading it.
+     */
+    @Test
+    void shouldServeDecodedBytesFromCache() throws IOException {
+        byte[] data = randomBytes(500);
+        Path file = writeEncoded("image.png", data, StorageCodec.DEFLATE);
+
+        CachedImage cachedImage = imageCache.getImage(file);
+
+        assertNotNull(cachedImage);
+        byte[] content = new byte[cachedImage.getContent().remaining()];
+        cachedImage.getContent().duplicate().get(content);
+        assertArrayEquals(data, content);
+        assertSame(cachedImage, imageCache.getImage(file));
+        assertSame(cachedImage, imageCache.getCachedImage(file));
+        assertNull(imageCache.getCachedImage(folder.resolve("missing.png")));
+    }
+
+    /**
+     * Tests that entries are weighed by their decoded size rather than their
+     * size on disk, that the cache stays within its budget, and that evicted
+     * keys are dropped from the file name index.
+     */
+    @Test
+    void shouldEvictByDecodedBytesAndUnindexEvictedKeys() throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            // 1000 zero bytes deflate to a few bytes on disk
+            files.add(writeEncoded("image-" + i + ".png", new byte[1000], StorageCodec.DEFLATE));
+        }
+
+        for (Path file : files) {
+            assertNotNull(imageCache.getImage(file));
+        }
+
+        int cached = 0;
+        for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            if (imageCache.getCachedImage(file) != null) {
+                cached++;
+                assertEquals(1, imageCache.indexedKeys(fileName).size());
+            } else {
+                assertTrue(imageCache.indexedKeys(fileName).isEmpty(), fileName + " is still indexed");
+            }
+        }
+
+        assertTrue(cached * 1000 <= MAXIMUM_BYTES, cached + " entries of 1000 bytes exceed the budget");
+        assertTrue(cached < files.size(), "Nothing was evicted");
+    }
+
+    /**
+     * Tests that an image whose header length is over the entry limit is not
+     * cached, even when it is small on disk.
+     */
+    @Test
+    void shouldNotCacheImagesOverEntryLimitByHeaderLength() throws IOException {
+        Path file = writeEncoded("large.png", new byte[(int) MAXIMUM_ENTRY_BYTES + 1], StorageCodec.DEFLATE);
+
+        assertTrue(Files.size(file) < MAXIMUM_ENTRY_BYTES);
+        assertNull(imageCache.getImage(file));
+        assertNull(imageCache.getCachedImage(file));
+        assertTrue(imageCache.indexedKeys("large.png").isEmpty());
+    }
+
+    /**
+     * Tests the entry limit for legacy headerless files: a file over the limit
+     * on disk is skipped, one that only inflates over the limit is not cached,
+     * and one within the limit is cached.
+     */
+    @Test
+    void shouldApplyEntryLimitToLegacyFiles() throws IOException {
+        Path largeOnDisk = writeLegacy("large-on-disk.png", randomBytes((int) MAXIMUM_ENTRY_BYTES + 500));
+        Path largeInflated = writeLegacy("large-inflated.png", new byte[(int) MAXIMUM_ENTRY_BYTES * 2]);
+        Path small = writeLegacy("small.png", randomBytes(500));
+
+        assertTrue(Files.size(largeOnDisk) > MAXIMUM_ENTRY_BYTES);
+        assertTrue(Files.size(largeInflated) < MAXIMUM_ENTRY_BYTES);
+
+        assertNull(imageCache.getImage(largeOnDisk));
+        assertNull(imageCache.getImage(largeInflated));
+        assertNull(imageCache.getCachedImage(largeInflated));
+        assertTrue(imageCache.indexedKeys("large-inflated.png").isEmpty());
+
+        CachedImage cachedImage = imageCache.getImage(small);
+        assertNotNull(cachedImage);
+        assertEquals(500, cachedImage.getContent().remaining());
+    }
+
+    /**
+     * Tests that invalidating an image drops every entry with its file name,
+     * including its renditions, and clears the index.
+     */
+    @Test
+    void shouldInvalidateImageAndItsRenditions() throws IOException {
+        Path original = writeEncoded("image.png", randomBytes(300), StorageCodec.RAW);
+        Path rendition = writeEncoded("renditions/96/image.png", randomBytes(100), StorageCodec.RAW);
+        Path other = writeEncoded("other.png", randomBytes(100), StorageCodec.RAW);
+
+        imageCache.getImage(original);
+        imageCache.getImage(rendition);
+        imageCache.getImage(other);
+        assertEquals(2, imageCache.indexedKeys("image.png").size());
+
+        imageCache.invalidate(original);
+
+        assertNull(imageCache.getCachedImage(original));
+        assertNull(imageCache.getCachedImage(rendition));
+        assertTrue(imageCache.indexedKeys("image.png").isEmpty());
+        assertNotNull(imageCache.getCachedImage(other));
+    }
+
+    /**
+     * Tests that a file shorter than the length in its header fails to load
+     * and leaves nothing cached.
+     */
+    @Test
+    void shouldRejectFileShorterThanHeaderLength() throws IOException {
+        byte[] encoded = FileUtils.encode(randomBytes(100), StorageCodec.RAW);
+        Path file = folder.resolve("truncated.png");
+        Files.write(file, Arrays.copyOf(encoded, encoded.length - 50));
+
+        IOException exception = assertThrows(IOException.class, () -> imageCache.getImage(file));
+
+        assertTrue(exception.getMessage().contains("Expected 100 bytes"));
+        assertNull(imageCache.getCachedImage(file));
+    }
+
+}
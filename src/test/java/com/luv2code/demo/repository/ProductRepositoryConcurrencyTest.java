@@ -0,0 +1,120 @@
+package com.luv2code.demo.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.luv2code.demo.entity.Company;
+import com.luv2code.demo.entity.Product;
+
+/**
+ * Runs the stock reservation against a real MySQL, where the conditional
+ * decrement is what keeps concurrent buyers from overselling. Each buyer runs
+ * in its own transaction, so the test itself must not open one.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+public class ProductRepositoryConcurrencyTest {
+
+    private static final int BUYERS = 200;
+    private static final int STOCK = 100;
+
+    @Container
+    @ServiceConnection
+    static MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0");
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        companyRepository.deleteAll();
+    }
+
+    private Product createProduct(int quantity) {
+        Company company = new Company();
+        company.setName("Candy Company");
+        company.setImageUrl("company.png");
+        company.setCreatedAt(LocalDateTime.now());
+
+        Product product = new Product();
+        product.setName("Candy");
+        product.setDescription("Chocolate candy");
+        product.setPrice(BigDecimal.TEN);
+        product.setQuantity(quantity);
+        product.setSalesCount(0L);
+        product.setImageUrl("candy.png");
+        product.setCreatedAt(LocalDateTime.now());
+        product.setCompany(companyRepository.save(company));
+
+        return productRepository.save(product);
+    }
+
+    /**
+     * Tests that 200 buyers reserving one to three items at the same time
+     * never reserve more than the stock, that the stock never goes negative,
+     * and that every reserved item is taken from the stock exactly once.
+     */
+    @Test
+    void shouldNeverOversellUnderConcurrentBuyers() throws Exception {
+        Long productId = createProduct(STOCK).getId();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        List<Future<Integer>> reservations = new ArrayList<>();
+
+        try {
+            for (int buyer = 0; buyer < BUYERS; buyer++) {
+                int quantity = 1 + buyer % 3;
+                reservations.add(executor.submit(() -> {
+                    start.await();
+                    return productRepository.decrementProductQuantity(productId, quantity) == 1 ? quantity : 0;
+                }));
+            }
+
+            start.countDown();
+
+            int reserved = 0;
+            for (Future<Integer> reservation : reservations) {
+                reserved += reservation.get(2, TimeUnit.MINUTES);
+            }
+
+            int remaining = productRepository.findById(productId).orElseThrow().getQuantity();
+
+            assertTrue(reserved <= STOCK, "Reserved " + reserved + " items of a stock of " + STOCK);
+            assertTrue(remaining >= 0, "Stock went negative: " + remaining);
+            assertEquals(STOCK, reserved + remaining);
+            assertTrue(remaining < 3, "Buyers were turned away while " + remaining + " items were left");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
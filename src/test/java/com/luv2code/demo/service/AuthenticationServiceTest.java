@@ -6,7 +6,6 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -26,10 +25,7 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.multipart.MultipartFile;
@@ -43,9 +39,10 @@ import com.luv2code.demo.entity.Address;
 import com.luv2code.demo.entity.RefreshToken;
 import com.luv2code.demo.entity.Role;
 import com.luv2code.demo.entity.User;
+import com.luv2code.demo.exc.custom.ServiceUnavailableException;
 import com.luv2code.demo.helper.IFileHelper;
+import com.luv2code.demo.helper.IPasswordHasher;
 import com.luv2code.demo.repository.RoleRepository;
-import com.luv2code.demo.security.SecurityUser;
 import com.luv2code.demo.service.impl.AuthenticationService;
 
 public class AuthenticationServiceTest {
@@ -66,7 +63,7 @@ public class AuthenticationServiceTest {
     private PasswordEncoder passwordEncoder;
 
     @Mock
-    private AuthenticationManager authenticationManager;
+    private IPasswordHasher passwordHasher;
 
     @Mock
     private SystemMapper mapper;
@@ -106,6 +103,7 @@ public class AuthenticationServiceTest {
         user.setId(1L);
         user.setFullName("ahmed");
         user.setEmail("ahmed@gmail.com");
+        user.setPassword("encodedPassword");
         user.setPhoneNumber("01021045629");
         user.setImageUrl("http://example.com/image.png");
         user.setAddress(address);
@@ -139,20 +137,20 @@ public class AuthenticationServiceTest {
 
         LoginRequestDTO loginRequest = getLoginRequestDTO();
 
-        doThrow(new BadCredentialsException("Bad credentials")).when(authenticationManager)
-                .authenticate(any(UsernamePasswordAuthenticationToken.class));
+        when(userService.getUserLoginDetails(loginRequest.getEmail())).thenReturn(user);
+        when(passwordHasher.matches(loginRequest.getPassword(), user.getPassword())).thenReturn(false);
 
         BadCredentialsException exception = assertThrows(BadCredentialsException.class, () -> {
             authenticationService.login(loginRequest);
         });
 
-        verify(authenticationManager, times(1)).authenticate(any(UsernamePasswordAuthenticationToken.class));
+        verify(userService, times(1)).getUserLoginDetails(loginRequest.getEmail());
+        verify(passwordHasher, times(1)).matches(loginRequest.getPassword(), user.getPassword());
 
         assertEquals("Bad credentials", exception.getMessage());
 
-        verify(userService, times(0)).getUserTokenDetails(loginRequest.getEmail());
-        verify(jwtService, times(0)).generateToken(anyString(), any(UserDetails.class));
-        verify(jwtService, times(0)).generateRefreshToken(anyString());
+        verify(jwtService, times(0)).generateToken(anyString(), any(UserDetails.class), anyString());
+        verify(jwtService, times(0)).generateRefreshToken(anyString(), anyString(), any(User.class));
         verify(jwtService, times(0)).extractExpiration(anyString());
         verify(refreshTokenService, times(0)).save(any(RefreshToken.class));
 
@@ -165,9 +163,9 @@ public class AuthenticationServiceTest {
      * This test case is designed to validate the login functionality by mocking
      * the necessary dependencies and asserting the expected response. It sets
      * up a valid login request, creates a user entity with necessary details,
-     * and configures mock responses for the authentication manager, user
-     * service, JWT service, and refresh token service. The test verifies that
-     * the authentication manager, user service, JWT service, and refresh token
+     * and configures mock responses for the password hasher, user service, JWT
+     * service, and refresh token service. The test verifies that the user is
+     * loaded once and that the password hasher, JWT service, and refresh token
      * service are called with the expected arguments. It then asserts that the
      * response is not null and contains the expected access token and refresh
      * token.
@@ -186,23 +184,20 @@ public class AuthenticationServiceTest {
         refreshToken.setExpireDate(Instant.now().plus(Duration.ofDays(10)));
         refreshToken.setUser(user);
 
-        Authentication authentication = new UsernamePasswordAuthenticationToken(user, null,
-                new SecurityUser(user).getAuthorities());
-
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
-                .thenReturn(authentication);
-        when(userService.getUserTokenDetails(loginRequest.getEmail())).thenReturn(user);
-        when(jwtService.generateToken(anyString(), any(UserDetails.class))).thenReturn("accessToken");
-        when(jwtService.generateRefreshToken(anyString())).thenReturn("refreshToken");
+        when(userService.getUserLoginDetails(loginRequest.getEmail())).thenReturn(user);
+        when(passwordHasher.matches(loginRequest.getPassword(), user.getPassword())).thenReturn(true);
+        when(jwtService.generateToken(anyString(), any(UserDetails.class), anyString())).thenReturn("accessToken");
+        when(jwtService.generateRefreshToken(anyString(), anyString(), any(User.class))).thenReturn("refreshToken");
         when(jwtService.extractExpiration(anyString())).thenReturn(Date.from(java.time.Instant.now()));
         when(refreshTokenService.save(any(RefreshToken.class))).thenReturn(refreshToken);
 
         JwtResponseDTO response = authenticationService.login(loginRequest);
 
-        verify(authenticationManager, times(1)).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(userService, times(1)).getUserTokenDetails(loginRequest.getEmail());
-        verify(jwtService, times(1)).generateToken(anyString(), any(UserDetails.class));
-        verify(jwtService, times(1)).generateRefreshToken(anyString());
+        verify(userService, times(1)).getUserLoginDetails(loginRequest.getEmail());
+        verify(userService, times(0)).getUserTokenDetails(anyString());
+        verify(passwordHasher, times(1)).matches(loginRequest.getPassword(), user.getPassword());
+        verify(jwtService, times(1)).generateToken(anyString(), any(UserDetails.class), anyString());
+        verify(jwtService, times(1)).generateRefreshToken(anyString(), anyString(), any(User.class));
         verify(jwtService, times(1)).extractExpiration(anyString());
         verify(refreshTokenService, times(1)).save(any(RefreshToken.class));
 
@@ -212,6 +207,30 @@ public class AuthenticationServiceTest {
 
     }
 
+    /**
+     * Test case to verify that a login is rejected without issuing tokens when
+     * the password hashing pool is saturated.
+     *
+     * @return void
+     */
+    @Test
+    void shouldRejectLoginWhenPasswordHashingIsSaturated() {
+
+        LoginRequestDTO loginRequest = getLoginRequestDTO();
+
+        when(userService.getUserLoginDetails(loginRequest.getEmail())).thenReturn(user);
+        when(passwordHasher.matches(loginRequest.getPassword(), user.getPassword()))
+                .thenThrow(new ServiceUnavailableException("Too many login attempts, please try again shortly"));
+
+        assertThrows(ServiceUnavailableException.class, () -> {
+            authenticationService.login(loginRequest);
+        });
+
+        verify(jwtService, times(0)).generateToken(anyString(), any(UserDetails.class), anyString());
+        verify(refreshTokenService, times(0)).save(any(RefreshToken.class));
+
+    }
+
     /**
      * Test case to verify that a user can successfully register.
      *
@@ -14,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 
 import com.luv2code.demo.dto.ProductGetterDTO;
@@ -48,7 +49,7 @@ class CartServiceTest {
     @Mock
     private UserService userService;
 
-    private static final String TEST_EMAIL = "test@example.com";
+    private static final Long TEST_USER_ID = 1L;
     private static final String ERROR_PRODUCT_RETRIEVAL_FAILED = "Product retrieval failed";
     private static final String ERROR_DELETION_FAILED = "Deletion failed";
     private static final String ERROR_UPDATE_FAILED = "Update failed";
@@ -82,8 +83,17 @@ class CartServiceTest {
         return product;
     }
 
+    private Cart createCartWithItem() {
+        CartItem cartItem = new CartItem();
+        cartItem.setProduct(createProduct(PRODUCT_ID, PRODUCT_QUANTITY));
+        cartItem.setQuantity(CART_ITEM_QUANTITY);
+        Cart cart = new Cart();
+        cart.setCartItem(cartItem);
+        return cart;
+    }
+
     private CartRequestDTO createCartRequestDTO(Long productId, int quantity) {
-        return new CartRequestDTO(TEST_EMAIL, new CartItemRequestDTO(productId, quantity, PRODUCT_PRICE));
+        return new CartRequestDTO(new CartItemRequestDTO(productId, quantity, PRODUCT_PRICE));
     }
 
     /**
@@ -101,12 +111,12 @@ class CartServiceTest {
         Cart cart = new Cart();
         cart.setId(1L);
 
-        when(userService.getUserSetterByEmail(cartRequestDTO.getEmail())).thenReturn(new User());
+        when(userService.getUserReference(TEST_USER_ID)).thenReturn(new User());
         when(productService.getProductCartSetter(cartRequestDTO.getCartItems().getProductId())).thenReturn(product);
-        when(productService.updateProductQuantityById(anyLong(), anyInt())).thenReturn(1);
+        when(productService.decrementProductQuantityById(anyLong(), anyInt())).thenReturn(true);
         when(cartRepository.save(any(Cart.class))).thenReturn(cart);
 
-        CartItemResponseDTO responseDTO = cartService.addCartItem(cartRequestDTO);
+        CartItemResponseDTO responseDTO = cartService.addCartItem(TEST_USER_ID, cartRequestDTO);
 
         assertAll("Verify response DTO",
                 () -> assertEquals(product.getId(), responseDTO.getProductId()),
@@ -118,10 +128,31 @@ class CartServiceTest {
                 () -> assertEquals(cart.getId(), responseDTO.getCartId())
         );
 
-        verify(productService).updateProductQuantityById(product.getId(), product.getQuantity() - cartRequestDTO.getCartItems().getQuantity());
+        verify(productService).decrementProductQuantityById(product.getId(), cartRequestDTO.getCartItems().getQuantity());
         verify(cartRepository).save(any(Cart.class));
     }
 
+    /**
+     * Verifies that adding a cart item throws a QuantityNotAvailableException
+     * when the conditional stock decrement fails because another buyer took the
+     * remaining stock after it was read.
+     *
+     * @return void
+     */
+    @Test
+    void shouldThrowQuantityNotAvailableExceptionWhenConditionalDecrementFails() {
+        CartRequestDTO cartRequestDTO = createCartRequestDTO(PRODUCT_ID, CART_ITEM_QUANTITY);
+        Product product = createProduct(PRODUCT_ID, PRODUCT_QUANTITY);
+
+        when(productService.getProductCartSetter(PRODUCT_ID)).thenReturn(product);
+        when(productService.decrementProductQuantityById(PRODUCT_ID, CART_ITEM_QUANTITY)).thenReturn(false);
+
+        QuantityNotAvailableException thrown = assertThrows(QuantityNotAvailableException.class, () -> cartService.addCartItem(TEST_USER_ID, cartRequestDTO));
+        assertEquals(ERROR_QUANTITY_NOT_AVAILABLE, thrown.getMessage());
+
+        verify(cartRepository, never()).save(any(Cart.class));
+    }
+
     /**
      * Verifies that adding a cart item throws a QuantityNotAvailableException
      * when the requested quantity exceeds the available stock.
@@ -134,10 +165,10 @@ class CartServiceTest {
         Product product = createProduct(PRODUCT_ID, PRODUCT_QUANTITY);
         when(productService.getProductCartSetter(cartRequestDTO.getCartItems().getProductId())).thenReturn(product);
 
-        QuantityNotAvailableException thrown = assertThrows(QuantityNotAvailableException.class, () -> cartService.addCartItem(cartRequestDTO));
+        QuantityNotAvailableException thrown = assertThrows(QuantityNotAvailableException.class, () -> cartService.addCartItem(TEST_USER_ID, cartRequestDTO));
         assertEquals(ERROR_QUANTITY_NOT_AVAILABLE, thrown.getMessage());
 
-        verify(productService, never()).updateProductQuantityById(anyLong(), anyInt());
+        verify(productService, never()).decrementProductQuantityById(anyLong(), anyInt());
         verify(cartRepository, never()).save(any(Cart.class));
     }
 
@@ -152,11 +183,11 @@ class CartServiceTest {
         CartRequestDTO cartRequestDTO = createCartRequestDTO(PRODUCT_ID, CART_ITEM_QUANTITY);
         when(productService.getProductCartSetter(cartRequestDTO.getCartItems().getProductId())).thenThrow(new RuntimeException(ERROR_PRODUCT_RETRIEVAL_FAILED));
 
-        RuntimeException thrown = assertThrows(RuntimeException.class, () -> cartService.addCartItem(cartRequestDTO));
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> cartService.addCartItem(TEST_USER_ID, cartRequestDTO));
         assertEquals(ERROR_PRODUCT_RETRIEVAL_FAILED, thrown.getMessage());
 
         verify(productService).getProductCartSetter(cartRequestDTO.getCartItems().getProductId());
-        verify(productService, never()).updateProductQuantityById(anyLong(), anyInt());
+        verify(productService, never()).decrementProductQuantityById(anyLong(), anyInt());
         verify(cartRepository, never()).save(any(Cart.class));
     }
 
@@ -167,11 +198,10 @@ class CartServiceTest {
      */
     @Test
     void shouldDeleteCartItemSuccessfully() {
-        Cart cart = new Cart();
-        cart.setCartItem(new CartItem());
+        Cart cart = createCartWithItem();
 
         when(cartRepository.findById(CART_ITEM_ID)).thenReturn(Optional.of(cart));
-        when(cartRepository.updateProductQuantity(anyLong(), anyInt())).thenReturn(1);
+        when(productService.incrementProductQuantityById(PRODUCT_ID, CART_ITEM_QUANTITY)).thenReturn(1);
         doNothing().when(cartRepository).delete(cart);
 
         ResponseEntity<ApiResponseDTO> response = cartService.deleteCartItem(CART_ITEM_ID);
@@ -180,7 +210,7 @@ class CartServiceTest {
         assertEquals("Success Deleted For Item", response.getBody().getMessage());
 
         verify(cartRepository).findById(CART_ITEM_ID);
-        verify(cartRepository).updateProductQuantity(CART_ITEM_ID, cart.getCartItem().getQuantity());
+        verify(productService).incrementProductQuantityById(PRODUCT_ID, CART_ITEM_QUANTITY);
         verify(cartRepository).delete(cart);
     }
 
@@ -198,7 +228,7 @@ class CartServiceTest {
         assertEquals(ERROR_CARTITEM_NOT_FOUND, thrown.getMessage());
 
         verify(cartRepository).findById(CART_ITEM_ID);
-        verify(cartRepository, never()).updateProductQuantity(anyLong(), anyInt());
+        verify(productService, never()).incrementProductQuantityById(anyLong(), anyInt());
         verify(cartRepository, never()).delete(any());
     }
 
@@ -210,8 +240,7 @@ class CartServiceTest {
      */
     @Test
     void shouldHandleExceptionWhenDeletingCartItemFails() {
-        Cart cart = new Cart();
-        cart.setCartItem(new CartItem());
+        Cart cart = createCartWithItem();
 
         when(cartRepository.findById(CART_ITEM_ID)).thenReturn(Optional.of(cart));
         doThrow(new RuntimeException(ERROR_DELETION_FAILED)).when(cartRepository).delete(cart);
@@ -220,7 +249,7 @@ class CartServiceTest {
         assertEquals(ERROR_DELETION_FAILED, thrown.getMessage());
 
         verify(cartRepository).findById(CART_ITEM_ID);
-        verify(cartRepository).updateProductQuantity(CART_ITEM_ID, cart.getCartItem().getQuantity());
+        verify(productService).incrementProductQuantityById(PRODUCT_ID, CART_ITEM_QUANTITY);
         verify(cartRepository).delete(cart);
     }
 
@@ -236,11 +265,11 @@ class CartServiceTest {
         ProductGetterDTO productDTO = new ProductGetterDTO(PRODUCT_ID, "Product", 8, 3);
 
         when(cartRepository.findProductGetterDTO(PRODUCT_ID)).thenReturn(Optional.of(productDTO));
-        when(cartRepository.updateCartItemQuantity(PRODUCT_ID, newQuantity)).thenReturn(1);
+        when(cartRepository.updateCartItemQuantity(PRODUCT_ID, 3, newQuantity)).thenReturn(1);
 
-        Integer updatedQuantity = (productDTO.getQuantity() + productDTO.getCartItemQuantity()) - newQuantity;
+        Integer reservedQuantity = newQuantity - productDTO.getCartItemQuantity();
 
-        when(productService.updateProductQuantityById(PRODUCT_ID, updatedQuantity)).thenReturn(1);
+        when(productService.decrementProductQuantityById(PRODUCT_ID, reservedQuantity)).thenReturn(true);
 
         ResponseEntity<Map<String, Integer>> response = cartService.updateCartItem(newQuantity, PRODUCT_ID);
 
@@ -248,8 +277,76 @@ class CartServiceTest {
         assertEquals(newQuantity, response.getBody().get("quantity"));
 
         verify(cartRepository).findProductGetterDTO(PRODUCT_ID);
-        verify(cartRepository).updateCartItemQuantity(PRODUCT_ID, newQuantity);
-        verify(productService).updateProductQuantityById(PRODUCT_ID, updatedQuantity);
+        verify(cartRepository).updateCartItemQuantity(PRODUCT_ID, 3, newQuantity);
+        verify(productService).decrementProductQuantityById(PRODUCT_ID, reservedQuantity);
+
+    }
+
+    /**
+     * Verifies that lowering the quantity of a cart item returns the difference
+     * to the product stock instead of decrementing it.
+     *
+     * @return void
+     */
+    @Test
+    void shouldReleaseProductQuantityWhenCartItemQuantityDecreases() {
+
+        Integer newQuantity = 1;
+        ProductGetterDTO productDTO = new ProductGetterDTO(PRODUCT_ID, "Product", 8, 3);
+
+        when(cartRepository.findProductGetterDTO(PRODUCT_ID)).thenReturn(Optional.of(productDTO));
+        when(cartRepository.updateCartItemQuantity(PRODUCT_ID, 3, newQuantity)).thenReturn(1);
+        when(productService.incrementProductQuantityById(PRODUCT_ID, 2)).thenReturn(1);
+
+        ResponseEntity<Map<String, Integer>> response = cartService.updateCartItem(newQuantity, PRODUCT_ID);
+
+        assertEquals(newQuantity, response.getBody().get("quantity"));
+
+        verify(productService).incrementProductQuantityById(PRODUCT_ID, 2);
+        verify(productService, never()).decrementProductQuantityById(anyLong(), anyInt());
+
+    }
+
+    /**
+     * Verifies that updating a cart item throws a QuantityNotAvailableException
+     * when the conditional stock decrement fails.
+     *
+     * @return void
+     */
+    @Test
+    void shouldThrowQuantityNotAvailableExceptionWhenConditionalDecrementFailsOnUpdate() {
+
+        Integer newQuantity = 5;
+        ProductGetterDTO productDTO = new ProductGetterDTO(PRODUCT_ID, "Product", 8, 3);
+
+        when(cartRepository.findProductGetterDTO(PRODUCT_ID)).thenReturn(Optional.of(productDTO));
+        when(cartRepository.updateCartItemQuantity(PRODUCT_ID, 3, newQuantity)).thenReturn(1);
+        when(productService.decrementProductQuantityById(PRODUCT_ID, 2)).thenReturn(false);
+
+        QuantityNotAvailableException thrown = assertThrows(QuantityNotAvailableException.class, () -> cartService.updateCartItem(newQuantity, PRODUCT_ID));
+        assertEquals(ERROR_QUANTITY_NOT_AVAILABLE, thrown.getMessage());
+
+    }
+
+    /**
+     * Verifies that updating a cart item whose quantity was changed by another
+     * request after it was read fails without touching the product stock.
+     *
+     * @return void
+     */
+    @Test
+    void shouldThrowOptimisticLockingFailureExceptionWhenCartItemChangedConcurrently() {
+
+        Integer newQuantity = 5;
+        ProductGetterDTO productDTO = new ProductGetterDTO(PRODUCT_ID, "Product", 8, 3);
+
+        when(cartRepository.findProductGetterDTO(PRODUCT_ID)).thenReturn(Optional.of(productDTO));
+        when(cartRepository.updateCartItemQuantity(PRODUCT_ID, 3, newQuantity)).thenReturn(0);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> cartService.updateCartItem(newQuantity, PRODUCT_ID));
+
+        verify(productService, never()).decrementProductQuantityById(anyLong(), anyInt());
+        verify(productService, never()).incrementProductQuantityById(anyLong(), anyInt());
 
     }
 
@@ -270,8 +367,8 @@ class CartServiceTest {
         assertEquals(ERROR_QUANTITY_NOT_AVAILABLE, thrown.getMessage());
 
         verify(cartRepository).findProductGetterDTO(PRODUCT_ID);
-        verify(cartRepository, never()).updateCartItemQuantity(anyLong(), anyInt());
-        verify(productService, never()).updateProductQuantityById(anyLong(), anyInt());
+        verify(cartRepository, never()).updateCartItemQuantity(anyLong(), anyInt(), anyInt());
+        verify(productService, never()).decrementProductQuantityById(anyLong(), anyInt());
     }
 
     /**
@@ -286,30 +383,30 @@ class CartServiceTest {
         ProductGetterDTO productDTO = new ProductGetterDTO(PRODUCT_ID, "Product", 10, 3);
 
         when(cartRepository.findProductGetterDTO(PRODUCT_ID)).thenReturn(Optional.of(productDTO));
-        doThrow(new RuntimeException(ERROR_UPDATE_FAILED)).when(cartRepository).updateCartItemQuantity(PRODUCT_ID, newQuantity);
+        doThrow(new RuntimeException(ERROR_UPDATE_FAILED)).when(cartRepository).updateCartItemQuantity(PRODUCT_ID, 3, newQuantity);
 
         RuntimeException thrown = assertThrows(RuntimeException.class, () -> cartService.updateCartItem(newQuantity, PRODUCT_ID));
         assertEquals(ERROR_UPDATE_FAILED, thrown.getMessage());
 
         verify(cartRepository).findProductGetterDTO(PRODUCT_ID);
-        verify(cartRepository).updateCartItemQuantity(PRODUCT_ID, newQuantity);
-        verify(productService, never()).updateProductQuantityById(anyLong(), anyInt());
+        verify(cartRepository).updateCartItemQuantity(PRODUCT_ID, 3, newQuantity);
+        verify(productService, never()).decrementProductQuantityById(anyLong(), anyInt());
     }
 
     /**
-     * Verifies that retrieving all cart items for a user email is successful.
+     * Verifies that retrieving all cart items for a user ID is successful.
      *
      * @return void
      */
     @Test
-    void shouldGetAllCartItemsForUserEmailSuccessfully() {
+    void shouldGetAllCartItemsForUserSuccessfully() {
         CartItemResponseDTO item1 = new CartItemResponseDTO(1L, "Product1", "Description1", "Company1", 2, BigDecimal.valueOf(10.0), 101L);
         CartItemResponseDTO item2 = new CartItemResponseDTO(2L, "Product2", "Description2", "Company2", 1, BigDecimal.valueOf(20.0), 102L);
         List<CartItemResponseDTO> cartItems = List.of(item1, item2);
 
-        when(cartRepository.findAllCartItemsWithUserEmail(TEST_EMAIL)).thenReturn(cartItems);
+        when(cartRepository.findAllCartItemsByUserId(TEST_USER_ID)).thenReturn(cartItems);
 
-        ResponseEntity<Map<String, Object>> response = cartService.getAllCartItemsForUserEmail(TEST_EMAIL);
+        ResponseEntity<Map<String, Object>> response = cartService.getAllCartItemsForUser(TEST_USER_ID);
 
         assertAll("Verify response",
                 () -> assertEquals(200, response.getStatusCode().value()),
@@ -325,9 +422,9 @@ class CartServiceTest {
      */
     @Test
     void shouldHandleEmptyCart() {
-        when(cartRepository.findAllCartItemsWithUserEmail(TEST_EMAIL)).thenReturn(List.of());
+        when(cartRepository.findAllCartItemsByUserId(TEST_USER_ID)).thenReturn(List.of());
 
-        ResponseEntity<Map<String, Object>> response = cartService.getAllCartItemsForUserEmail(TEST_EMAIL);
+        ResponseEntity<Map<String, Object>> response = cartService.getAllCartItemsForUser(TEST_USER_ID);
 
         assertAll("Verify response",
                 () -> assertEquals(200, response.getStatusCode().value()),
@@ -344,24 +441,24 @@ class CartServiceTest {
      */
     @Test
     void shouldHandleExceptionFromRepository() {
-        when(cartRepository.findAllCartItemsWithUserEmail(anyString())).thenThrow(new RuntimeException("Database error"));
+        when(cartRepository.findAllCartItemsByUserId(anyLong())).thenThrow(new RuntimeException("Database error"));
 
-        RuntimeException thrown = assertThrows(RuntimeException.class, () -> cartService.getAllCartItemsForUserEmail(TEST_EMAIL));
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> cartService.getAllCartItemsForUser(TEST_USER_ID));
         assertEquals("Database error", thrown.getMessage());
     }
 
     /**
-     * Test case to verify that the cart service handles a null user email
+     * Test case to verify that the cart service handles a null user ID
      * correctly.
      *
      * @return void
      */
     @Test
-    void shouldHandleNullUserEmail() {
+    void shouldHandleNullUserId() {
         try {
-            cartService.getAllCartItemsForUserEmail(null);
+            cartService.getAllCartItemsForUser(null);
         } catch (IllegalArgumentException e) {
-            assertEquals("User email cannot be null", e.getMessage());
+            assertEquals("User ID cannot be null", e.getMessage());
         }
     }
 
@@ -7,6 +7,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -18,12 +19,15 @@ import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.luv2code.demo.dto.SystemMapper;
@@ -39,6 +43,8 @@ import com.luv2code.demo.service.impl.CategoryService;
 
 class CategoryServiceTest {
 
+    private static final String OWNER = "admin@gmail.com";
+
     @InjectMocks
     private CategoryService categoryService;
 
@@ -51,6 +57,9 @@ class CategoryServiceTest {
     @Mock
     private SystemMapper mapper;
 
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     private Category category;
 
     private CategoryRequestDTO categoryRequestDTO;
@@ -73,6 +82,9 @@ class CategoryServiceTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
 
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
         imageUrl = "http://example.com/image.png";
         categoryName = "Category";
 
@@ -87,7 +99,7 @@ class CategoryServiceTest {
     }
 
     CategoryRequestDTO getCategoryRequestDTO() {
-        return new CategoryRequestDTO(categoryName, multipartFile);
+        return new CategoryRequestDTO(categoryName, multipartFile, null);
     }
 
     CategoryResponseDTO getCategoryResponseDTO() {
@@ -155,7 +167,7 @@ class CategoryServiceTest {
         when(mapper.categoryTOCategoryResponseDTO(any(Category.class))).thenReturn(categoryResponseDTO);
         when(categoryRepository.save(any(Category.class))).thenReturn(category);
 
-        CategoryResponseDTO result = categoryService.createCategory(categoryRequestDTO);
+        CategoryResponseDTO result = categoryService.createCategory(OWNER, categoryRequestDTO);
 
         assertEquals(categoryResponseDTO.getName(), result.getName());
         assertEquals(categoryResponseDTO.getImageUrl(), result.getImageUrl());
@@ -176,10 +188,10 @@ class CategoryServiceTest {
     @Test
     void shouldThrowExceptionWhenCreatingCategoryWhenSentInvalidData() throws IOException {
 
-        CategoryRequestDTO invalidRequest = new CategoryRequestDTO("", null);
+        CategoryRequestDTO invalidRequest = new CategoryRequestDTO("", null, null);
 
         assertThrows(NullPointerException.class, () -> {
-            categoryService.createCategory(invalidRequest);
+            categoryService.createCategory(OWNER, invalidRequest);
         });
 
         verify(fileHelper, times(0)).uploadFileToFileSystem(any(MultipartFile.class));
@@ -201,12 +213,13 @@ class CategoryServiceTest {
         doThrow(new RuntimeException("Failed to save category")).when(categoryRepository).save(any(Category.class));
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            categoryService.createCategory(categoryRequestDTO);
+            categoryService.createCategory(OWNER, categoryRequestDTO);
         });
 
         assertEquals("Failed to save category", exception.getMessage());
 
         verify(fileHelper, times(1)).uploadFileToFileSystem(any(MultipartFile.class));
+        verify(fileHelper, times(1)).deleteImageQuietly(imageUrl);
         verify(categoryRepository, times(1)).save(category);
         verify(mapper, times(1)).categoryRequestDTOTOCategory(categoryRequestDTO);
         verify(mapper, times(0)).categoryTOCategoryResponseDTO(any(Category.class));
@@ -228,7 +241,7 @@ class CategoryServiceTest {
                 .thenThrow(new IOException("File upload failed"));
 
         IOException exception = assertThrows(IOException.class, () -> {
-            categoryService.createCategory(categoryRequestDTO);
+            categoryService.createCategory(OWNER, categoryRequestDTO);
         });
 
         assertEquals("File upload failed", exception.getMessage());
@@ -255,7 +268,7 @@ class CategoryServiceTest {
                 .categoryRequestDTOTOCategory(categoryRequestDTO);
 
         RuntimeException thrown = assertThrows(RuntimeException.class, () -> {
-            categoryService.createCategory(categoryRequestDTO);
+            categoryService.createCategory(OWNER, categoryRequestDTO);
         });
 
         assertEquals("Mapping to Category failed", thrown.getMessage());
@@ -284,7 +297,7 @@ class CategoryServiceTest {
                 .categoryTOCategoryResponseDTO(category);
 
         RuntimeException thrown = assertThrows(RuntimeException.class, () -> {
-            categoryService.createCategory(categoryRequestDTO);
+            categoryService.createCategory(OWNER, categoryRequestDTO);
         });
 
         assertEquals("Mapping to ResponseDTO failed", thrown.getMessage());
@@ -320,27 +333,21 @@ class CategoryServiceTest {
     }
 
     /**
-     * Test case to verify that the deleteCategory method handles image deletion
-     * failure when deleting a category.
+     * Test case to verify that the deleteCategory method deletes the category row
+     * before its image, so the image is never removed while still in use.
      *
      * @throws IOException if an error occurs during the file deletion process
      */
     @Test
-    void shouldHandleImageDeletionFailureWhenDeletingCategory() throws IOException {
+    void shouldDeleteCategoryBeforeItsImageWhenDeletingCategory() throws IOException {
 
         when(categoryRepository.findByName(categoryName)).thenReturn(Optional.of(category));
-        doThrow(new IOException("Failed to delete image")).when(fileHelper).deleteImageFromFileSystem(category.getImageUrl());
-        doNothing().when(categoryRepository).delete(category);
-
-        IOException exception = assertThrows(IOException.class, () -> {
-            categoryService.deleteCategory(categoryName);
-        });
 
-        assertEquals("Failed to delete image", exception.getMessage());
+        categoryService.deleteCategory(categoryName);
 
-        verify(categoryRepository, times(1)).findByName(categoryName);
-        verify(fileHelper, times(1)).deleteImageFromFileSystem(category.getImageUrl());
-        verify(categoryRepository, times(0)).delete(category);
+        InOrder inOrder = inOrder(categoryRepository, fileHelper);
+        inOrder.verify(categoryRepository).delete(category);
+        inOrder.verify(fileHelper).deleteImageQuietly(category.getImageUrl());
 
     }
 
@@ -354,7 +361,6 @@ class CategoryServiceTest {
     void shouldDeleteCategorySuccessfully() throws IOException {
 
         when(categoryRepository.findByName(categoryName)).thenReturn(Optional.of(category));
-        when(fileHelper.deleteImageFromFileSystem(category.getImageUrl())).thenReturn(true);
         doNothing().when(categoryRepository).delete(any(Category.class));
 
         ResponseEntity<ApiResponseDTO> response = categoryService.deleteCategory(categoryName);
@@ -363,7 +369,7 @@ class CategoryServiceTest {
         assertEquals("Success Delete Category.", response.getBody().getMessage());
 
         verify(categoryRepository, times(1)).findByName(categoryName);
-        verify(fileHelper, times(1)).deleteImageFromFileSystem(category.getImageUrl());
+        verify(fileHelper, times(1)).deleteImageQuietly(category.getImageUrl());
         verify(categoryRepository, times(1)).delete(category);
 
     }
@@ -378,7 +384,6 @@ class CategoryServiceTest {
     void shouldHandleExceptionDuringDeleteWhenDeletingCategory() throws IOException {
 
         when(categoryRepository.findByName(categoryName)).thenReturn(Optional.of(category));
-        when(fileHelper.deleteImageFromFileSystem(category.getImageUrl())).thenReturn(true);
         doThrow(new RuntimeException("Database error")).when(categoryRepository).delete(category);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -388,7 +393,7 @@ class CategoryServiceTest {
         assertEquals("Database error", exception.getMessage());
 
         verify(categoryRepository, times(1)).findByName(categoryName);
-        verify(fileHelper, times(1)).deleteImageFromFileSystem(category.getImageUrl());
+        verify(fileHelper, times(0)).deleteImageQuietly(anyString());
         verify(categoryRepository, times(1)).delete(category);
 
     }
@@ -409,14 +414,14 @@ class CategoryServiceTest {
         when(mapper.categoryTOCategoryResponseDTO(any(Category.class))).thenReturn(categoryResponseDTO);
         when(categoryRepository.save(any(Category.class))).thenReturn(category);
 
-        CategoryResponseDTO result = categoryService.updateCategory(categoryName, categoryRequestDTO);
+        CategoryResponseDTO result = categoryService.updateCategory(OWNER, categoryName, categoryRequestDTO);
 
         assertEquals(categoryResponseDTO.getName(), result.getName());
         assertEquals(categoryResponseDTO.getImageUrl(), result.getImageUrl());
 
         verify(categoryRepository, times(1)).findByName(categoryName);
-        verify(fileHelper, times(1)).deleteImageFromFileSystem(category.getImageUrl());
         verify(fileHelper, times(1)).uploadFileToFileSystem(any(MultipartFile.class));
+        verify(fileHelper, times(1)).deleteImageQuietly(imageUrl);
         verify(categoryRepository, times(1)).save(any(Category.class));
         verify(mapper, times(1)).categoryTOCategoryResponseDTO(any(Category.class));
     }
@@ -432,40 +437,42 @@ class CategoryServiceTest {
         when(categoryRepository.findByName(categoryName)).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class, () -> {
-            categoryService.updateCategory(categoryName, getCategoryRequestDTO());
+            categoryService.updateCategory(OWNER, categoryName, getCategoryRequestDTO());
         });
 
         assertEquals(NotFoundTypeException.CATEGORY + " Not Found!", exception.getMessage());
 
         verify(categoryRepository, times(1)).findByName(categoryName);
         verify(fileHelper, times(0)).deleteImageFromFileSystem(anyString());
+        verify(fileHelper, times(1)).deleteImageQuietly(null);
         verify(categoryRepository, times(0)).save(any(Category.class));
     }
 
     /**
-     * Test case to verify that an IOException is thrown when the image deletion
-     * fails during the updateCategory method.
+     * Test case to verify that the staged image is discarded and the old image
+     * is kept when saving fails during the updateCategory method.
      *
      * @throws IOException if an I/O error occurs during the test
      */
     @Test
-    void shouldThrowIOExceptionWhenImageDeletionFailsWhenUpdateCategory() throws IOException {
+    void shouldDiscardStagedImageWhenSaveFailsWhenUpdateCategory() throws IOException {
         categoryRequestDTO = getCategoryRequestDTO();
+        String oldImageUrl = category.getImageUrl();
+        String stagedImageUrl = "staged-" + imageUrl;
 
         when(categoryRepository.findByName(categoryName)).thenReturn(Optional.of(category));
-        doThrow(new IOException("Failed to delete image")).when(fileHelper)
-                .deleteImageFromFileSystem(category.getImageUrl());
+        when(fileHelper.uploadFileToFileSystem(any(MultipartFile.class))).thenReturn(stagedImageUrl);
+        doThrow(new RuntimeException("Failed to save category")).when(categoryRepository).save(any(Category.class));
 
-        IOException exception = assertThrows(IOException.class, () -> {
-            categoryService.updateCategory(categoryName, categoryRequestDTO);
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            categoryService.updateCategory(OWNER, categoryName, categoryRequestDTO);
         });
 
-        assertEquals("Failed to delete image", exception.getMessage());
+        assertEquals("Failed to save category", exception.getMessage());
 
-        verify(categoryRepository, times(1)).findByName(categoryName);
-        verify(fileHelper, times(1)).deleteImageFromFileSystem(category.getImageUrl());
-        verify(fileHelper, times(0)).uploadFileToFileSystem(any(MultipartFile.class));
-        verify(categoryRepository, times(0)).save(any(Category.class));
+        verify(fileHelper, times(1)).deleteImageQuietly(stagedImageUrl);
+        verify(fileHelper, times(0)).deleteImageQuietly(oldImageUrl);
+        verify(fileHelper, times(0)).deleteImageFromFileSystem(anyString());
     }
 
     /**
@@ -479,18 +486,17 @@ class CategoryServiceTest {
         categoryRequestDTO = getCategoryRequestDTO();
 
         when(categoryRepository.findByName(categoryName)).thenReturn(Optional.of(category));
-        when(fileHelper.deleteImageFromFileSystem(category.getImageUrl())).thenReturn(true);
         when(fileHelper.uploadFileToFileSystem(any(MultipartFile.class)))
                 .thenThrow(new IOException("File upload failed"));
 
         IOException exception = assertThrows(IOException.class, () -> {
-            categoryService.updateCategory(categoryName, categoryRequestDTO);
+            categoryService.updateCategory(OWNER, categoryName, categoryRequestDTO);
         });
 
         assertEquals("File upload failed", exception.getMessage());
 
-        verify(categoryRepository, times(1)).findByName(categoryName);
-        verify(fileHelper, times(1)).deleteImageFromFileSystem(category.getImageUrl());
+        verify(categoryRepository, times(0)).findByName(categoryName);
+        verify(fileHelper, times(0)).deleteImageFromFileSystem(anyString());
         verify(fileHelper, times(1)).uploadFileToFileSystem(any(MultipartFile.class));
         verify(categoryRepository, times(0)).save(any(Category.class));
     }
@@ -504,13 +510,13 @@ class CategoryServiceTest {
     @Test
     void shouldNotUpdateCategoryWhenNoChangesProvided() throws IOException {
 
-        CategoryRequestDTO emptyRequestDTO = new CategoryRequestDTO(null, null);
+        CategoryRequestDTO emptyRequestDTO = new CategoryRequestDTO(null, null, null);
 
         when(categoryRepository.findByName(categoryName)).thenReturn(Optional.of(category));
         when(mapper.categoryTOCategoryResponseDTO(any(Category.class))).thenReturn(getCategoryResponseDTO());
         when(categoryRepository.save(any(Category.class))).thenReturn(category);
 
-        CategoryResponseDTO result = categoryService.updateCategory(categoryName, emptyRequestDTO);
+        CategoryResponseDTO result = categoryService.updateCategory(OWNER, categoryName, emptyRequestDTO);
 
         assertEquals(categoryName, result.getName());
         assertEquals(imageUrl, result.getImageUrl());
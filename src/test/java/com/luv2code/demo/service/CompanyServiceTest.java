@@ -7,6 +7,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -18,12 +19,15 @@ import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.luv2code.demo.dto.SystemMapper;
@@ -39,6 +43,8 @@ import com.luv2code.demo.service.impl.CompanyService;
 
 class CompanyServiceTest {
 
+    private static final String OWNER = "admin@gmail.com";
+
     @InjectMocks
     private CompanyService companyService;
 
@@ -51,6 +57,9 @@ class CompanyServiceTest {
     @Mock
     private SystemMapper mapper;
 
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     private Company company;
 
     private CompanyRequestDTO companyRequestDTO;
@@ -73,6 +82,9 @@ class CompanyServiceTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
 
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
         imageUrl = "http://example.com/image.png";
         companyName = "Company";
 
@@ -87,7 +99,7 @@ class CompanyServiceTest {
     }
 
     CompanyRequestDTO getCompanyRequestDTO() {
-        return new CompanyRequestDTO(companyName, multipartFile);
+        return new CompanyRequestDTO(companyName, multipartFile, null);
     }
 
     CompanyResponseDTO getCompanyResponseDTO() {
@@ -154,7 +166,7 @@ class CompanyServiceTest {
         when(mapper.companyTOCompanyResponseDTO(any(Company.class))).thenReturn(companyResponseDTO);
         when(companyRepository.save(any(Company.class))).thenReturn(company);
 
-        CompanyResponseDTO result = companyService.createCompany(companyRequestDTO);
+        CompanyResponseDTO result = companyService.createCompany(OWNER, companyRequestDTO);
 
         assertEquals(companyResponseDTO.getName(), result.getName());
         assertEquals(companyResponseDTO.getImageUrl(), result.getImageUrl());
@@ -175,10 +187,10 @@ class CompanyServiceTest {
     @Test
     void shouldThrowExceptionWhenCreatingCompanyWhenSentInvalidData() throws IOException {
 
-        CompanyRequestDTO invalidRequest = new CompanyRequestDTO("", null);
+        CompanyRequestDTO invalidRequest = new CompanyRequestDTO("", null, null);
 
         assertThrows(NullPointerException.class, () -> {
-            companyService.createCompany(invalidRequest);
+            companyService.createCompany(OWNER, invalidRequest);
         });
 
         verify(fileHelper, times(0)).uploadFileToFileSystem(any(MultipartFile.class));
@@ -200,12 +212,13 @@ class CompanyServiceTest {
         doThrow(new RuntimeException("Failed to save Company")).when(companyRepository).save(any(Company.class));
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            companyService.createCompany(companyRequestDTO);
+            companyService.createCompany(OWNER, companyRequestDTO);
         });
 
         assertEquals("Failed to save Company", exception.getMessage());
 
         verify(fileHelper, times(1)).uploadFileToFileSystem(any(MultipartFile.class));
+        verify(fileHelper, times(1)).deleteImageQuietly(imageUrl);
         verify(companyRepository, times(1)).save(company);
         verify(mapper, times(1)).companyRequestDTOTOCompany(companyRequestDTO);
         verify(mapper, times(0)).companyTOCompanyResponseDTO(any(Company.class));
@@ -227,7 +240,7 @@ class CompanyServiceTest {
                 .thenThrow(new IOException("File upload failed"));
 
         IOException exception = assertThrows(IOException.class, () -> {
-            companyService.createCompany(companyRequestDTO);
+            companyService.createCompany(OWNER, companyRequestDTO);
         });
 
         assertEquals("File upload failed", exception.getMessage());
@@ -254,7 +267,7 @@ class CompanyServiceTest {
                 .companyRequestDTOTOCompany(CompanyRequestDTO);
 
         RuntimeException thrown = assertThrows(RuntimeException.class, () -> {
-            companyService.createCompany(CompanyRequestDTO);
+            companyService.createCompany(OWNER, CompanyRequestDTO);
         });
 
         assertEquals("Mapping to Company failed", thrown.getMessage());
@@ -283,7 +296,7 @@ class CompanyServiceTest {
                 .companyTOCompanyResponseDTO(company);
 
         RuntimeException thrown = assertThrows(RuntimeException.class, () -> {
-            companyService.createCompany(CompanyRequestDTO);
+            companyService.createCompany(OWNER, CompanyRequestDTO);
         });
 
         assertEquals("Mapping to ResponseDTO failed", thrown.getMessage());
@@ -319,27 +332,21 @@ class CompanyServiceTest {
     }
 
     /**
-     * Test case to verify that the deleteCompany method handles image deletion
-     * failure when deleting a Company.
+     * Test case to verify that the deleteCompany method deletes the company row
+     * before its image, so the image is never removed while still in use.
      *
      * @throws IOException if an error occurs during the file deletion process
      */
     @Test
-    void shouldHandleImageDeletionFailureWhenDeletingCompany() throws IOException {
+    void shouldDeleteCompanyBeforeItsImageWhenDeletingCompany() throws IOException {
 
         when(companyRepository.findCompanyWithProductsByName(companyName)).thenReturn(Optional.of(company));
-        doThrow(new IOException("Failed to delete image")).when(fileHelper).deleteImageFromFileSystem(company.getImageUrl());
-        doNothing().when(companyRepository).delete(company);
 
-        IOException exception = assertThrows(IOException.class, () -> {
-            companyService.deleteCompany(companyName);
-        });
+        companyService.deleteCompany(companyName);
 
-        assertEquals("Failed to delete image", exception.getMessage());
-
-        verify(companyRepository, times(1)).findCompanyWithProductsByName(companyName);
-        verify(fileHelper, times(1)).deleteImageFromFileSystem(company.getImageUrl());
-        verify(companyRepository, times(0)).delete(company);
+        InOrder inOrder = inOrder(companyRepository, fileHelper);
+        inOrder.verify(companyRepository).delete(company);
+        inOrder.verify(fileHelper).deleteImageQuietly(company.getImageUrl());
 
     }
 
@@ -353,7 +360,6 @@ class CompanyServiceTest {
     void shouldDeleteCompanySuccessfully() throws IOException {
 
         when(companyRepository.findCompanyWithProductsByName(companyName)).thenReturn(Optional.of(company));
-        when(fileHelper.deleteImageFromFileSystem(company.getImageUrl())).thenReturn(true);
         doNothing().when(companyRepository).delete(any(Company.class));
 
         ResponseEntity<ApiResponseDTO> response = companyService.deleteCompany(companyName);
@@ -362,7 +368,7 @@ class CompanyServiceTest {
         assertEquals("Success Delete Company.", response.getBody().getMessage());
 
         verify(companyRepository, times(1)).findCompanyWithProductsByName(companyName);
-        verify(fileHelper, times(1)).deleteImageFromFileSystem(company.getImageUrl());
+        verify(fileHelper, times(1)).deleteImageQuietly(company.getImageUrl());
         verify(companyRepository, times(1)).delete(company);
 
     }
@@ -377,7 +383,6 @@ class CompanyServiceTest {
     void shouldHandleExceptionDuringDeleteWhenDeletingCompany() throws IOException {
 
         when(companyRepository.findCompanyWithProductsByName(companyName)).thenReturn(Optional.of(company));
-        when(fileHelper.deleteImageFromFileSystem(company.getImageUrl())).thenReturn(true);
         doThrow(new RuntimeException("COMPANY Not Found!")).when(companyRepository).delete(company);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -387,7 +392,7 @@ class CompanyServiceTest {
         assertEquals("COMPANY Not Found!", exception.getMessage());
 
         verify(companyRepository, times(1)).findCompanyWithProductsByName(companyName);
-        verify(fileHelper, times(1)).deleteImageFromFileSystem(company.getImageUrl());
+        verify(fileHelper, times(0)).deleteImageQuietly(anyString());
         verify(companyRepository, times(1)).delete(company);
 
     }
@@ -408,14 +413,14 @@ class CompanyServiceTest {
         when(mapper.companyTOCompanyResponseDTO(any(Company.class))).thenReturn(companyResponseDTO);
         when(companyRepository.save(any(Company.class))).thenReturn(company);
 
-        CompanyResponseDTO result = companyService.updateCompany(companyName, companyRequestDTO);
+        CompanyResponseDTO result = companyService.updateCompany(OWNER, companyName, companyRequestDTO);
 
         assertEquals(companyResponseDTO.getName(), result.getName());
         assertEquals(companyResponseDTO.getImageUrl(), result.getImageUrl());
 
         verify(companyRepository, times(1)).findByName(companyName);
-        verify(fileHelper, times(1)).deleteImageFromFileSystem(company.getImageUrl());
         verify(fileHelper, times(1)).uploadFileToFileSystem(any(MultipartFile.class));
+        verify(fileHelper, times(1)).deleteImageQuietly(imageUrl);
         verify(companyRepository, times(1)).save(any(Company.class));
         verify(mapper, times(1)).companyTOCompanyResponseDTO(any(Company.class));
     }
@@ -431,40 +436,42 @@ class CompanyServiceTest {
         when(companyRepository.findByName(companyName)).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class, () -> {
-            companyService.updateCompany(companyName, getCompanyRequestDTO());
+            companyService.updateCompany(OWNER, companyName, getCompanyRequestDTO());
         });
 
         assertEquals(NotFoundTypeException.COMPANY + " Not Found!", exception.getMessage());
 
         verify(companyRepository, times(1)).findByName(companyName);
         verify(fileHelper, times(0)).deleteImageFromFileSystem(anyString());
+        verify(fileHelper, times(1)).deleteImageQuietly(null);
         verify(companyRepository, times(0)).save(any(Company.class));
     }
 
     /**
-     * Test case to verify that an IOException is thrown when the image deletion
-     * fails during the updateCompany method.
+     * Test case to verify that the staged image is discarded and the old image
+     * is kept when saving fails during the updateCompany method.
      *
      * @throws IOException if an I/O error occurs during the test
      */
     @Test
-    void shouldThrowIOExceptionWhenImageDeletionFailsWhenUpdateCompany() throws IOException {
+    void shouldDiscardStagedImageWhenSaveFailsWhenUpdateCompany() throws IOException {
         companyRequestDTO = getCompanyRequestDTO();
+        String oldImageUrl = company.getImageUrl();
+        String stagedImageUrl = "staged-" + imageUrl;
 
         when(companyRepository.findByName(companyName)).thenReturn(Optional.of(company));
-        doThrow(new IOException("Failed to delete image")).when(fileHelper)
-                .deleteImageFromFileSystem(company.getImageUrl());
+        when(fileHelper.uploadFileToFileSystem(any(MultipartFile.class))).thenReturn(stagedImageUrl);
+        doThrow(new RuntimeException("Failed to save company")).when(companyRepository).save(any(Company.class));
 
-        IOException exception = assertThrows(IOException.class, () -> {
-            companyService.updateCompany(companyName, companyRequestDTO);
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            companyService.updateCompany(OWNER, companyName, companyRequestDTO);
         });
 
-        assertEquals("Failed to delete image", exception.getMessage());
+        assertEquals("Failed to save company", exception.getMessage());
 
-        verify(companyRepository, times(1)).findByName(companyName);
-        verify(fileHelper, times(1)).deleteImageFromFileSystem(company.getImageUrl());
-        verify(fileHelper, times(0)).uploadFileToFileSystem(any(MultipartFile.class));
-        verify(companyRepository, times(0)).save(any(Company.class));
+        verify(fileHelper, times(1)).deleteImageQuietly(stagedImageUrl);
+        verify(fileHelper, times(0)).deleteImageQuietly(oldImageUrl);
+        verify(fileHelper, times(0)).deleteImageFromFileSystem(anyString());
     }
 
     /**
@@ -478,18 +485,17 @@ class CompanyServiceTest {
         companyRequestDTO = getCompanyRequestDTO();
 
         when(companyRepository.findByName(companyName)).thenReturn(Optional.of(company));
-        when(fileHelper.deleteImageFromFileSystem(company.getImageUrl())).thenReturn(true);
         when(fileHelper.uploadFileToFileSystem(any(MultipartFile.class)))
                 .thenThrow(new IOException("File upload failed"));
 
         IOException exception = assertThrows(IOException.class, () -> {
-            companyService.updateCompany(companyName, companyRequestDTO);
+            companyService.updateCompany(OWNER, companyName, companyRequestDTO);
         });
 
         assertEquals("File upload failed", exception.getMessage());
 
-        verify(companyRepository, times(1)).findByName(companyName);
-        verify(fileHelper, times(1)).deleteImageFromFileSystem(company.getImageUrl());
+        verify(companyRepository, times(0)).findByName(companyName);
+        verify(fileHelper, times(0)).deleteImageFromFileSystem(anyString());
         verify(fileHelper, times(1)).uploadFileToFileSystem(any(MultipartFile.class));
         verify(companyRepository, times(0)).save(any(Company.class));
     }
@@ -503,13 +509,13 @@ class CompanyServiceTest {
     @Test
     void shouldNotUpdateCompanyWhenNoChangesProvided() throws IOException {
 
-        CompanyRequestDTO emptyRequestDTO = new CompanyRequestDTO(null, null);
+        CompanyRequestDTO emptyRequestDTO = new CompanyRequestDTO(null, null, null);
 
         when(companyRepository.findByName(companyName)).thenReturn(Optional.of(company));
         when(mapper.companyTOCompanyResponseDTO(any(Company.class))).thenReturn(getCompanyResponseDTO());
         when(companyRepository.save(any(Company.class))).thenReturn(company);
 
-        CompanyResponseDTO result = companyService.updateCompany(companyName, emptyRequestDTO);
+        CompanyResponseDTO result = companyService.updateCompany(OWNER, companyName, emptyRequestDTO);
 
         assertEquals(companyName, result.getName());
         assertEquals(imageUrl, result.getImageUrl());
@@ -0,0 +1,193 @@
+package com.luv2code.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.luv2code.demo.entity.Address;
+import com.luv2code.demo.entity.Role;
+import com.luv2code.demo.entity.User;
+import com.luv2code.demo.security.JwtToken;
+import com.luv2code.demo.security.SecurityUser;
+import com.luv2code.demo.service.impl.JwtService;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+
+public class JwtServiceTest {
+
+    private static final String SECRET_KEY = Base64.getEncoder()
+            .encodeToString("0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+
+    private JwtService jwtService;
+
+    private SecurityUser securityUser;
+
+    /**
+     * Creates a JwtService with a test secret key and expiration times and
+     * initializes its signing key and parser before each test case.
+     */
+    @BeforeEach
+    void setUp() {
+        jwtService = createJwtService(SECRET_KEY, 60000L);
+
+        User user = new User();
+
+        user.setId(1L);
+        user.setFullName("ahmed");
+        user.setEmail("ahmed@gmail.com");
+        user.setPhoneNumber("01021045629");
+        user.setAddress(new Address(1L, "Mostafa Kamel", "Tanta", "Egypt", "606165"));
+        user.setRole(new Role(1L, "USER", LocalDateTime.now()));
+        user.setRoleVersion(2);
+
+        securityUser = new SecurityUser(user);
+    }
+
+    private JwtService createJwtService(String secretKey, long expirationTime) {
+        JwtService service = new JwtService();
+
+        ReflectionTestUtils.setField(service, "secretKey", secretKey);
+        ReflectionTestUtils.setField(service, "jwtExpiration", expirationTime);
+        ReflectionTestUtils.setField(service, "refreshTokenExpiration", expirationTime);
+        service.init();
+
+        return service;
+    }
+
+    /**
+     * Test case to verify that parseToken returns the subject, expiration and
+     * claims of a generated token in a single pass.
+     */
+    @Test
+    void testParseToken_ReturnsSubjectExpirationAndClaims() {
+        String token = jwtService.generateToken(securityUser.getUsername(), securityUser);
+
+        JwtToken jwtToken = jwtService.parseToken(token);
+
+        assertEquals("ahmed@gmail.com", jwtToken.getSubject());
+        assertNotNull(jwtToken.getExpiration());
+        assertEquals("USER", jwtToken.getClaims().get("role"));
+        assertEquals(jwtToken.getExpiration(), jwtService.extractExpiration(token));
+    }
+
+    /**
+     * Test case to verify that a parsed token is valid for the user it was
+     * issued to and invalid for any other user.
+     */
+    @Test
+    void testValidateToken_MatchesOnlyTokenSubject() {
+        String token = jwtService.generateToken(securityUser.getUsername(), securityUser);
+
+        JwtToken jwtToken = jwtService.parseToken(token);
+
+        User otherUser = new User();
+        otherUser.setEmail("other@gmail.com");
+        otherUser.setRole(securityUser.getUser().getRole());
+
+        assertTrue(jwtService.validateToken(jwtToken, securityUser));
+        assertTrue(jwtService.validateToken(token, securityUser));
+        assertFalse(jwtService.validateToken(jwtToken, new SecurityUser(otherUser)));
+    }
+
+    /**
+     * Test case to verify that an access token and a refresh token issued as a
+     * pair carry the same token id, and that the refresh token outlives the
+     * access token, which is why logout revokes the id until the refresh
+     * token expires.
+     */
+    @Test
+    void testGenerateTokenPair_SharesTokenId() {
+        String tokenId = "4d6f2a8e-1b3c-4e5f-9a7b-0c1d2e3f4a5b";
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpiration", 3600000L);
+
+        JwtToken accessToken = jwtService.parseToken(jwtService.generateToken(securityUser.getUsername(),
+                securityUser, tokenId));
+        JwtToken refreshToken = jwtService.parseToken(jwtService.generateRefreshToken(securityUser.getUsername(),
+                tokenId));
+
+        assertEquals(tokenId, accessToken.getClaims().getId());
+        assertEquals(tokenId, refreshToken.getClaims().getId());
+        assertTrue(refreshToken.getExpiration().after(accessToken.getExpiration()));
+    }
+
+    /**
+     * Test case to verify that, in claims-only mode, the principal is rebuilt
+     * from the access token with the user id, role and role version it was
+     * issued with, and that the access token lifetime is capped.
+     */
+    @Test
+    void testExtractPrincipal_BuildsUserFromClaims_WhenClaimsOnlyEnabled() {
+        ReflectionTestUtils.setField(jwtService, "claimsOnly", true);
+        ReflectionTestUtils.setField(jwtService, "claimsOnlyExpiration", 5000L);
+
+        JwtToken token = jwtService.parseToken(jwtService.generateToken(securityUser.getUsername(), securityUser));
+
+        UserDetails principal = jwtService.extractPrincipal(token);
+
+        assertNotNull(principal);
+        User user = ((SecurityUser) principal).getUser();
+        assertEquals(Long.valueOf(1L), user.getId());
+        assertEquals("ahmed@gmail.com", principal.getUsername());
+        assertEquals("USER", user.getRole().getRole());
+        assertEquals(Integer.valueOf(2), user.getRoleVersion());
+        assertEquals("ROLE_USER", principal.getAuthorities().iterator().next().getAuthority());
+        assertTrue(token.getExpiration().getTime() - token.getClaims().getIssuedAt().getTime() <= 5000L);
+    }
+
+    /**
+     * Test case to verify that extractPrincipal returns null when claims-only
+     * mode is disabled or the token carries no user claims, so the filter
+     * falls back to loading the user.
+     */
+    @Test
+    void testExtractPrincipal_ReturnsNull_WhenDisabledOrClaimsMissing() {
+        String accessToken = jwtService.generateToken(securityUser.getUsername(), securityUser);
+
+        assertNull(jwtService.extractPrincipal(jwtService.parseToken(accessToken)));
+
+        ReflectionTestUtils.setField(jwtService, "claimsOnly", true);
+        String refreshToken = jwtService.generateRefreshToken(securityUser.getUsername(), "token-id",
+                securityUser.getUser());
+
+        assertNull(jwtService.extractPrincipal(jwtService.parseToken(refreshToken)));
+        assertEquals(Integer.valueOf(2), jwtService.extractRoleVersion(refreshToken));
+    }
+
+    /**
+     * Test case to verify that parseToken rejects a token signed with a
+     * different key.
+     */
+    @Test
+    void testParseToken_ThrowsSignatureException_WhenSignedWithAnotherKey() {
+        String otherKey = Base64.getEncoder()
+                .encodeToString("fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.UTF_8));
+
+        String token = createJwtService(otherKey, 60000L).generateRefreshToken(securityUser.getUsername());
+
+        assertThrows(SignatureException.class, () -> jwtService.parseToken(token));
+    }
+
+    /**
+     * Test case to verify that parseToken rejects an expired token.
+     */
+    @Test
+    void testParseToken_ThrowsExpiredJwtException_WhenTokenExpired() {
+        String token = createJwtService(SECRET_KEY, -1000L).generateRefreshToken(securityUser.getUsername());
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.parseToken(token));
+    }
+
+}
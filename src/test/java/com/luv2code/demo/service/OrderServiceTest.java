@@ -5,7 +5,11 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -32,6 +36,7 @@ import com.luv2code.demo.entity.User;
 import com.luv2code.demo.exc.custom.CalculationException;
 import com.luv2code.demo.exc.custom.NotFoundException;
 import com.luv2code.demo.exc.custom.NotFoundTypeException;
+import com.luv2code.demo.helper.ISalesCounter;
 import com.luv2code.demo.repository.CartRepository;
 import com.luv2code.demo.repository.OrderItemRepository;
 import com.luv2code.demo.repository.OrderRepository;
@@ -42,6 +47,7 @@ public class OrderServiceTest {
 
     private static final String USER_EMAIL = "test@example.com";
     private static final Long ORDER_ID = 1L;
+    private static final Long USER_ID = 1L;
     private static final BigDecimal ZERO = BigDecimal.ZERO;
     private static final BigDecimal POSITIVE_AMOUNT = BigDecimal.valueOf(50);
     private static final BigDecimal NEGATIVE_AMOUNT = BigDecimal.valueOf(-75);
@@ -58,6 +64,9 @@ public class OrderServiceTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private ISalesCounter salesCounter;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -83,8 +92,8 @@ public class OrderServiceTest {
 
         User user = createUser();
 
-        when(cartRepository.findAllCartItemsWithUserEmail(USER_EMAIL)).thenReturn(cartItems);
-        when(userService.getUserSetterByEmail(USER_EMAIL)).thenReturn(user);
+        when(cartRepository.findAllCartItemsByUserId(USER_ID)).thenReturn(cartItems);
+        when(userService.getUserReference(USER_ID)).thenReturn(user);
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
             Order order = invocation.getArgument(0);
             order.setId(ORDER_ID);
@@ -92,7 +101,7 @@ public class OrderServiceTest {
             return order;
         });
 
-        ResponseEntity<Map<String, Object>> response = orderService.createOrder(USER_EMAIL);
+        ResponseEntity<Map<String, Object>> response = orderService.createOrder(USER_ID);
 
         assertNotNull(response.getBody().get("orderId"), "orderId should not be null");
         assertNotNull(response.getBody().get("orderRequestedAt"), "orderRequestedAt should not be null");
@@ -105,25 +114,30 @@ public class OrderServiceTest {
         assertNotNull(response.getBody().get("orderRequestedAt"));
         assertEquals(2, ((List<?>) response.getBody().get("userOrders")).size());
 
-        verify(cartRepository).findAllCartItemsWithUserEmail(USER_EMAIL);
+        verify(cartRepository).findAllCartItemsByUserId(USER_ID);
         verify(orderRepository).save(any(Order.class));
-        verify(cartRepository).deleteAll(anyList());
+        verify(orderItemRepository).batchInsertOrderItems(eq(ORDER_ID), argThat(items -> items.size() == 2));
+        verify(cartRepository).deleteCartItemsByUserId(USER_ID, 102L);
+        verify(cartRepository).deleteCartsByUserId(USER_ID, 102L);
+        verify(userService, never()).getUserSetterByEmail(anyString());
+        verify(salesCounter).recordSale(1L, 2);
+        verify(salesCounter).recordSale(2L, 1);
     }
 
     /**
      * Tests if a NotFoundException is thrown when no cart items are found for
-     * the given user email.
+     * the given user ID.
      *
      * @return none
      */
     @Test
     void shouldThrowNotFoundExceptionWhenCartItemsNotFound() {
-        when(cartRepository.findAllCartItemsWithUserEmail(USER_EMAIL)).thenReturn(Collections.emptyList());
+        when(cartRepository.findAllCartItemsByUserId(USER_ID)).thenReturn(Collections.emptyList());
 
-        NotFoundException exception = assertThrows(NotFoundException.class, () -> orderService.createOrder(USER_EMAIL));
+        NotFoundException exception = assertThrows(NotFoundException.class, () -> orderService.createOrder(USER_ID));
         assertEquals("CARTITEMS Not Found!", exception.getMessage());
 
-        verify(cartRepository).findAllCartItemsWithUserEmail(USER_EMAIL);
+        verify(cartRepository).findAllCartItemsByUserId(USER_ID);
         verifyNoMoreInteractions(cartRepository);
         verifyNoInteractions(orderRepository);
     }
@@ -143,8 +157,8 @@ public class OrderServiceTest {
 
         User user = createUser();
 
-        when(cartRepository.findAllCartItemsWithUserEmail(USER_EMAIL)).thenReturn(cartItems);
-        when(userService.getUserSetterByEmail(USER_EMAIL)).thenReturn(user);
+        when(cartRepository.findAllCartItemsByUserId(USER_ID)).thenReturn(cartItems);
+        when(userService.getUserReference(USER_ID)).thenReturn(user);
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
             Order order = invocation.getArgument(0);
             order.setId(ORDER_ID);
@@ -152,7 +166,7 @@ public class OrderServiceTest {
             return order;
         });
 
-        ResponseEntity<Map<String, Object>> response = orderService.createOrder(USER_EMAIL);
+        ResponseEntity<Map<String, Object>> response = orderService.createOrder(USER_ID);
 
         assertEquals(200, response.getStatusCode().value());
         assertEquals(BigDecimal.valueOf(125), response.getBody().get("OrderTotalPrice"));
@@ -160,7 +174,9 @@ public class OrderServiceTest {
     }
 
     /**
-     * Tests if the cart items are deleted after a successful order creation.
+     * Tests if the cart items are deleted after a successful order creation
+     * with the bulk delete-by-user statements, bounded by the highest cart ID
+     * that was ordered.
      *
      * @return none
      */
@@ -172,8 +188,8 @@ public class OrderServiceTest {
 
         User user = createUser();
 
-        when(cartRepository.findAllCartItemsWithUserEmail(USER_EMAIL)).thenReturn(cartItems);
-        when(userService.getUserSetterByEmail(USER_EMAIL)).thenReturn(user);
+        when(cartRepository.findAllCartItemsByUserId(USER_ID)).thenReturn(cartItems);
+        when(userService.getUserReference(USER_ID)).thenReturn(user);
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
             Order order = invocation.getArgument(0);
             order.setId(ORDER_ID);
@@ -181,14 +197,16 @@ public class OrderServiceTest {
             return order;
         });
 
-        orderService.createOrder(USER_EMAIL);
+        orderService.createOrder(USER_ID);
 
-        verify(cartRepository).deleteAll(anyList());
+        verify(cartRepository).deleteCartItemsByUserId(USER_ID, 101L);
+        verify(cartRepository).deleteCartsByUserId(USER_ID, 101L);
+        verify(cartRepository, never()).deleteAll(anyList());
     }
 
     /**
      * Tests if a NotFoundException is thrown when the user is not found for the
-     * given email.
+     * given user ID.
      *
      * @return none
      */
@@ -196,13 +214,13 @@ public class OrderServiceTest {
     void shouldThrowNotFoundExceptionWhenUserNotFound() {
         List<CartItemResponseDTO> cartItems = createCartItems();
 
-        when(cartRepository.findAllCartItemsWithUserEmail(USER_EMAIL)).thenReturn(cartItems);
-        when(userService.getUserSetterByEmail(USER_EMAIL)).thenThrow(new NotFoundException("USER Not Found!"));
+        when(cartRepository.findAllCartItemsByUserId(USER_ID)).thenReturn(cartItems);
+        when(userService.getUserReference(USER_ID)).thenThrow(new NotFoundException("USER Not Found!"));
 
-        NotFoundException exception = assertThrows(NotFoundException.class, () -> orderService.createOrder(USER_EMAIL));
+        NotFoundException exception = assertThrows(NotFoundException.class, () -> orderService.createOrder(USER_ID));
         assertEquals("USER Not Found!", exception.getMessage());
 
-        verify(userService).getUserSetterByEmail(USER_EMAIL);
+        verify(userService).getUserReference(USER_ID);
         verifyNoInteractions(orderRepository);
     }
 
@@ -224,16 +242,16 @@ public class OrderServiceTest {
 
         User user = createUser();
 
-        when(cartRepository.findAllCartItemsWithUserEmail(USER_EMAIL)).thenReturn(cartItems);
-        when(userService.getUserSetterByEmail(USER_EMAIL)).thenReturn(user);
+        when(cartRepository.findAllCartItemsByUserId(USER_ID)).thenReturn(cartItems);
+        when(userService.getUserReference(USER_ID)).thenReturn(user);
 
         CalculationException thrownException = assertThrows(CalculationException.class, () -> {
-            orderService.createOrder(USER_EMAIL);
+            orderService.createOrder(USER_ID);
         });
 
         assertEquals("Total Price Is Negative, Please Make sure Of Product Price and retry!", thrownException.getMessage());
 
-        verify(cartRepository).findAllCartItemsWithUserEmail(USER_EMAIL);
+        verify(cartRepository).findAllCartItemsByUserId(USER_ID);
         verifyNoMoreInteractions(cartRepository);
         verifyNoInteractions(orderRepository);
     }
@@ -252,17 +270,19 @@ public class OrderServiceTest {
                 new CartItemResponseDTO(1L, "Product 1", "Description 1", "Company A", 3, POSITIVE_AMOUNT, 101L)
         );
 
-        when(cartRepository.findAllCartItemsWithUserEmail(USER_EMAIL)).thenReturn(cartItems);
+        when(cartRepository.findAllCartItemsByUserId(USER_ID)).thenReturn(cartItems);
 
         User user = createUser();
-        when(userService.getUserSetterByEmail(USER_EMAIL)).thenReturn(user);
+        when(userService.getUserReference(USER_ID)).thenReturn(user);
 
         when(orderRepository.save(any(Order.class))).thenThrow(new RuntimeException("Database error"));
 
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> orderService.createOrder(USER_EMAIL));
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> orderService.createOrder(USER_ID));
         assertEquals("Database error", exception.getMessage());
 
         verify(orderRepository).save(any(Order.class));
+        verifyNoInteractions(orderItemRepository);
+        verifyNoInteractions(salesCounter);
     }
 
     /**
@@ -329,6 +349,7 @@ public class OrderServiceTest {
      */
     private User createUser() {
         User user = new User();
+        user.setId(USER_ID);
         user.setEmail(USER_EMAIL);
         return user;
     }
@@ -17,15 +17,17 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.luv2code.demo.dto.SystemMapper;
 import com.luv2code.demo.dto.request.ProductRequestDTO;
 import com.luv2code.demo.dto.response.ApiResponseDTO;
-import com.luv2code.demo.dto.response.DiscountedProductsResponseDTO;
-import com.luv2code.demo.dto.response.ProductBestSellerResponseDTO;
+import com.luv2code.demo.dto.response.CursorSliceResponseDTO;
 import com.luv2code.demo.dto.response.ProductCompanyResponseDTO;
 import com.luv2code.demo.dto.response.ProductDetailsCategoryResponseDTO;
 import com.luv2code.demo.dto.response.ProductDetailsCompanyResponseDTO;
@@ -38,10 +40,13 @@ import com.luv2code.demo.exc.custom.NotFoundException;
 import com.luv2code.demo.repository.ProductRepository;
 import com.luv2code.demo.service.impl.ProductService;
 import com.luv2code.demo.helper.IFileHelper;
+import com.luv2code.demo.helper.IInventoryLedger;
 import com.luv2code.demo.helper.IPaginationHelper;
 
 public class ProductServiceTest {
 
+    private static final String OWNER = "admin@gmail.com";
+
     @Mock
     private ProductRepository productRepository;
 
@@ -60,6 +65,15 @@ public class ProductServiceTest {
     @Mock
     private ICompanyService companyService;
 
+    @Mock
+    private IInventoryLedger inventoryLedger;
+
+    @Mock
+    private IProductSnapshotService productSnapshotService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private ProductService productService;
 
@@ -89,6 +103,9 @@ public class ProductServiceTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
 
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
         multipartFile = new MockMultipartFile("image", "image.png", "image/png", "imageContent".getBytes());
 
         imageUrl = "http://example.com/image.png";
@@ -147,7 +164,7 @@ public class ProductServiceTest {
         ProductDetailsResponseDTO expectedResponse = new ProductDetailsResponseDTO();
         when(mapper.ProductTOproductDetailsResponseDTO(product)).thenReturn(expectedResponse);
 
-        ProductDetailsResponseDTO actualResponse = productService.createProduct(productRequestDTO);
+        ProductDetailsResponseDTO actualResponse = productService.createProduct(OWNER, productRequestDTO);
 
         assertNotNull(actualResponse);
         assertEquals(expectedResponse, actualResponse);
@@ -161,6 +178,65 @@ public class ProductServiceTest {
 
     }
 
+    /**
+     * Tests the creation of a product from a completed chunked upload. Verifies
+     * that the staged upload is stored instead of the multipart image and is
+     * discarded once the product is saved.
+     *
+     * @throws IllegalStateException if any illegal state occurs during
+     * execution
+     * @throws IOException if an I/O error occurs during file operations
+     */
+    @Test
+    void shouldCreateProductFromStagedUpload() throws IllegalStateException, IOException {
+
+        String uploadId = "3f2c7c1e-8d4b-4b7a-9c3e-2a1f5e6d7c8b";
+        String stagedImageUrl = "http://example.com/staged.png";
+        productRequestDTO.setUploadId(uploadId);
+
+        when(companyService.getCompanySetter(productRequestDTO.getCompanyName())).thenReturn(company);
+        when(categoryService.getCategorySetter(productRequestDTO.getCategoryName())).thenReturn(category);
+        when(fileHelper.uploadStagedFileToFileSystem(OWNER, uploadId)).thenReturn(stagedImageUrl);
+        when(mapper.productRequestDTOTOProduct(productRequestDTO)).thenReturn(product);
+        when(productRepository.save(product)).thenReturn(product);
+        when(mapper.ProductTOproductDetailsResponseDTO(product)).thenReturn(new ProductDetailsResponseDTO());
+
+        productService.createProduct(OWNER, productRequestDTO);
+
+        verify(fileHelper, times(1)).uploadStagedFileToFileSystem(OWNER, uploadId);
+        verify(fileHelper, never()).uploadFileToFileSystem(any(MultipartFile.class));
+        verify(fileHelper, times(1)).discardStagedUpload(uploadId);
+        assertEquals(stagedImageUrl, product.getImageUrl());
+
+    }
+
+    /**
+     * Tests that a failed save of a product created from a chunked upload
+     * keeps the staged upload, so the request can be retried with the same
+     * upload id, and only discards the stored copy of the image.
+     *
+     * @throws IOException if an I/O error occurs during file operations
+     */
+    @Test
+    void shouldKeepStagedUploadWhenSavingProductFails() throws IOException {
+
+        String uploadId = "3f2c7c1e-8d4b-4b7a-9c3e-2a1f5e6d7c8b";
+        String stagedImageUrl = "http://example.com/staged.png";
+        productRequestDTO.setUploadId(uploadId);
+
+        when(companyService.getCompanySetter(productRequestDTO.getCompanyName())).thenReturn(company);
+        when(categoryService.getCategorySetter(productRequestDTO.getCategoryName())).thenReturn(category);
+        when(fileHelper.uploadStagedFileToFileSystem(OWNER, uploadId)).thenReturn(stagedImageUrl);
+        when(mapper.productRequestDTOTOProduct(productRequestDTO)).thenReturn(product);
+        when(productRepository.save(product)).thenThrow(new RuntimeException("Duplicate product name"));
+
+        assertThrows(RuntimeException.class, () -> productService.createProduct(OWNER, productRequestDTO));
+
+        verify(fileHelper, times(1)).deleteImageQuietly(stagedImageUrl);
+        verify(fileHelper, never()).discardStagedUpload(any());
+
+    }
+
     /**
      * Tests the scenario where an IOException is thrown during the creation of
      * a product. Verifies that the exception is properly handled and thrown.
@@ -174,11 +250,12 @@ public class ProductServiceTest {
         when(categoryService.getCategorySetter(productRequestDTO.getCategoryName())).thenReturn(category);
         when(fileHelper.uploadFileToFileSystem(productRequestDTO.getImage())).thenThrow(IOException.class);
 
-        assertThrows(IOException.class, () -> productService.createProduct(productRequestDTO));
+        assertThrows(IOException.class, () -> productService.createProduct(OWNER, productRequestDTO));
 
-        verify(companyService, times(1)).getCompanySetter(productRequestDTO.getCompanyName());
-        verify(categoryService, times(1)).getCategorySetter(productRequestDTO.getCategoryName());
+        verify(companyService, never()).getCompanySetter(productRequestDTO.getCompanyName());
+        verify(categoryService, never()).getCategorySetter(productRequestDTO.getCategoryName());
         verify(fileHelper, times(1)).uploadFileToFileSystem(productRequestDTO.getImage());
+        verify(productRepository, never()).save(any());
 
     }
 
@@ -198,7 +275,7 @@ public class ProductServiceTest {
         when(mapper.productRequestDTOTOProduct(productRequestDTO)).thenThrow(new RuntimeException("Failed to map ProductRequestDTO to Product entity"));
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            productService.createProduct(productRequestDTO);
+            productService.createProduct(OWNER, productRequestDTO);
         });
 
         assertEquals("Failed to map ProductRequestDTO to Product entity", exception.getMessage());
@@ -206,6 +283,7 @@ public class ProductServiceTest {
         verify(companyService, times(1)).getCompanySetter(productRequestDTO.getCompanyName());
         verify(categoryService, times(1)).getCategorySetter(productRequestDTO.getCategoryName());
         verify(fileHelper, times(1)).uploadFileToFileSystem(productRequestDTO.getImage());
+        verify(fileHelper, times(1)).deleteImageQuietly("test-image-url");
         verify(mapper, times(1)).productRequestDTOTOProduct(productRequestDTO);
 
     }
@@ -228,7 +306,7 @@ public class ProductServiceTest {
         when(mapper.ProductTOproductDetailsResponseDTO(product)).thenThrow(new RuntimeException("Failed to map Product entity to ProductDetailsResponseDTO"));
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            productService.createProduct(productRequestDTO);
+            productService.createProduct(OWNER, productRequestDTO);
         });
 
         assertEquals("Failed to map Product entity to ProductDetailsResponseDTO", exception.getMessage());
@@ -261,8 +339,10 @@ public class ProductServiceTest {
         assertEquals("Success Deleted Product.", response.getBody().getMessage());
         assertEquals(200, response.getStatusCode().value());
 
-        verify(fileHelper, times(1)).deleteImageFromFileSystem(product.getImageUrl());
+        verify(fileHelper, times(1)).deleteImageQuietly(product.getImageUrl());
         verify(productRepository, times(1)).delete(product);
+        verify(productSnapshotService, times(1)).requestRefresh();
+        verify(productSnapshotService, never()).refresh();
     }
 
     /**
@@ -287,24 +367,24 @@ public class ProductServiceTest {
     }
 
     /**
-     * Tests the scenario where an IOException is thrown while deleting the
-     * product image. Verifies that the exception is propagated.
+     * Tests the scenario where deleting the product row fails. Verifies that
+     * the image is kept, since the row still references it.
      *
      * @throws IOException if an I/O error occurs during file operations
      */
     @Test
-    void shouldThrowIOExceptionWhenDeletingProductImageFails() throws IOException {
+    void shouldKeepProductImageWhenDeletingProductFails() throws IOException {
 
         when(productRepository.findProductSetterDTOById(productId)).thenReturn(Optional.of(productSetterDTO));
         when(mapper.productSetterDTOTOProduct(productSetterDTO)).thenReturn(product);
-        doThrow(IOException.class).when(fileHelper).deleteImageFromFileSystem(product.getImageUrl());
+        doThrow(new RuntimeException("Database error")).when(productRepository).delete(product);
 
-        assertThrows(IOException.class, () -> {
+        assertThrows(RuntimeException.class, () -> {
             productService.deleteProductById(productId);
         });
 
-        verify(fileHelper, times(1)).deleteImageFromFileSystem(product.getImageUrl());
-        verify(productRepository, never()).delete(product);
+        verify(productRepository, times(1)).delete(product);
+        verify(fileHelper, never()).deleteImageQuietly(anyString());
 
     }
 
@@ -326,7 +406,6 @@ public class ProductServiceTest {
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
         when(categoryService.getCategorySetter("Updated Category")).thenReturn(category);
         when(companyService.getCompanySetter("Updated Company")).thenReturn(company);
-        when(fileHelper.deleteImageFromFileSystem(imageUrl)).thenReturn(true);
         when(fileHelper.uploadFileToFileSystem(productRequestDTO.getImage())).thenReturn(imageUrl);
         doNothing().when(mapper).updateProductFromRequestDTO(productRequestDTO, product);
         when(productRepository.save(product)).thenReturn(product);
@@ -334,7 +413,7 @@ public class ProductServiceTest {
         ProductDetailsResponseDTO expectedResponse = new ProductDetailsResponseDTO();
         when(mapper.ProductTOproductDetailsResponseDTO(product)).thenReturn(expectedResponse);
 
-        ProductDetailsResponseDTO actualResponse = productService.updateProductById(1L, productRequestDTO);
+        ProductDetailsResponseDTO actualResponse = productService.updateProductById(OWNER, 1L, productRequestDTO);
 
         assertNotNull(actualResponse);
         assertEquals(expectedResponse, actualResponse);
@@ -342,7 +421,7 @@ public class ProductServiceTest {
         verify(categoryService, times(1)).getCategorySetter("Updated Category");
         verify(companyService, times(1)).getCompanySetter("Updated Company");
         verify(fileHelper, times(1)).uploadFileToFileSystem(productRequestDTO.getImage());
-        verify(fileHelper, times(1)).deleteImageFromFileSystem(imageUrl);
+        verify(fileHelper, times(1)).deleteImageQuietly(imageUrl);
         verify(mapper, times(1)).updateProductFromRequestDTO(productRequestDTO, product);
         verify(productRepository, times(1)).save(product);
         verify(mapper, times(1)).ProductTOproductDetailsResponseDTO(product);
@@ -365,7 +444,7 @@ public class ProductServiceTest {
         when(productRepository.findById(1L)).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class, () -> {
-            productService.updateProductById(1L, productRequestDTO);
+            productService.updateProductById(OWNER, 1L, productRequestDTO);
         });
 
         assertEquals("PRODUCT Not Found!", exception.getMessage());
@@ -404,7 +483,7 @@ public class ProductServiceTest {
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
         when(categoryService.getCategorySetter("New Category")).thenReturn(newCategory);
 
-        productService.updateProductById(1L, productRequestDTO);
+        productService.updateProductById(OWNER, 1L, productRequestDTO);
 
         assertEquals(newCategory.getId(), product.getCategory().getId());
         assertEquals(newCategory.getName(), product.getCategory().getName());
@@ -435,7 +514,7 @@ public class ProductServiceTest {
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
         when(companyService.getCompanySetter("New Company")).thenReturn(newCompany);
 
-        productService.updateProductById(1L, productRequestDTO);
+        productService.updateProductById(OWNER, 1L, productRequestDTO);
 
         assertEquals(newCompany.getId(), product.getCompany().getId());
         assertEquals(newCompany.getName(), product.getCompany().getName());
@@ -462,19 +541,47 @@ public class ProductServiceTest {
         String newImageUrl = "new-image-url-" + imageUrl;
 
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-        when(fileHelper.deleteImageFromFileSystem("old-image-url-" + imageUrl)).thenReturn(true);
         when(fileHelper.uploadFileToFileSystem(multipartFile)).thenReturn(newImageUrl);
 
-        productService.updateProductById(1L, productRequestDTO);
+        productService.updateProductById(OWNER, 1L, productRequestDTO);
 
         assertEquals(newImageUrl, product.getImageUrl());
 
-        verify(fileHelper, times(1)).deleteImageFromFileSystem("old-image-url-" + imageUrl);
+        verify(fileHelper, times(1)).deleteImageQuietly("old-image-url-" + imageUrl);
         verify(fileHelper, times(1)).uploadFileToFileSystem(multipartFile);
         verify(productRepository, times(1)).save(product);
 
     }
 
+    /**
+     * Tests the scenario where saving the updated product fails after the new
+     * image was staged. Verifies that the staged image is discarded and the
+     * old image is kept.
+     *
+     * @throws IllegalStateException if the update fails
+     * @throws IOException if file operations fail
+     */
+    @Test
+    void shouldDiscardStagedImageWhenUpdateProductFails() throws IllegalStateException, IOException {
+
+        productRequestDTO.setImage(multipartFile);
+
+        String oldImageUrl = "old-image-url-" + imageUrl;
+        String newImageUrl = "new-image-url-" + imageUrl;
+
+        product.setImageUrl(oldImageUrl);
+
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(fileHelper.uploadFileToFileSystem(multipartFile)).thenReturn(newImageUrl);
+        when(productRepository.save(product)).thenThrow(new RuntimeException("Failed to save product"));
+
+        assertThrows(RuntimeException.class, () -> productService.updateProductById(OWNER, 1L, productRequestDTO));
+
+        verify(fileHelper, times(1)).deleteImageQuietly(newImageUrl);
+        verify(fileHelper, never()).deleteImageQuietly(oldImageUrl);
+
+    }
+
     /**
      * Test case to verify that a page of products is returned when a company
      * exists.
@@ -552,6 +659,62 @@ public class ProductServiceTest {
 
     }
 
+    /**
+     * Test case to verify that the cursor-based company listing seeks past the
+     * decoded cursor and returns a continuation token for the last row when
+     * more rows exist.
+     *
+     * @return void
+     */
+    @Test
+    void shouldReturnCursorSliceWithNextCursorWhenMoreProductsExist() {
+
+        String companyName = "Pepsi";
+        List<ProductCompanyResponseDTO> products = List.of(new ProductCompanyResponseDTO(6L, "Candy", imageUrl),
+                new ProductCompanyResponseDTO(9L, "Chocolate", imageUrl));
+
+        when(paginationHelper.decodeCursor("cursor")).thenReturn(5L);
+        when(productRepository.findAllProductsAfter(companyName, 5L, PageRequest.of(0, 2)))
+                .thenReturn(new SliceImpl<>(products, PageRequest.of(0, 2), true));
+        when(paginationHelper.encodeCursor(9L)).thenReturn("next");
+
+        CursorSliceResponseDTO<ProductCompanyResponseDTO> result = productService
+                .getAllProductsInCompanyAfter(companyName, "cursor", 2);
+
+        assertEquals(2, result.getSize());
+        assertTrue(result.getHasNext());
+        assertEquals("next", result.getNextCursor());
+
+        verify(paginationHelper, times(1)).validateSliceSize(2);
+
+    }
+
+    /**
+     * Test case to verify that the last cursor-based slice carries no
+     * continuation token.
+     *
+     * @return void
+     */
+    @Test
+    void shouldReturnCursorSliceWithoutNextCursorOnLastSlice() {
+
+        String categoryName = "Sweets";
+        List<ProductDetailsCategoryResponseDTO> products = List.of(new ProductDetailsCategoryResponseDTO());
+
+        when(paginationHelper.decodeCursor(null)).thenReturn(0L);
+        when(productRepository.findProductsByCategoryNameAfter(categoryName, 0L, PageRequest.of(0, 10)))
+                .thenReturn(new SliceImpl<>(products, PageRequest.of(0, 10), false));
+
+        CursorSliceResponseDTO<ProductDetailsCategoryResponseDTO> result = productService
+                .getAllProductsDetailsInCategoryAfter(categoryName, null, 10);
+
+        assertFalse(result.getHasNext());
+        assertNull(result.getNextCursor());
+
+        verify(paginationHelper, never()).encodeCursor(anyLong());
+
+    }
+
     /**
      * Test case to verify that the method
      * shouldReturnProductsDetailsWhenPaginationParametersAreValid returns the
@@ -656,33 +819,6 @@ public class ProductServiceTest {
 
     }
 
-    /**
-     * Test case to verify that the method
-     * shouldReturnTopSevenBestSellingProducts returns the expected list of best
-     * selling products.
-     *
-     * @throws Exception if an error occurs during the test execution
-     */
-    @Test
-    void shouldReturnTopSevenBestSellingProducts() {
-
-        pageable = PageRequest.of(0, 7);
-
-        List<ProductBestSellerResponseDTO> expectedBestSellers = List.of(
-                new ProductBestSellerResponseDTO(),
-                new ProductBestSellerResponseDTO(),
-                new ProductBestSellerResponseDTO()
-        );
-
-        when(productRepository.findTopBestSellers(pageable)).thenReturn(expectedBestSellers);
-
-        List<ProductBestSellerResponseDTO> result = productService.getTopSevenProductsWithBestSeller();
-
-        assertEquals(expectedBestSellers, result);
-        verify(productRepository, times(1)).findTopBestSellers(pageable);
-
-    }
-
     /**
      * Tests the scenario where product details exist. Verifies that the
      * getProductDetailsById method returns the expected product details and
@@ -776,67 +912,73 @@ public class ProductServiceTest {
     }
 
     /**
-     * Tests the getAllDiscountedProduct method of the ProductService class to
-     * ensure it returns a list of all discounted products.
+     * Tests that the conditional decrement reports success when the repository
+     * reserved the requested quantity.
      *
      * @return void
      */
     @Test
-    void shouldReturnAllDiscountedProducts() {
+    void shouldDecrementProductQuantityWhenStockIsAvailable() {
 
-        DiscountedProductsResponseDTO discountedProductDTO = new DiscountedProductsResponseDTO();
-        List<DiscountedProductsResponseDTO> discountedProductsList = List.of(discountedProductDTO);
+        when(productRepository.decrementProductQuantity(productId, 3)).thenReturn(1);
 
-        when(productRepository.findAllProductsWithDiscount()).thenReturn(discountedProductsList);
+        assertTrue(productService.decrementProductQuantityById(productId, 3));
 
-        List<DiscountedProductsResponseDTO> result = productService.getAllDiscountedProduct();
-
-        assertNotNull(result);
-        assertEquals(discountedProductsList, result);
-        verify(productRepository, times(1)).findAllProductsWithDiscount();
+        verify(productRepository, times(1)).decrementProductQuantity(productId, 3);
 
     }
 
     /**
-     * Tests the getAllDiscountedProduct method of the ProductService class to
-     * ensure it returns an empty list when there are no discounted products.
+     * Tests that the conditional decrement reports failure, without throwing,
+     * when the repository did not update any row because the stock is too low.
      *
      * @return void
      */
     @Test
-    void shouldReturnEmptyListWhenNoDiscountedProducts() {
+    void shouldNotDecrementProductQuantityWhenStockIsNotAvailable() {
+
+        when(productRepository.decrementProductQuantity(productId, 3)).thenReturn(0);
+
+        assertFalse(productService.decrementProductQuantityById(productId, 3));
+
+        verify(productRepository, times(1)).decrementProductQuantity(productId, 3);
 
-        List<DiscountedProductsResponseDTO> emptyDiscountedProductsList = List.of();
+    }
+
+    /**
+     * Tests that stock is reserved through the inventory ledger, without
+     * touching the products table, when the ledger is enabled.
+     *
+     * @return void
+     */
+    @Test
+    void shouldReserveThroughInventoryLedgerWhenEnabled() {
 
-        when(productRepository.findAllProductsWithDiscount()).thenReturn(emptyDiscountedProductsList);
+        when(inventoryLedger.isEnabled()).thenReturn(true);
+        when(inventoryLedger.reserve(productId, 3)).thenReturn(true);
 
-        List<DiscountedProductsResponseDTO> result = productService.getAllDiscountedProduct();
+        assertTrue(productService.decrementProductQuantityById(productId, 3));
 
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(productRepository, times(1)).findAllProductsWithDiscount();
+        verify(inventoryLedger, times(1)).reserve(productId, 3);
+        verify(productRepository, never()).decrementProductQuantity(anyLong(), anyInt());
 
     }
 
     /**
-     * Test case to verify that the ProductService class handles an exception
-     * when fetching discounted products.
+     * Tests that releasing quantity back to a product that no longer exists
+     * throws a RuntimeException.
      *
      * @return void
-     * @throws RuntimeException if an error occurs while fetching discounted
-     * products
      */
     @Test
-    void shouldHandleExceptionWhenFetchingDiscountedProducts() {
+    void shouldThrowRuntimeExceptionWhenIncrementProductQuantityFails() {
 
-        when(productRepository.findAllProductsWithDiscount()).thenThrow(new RuntimeException("Database error"));
+        when(productRepository.incrementProductQuantity(productId, 3)).thenReturn(0);
 
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            productService.getAllDiscountedProduct();
-        });
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> productService.incrementProductQuantityById(productId, 3));
 
-        assertEquals("Database error", exception.getMessage());
-        verify(productRepository, times(1)).findAllProductsWithDiscount();
+        assertEquals("Update Product With ID: {}" + productId, exception.getMessage());
 
     }
 
@@ -0,0 +1,135 @@
+package com.luv2code.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+
+import com.luv2code.demo.dto.response.DiscountedProductsResponseDTO;
+import com.luv2code.demo.dto.response.ProductBestSellerResponseDTO;
+import com.luv2code.demo.repository.ProductRepository;
+import com.luv2code.demo.service.impl.ProductSnapshotService;
+
+public class ProductSnapshotServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private ProductSnapshotService productSnapshotService;
+
+    private List<ProductBestSellerResponseDTO> bestSellers;
+
+    private List<DiscountedProductsResponseDTO> discountedProducts;
+
+    /**
+     * Initializes the mock objects and the lists returned by the repository
+     * before each test case.
+     */
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        bestSellers = List.of(new ProductBestSellerResponseDTO(1L, "Candy", "Sweet", "10%", "image.png"));
+        discountedProducts = List.of(new DiscountedProductsResponseDTO());
+
+        when(productRepository.findTopBestSellers(any(Pageable.class))).thenReturn(bestSellers);
+        when(productRepository.findAllProductsWithDiscount()).thenReturn(discountedProducts);
+    }
+
+    /**
+     * Tests that both lists are served from the snapshot, so repeated reads
+     * query the database only once.
+     */
+    @Test
+    void shouldServeListsFromSnapshotWithoutQueryingAgain() {
+
+        productSnapshotService.getTopSevenProductsWithBestSeller();
+        productSnapshotService.getAllDiscountedProduct();
+
+        assertEquals(bestSellers.get(0).getId(), productSnapshotService.getTopSevenProductsWithBestSeller().get(0).getId());
+        assertEquals(1, productSnapshotService.getAllDiscountedProduct().size());
+
+        verify(productRepository, times(1)).findTopBestSellers(any(Pageable.class));
+        verify(productRepository, times(1)).findAllProductsWithDiscount();
+    }
+
+    /**
+     * Tests that a refresh replaces the snapshot with the current database
+     * contents.
+     */
+    @Test
+    void shouldReplaceSnapshotOnRefresh() {
+
+        productSnapshotService.refresh();
+
+        when(productRepository.findAllProductsWithDiscount()).thenReturn(List.of());
+
+        productSnapshotService.refresh();
+
+        assertEquals(0, productSnapshotService.getAllDiscountedProduct().size());
+
+        verify(productRepository, times(2)).findAllProductsWithDiscount();
+    }
+
+    /**
+     * Tests that refreshes requested by a burst of writes are coalesced into
+     * one refresh on the next scheduled check, and that the check does nothing
+     * when no refresh was requested.
+     */
+    @Test
+    void shouldCoalesceRequestedRefreshes() {
+
+        productSnapshotService.refreshIfRequested();
+        verify(productRepository, never()).findAllProductsWithDiscount();
+
+        productSnapshotService.requestRefresh();
+        productSnapshotService.requestRefresh();
+        productSnapshotService.requestRefresh();
+
+        productSnapshotService.refreshIfRequested();
+        productSnapshotService.refreshIfRequested();
+
+        verify(productRepository, times(1)).findAllProductsWithDiscount();
+    }
+
+    /**
+     * Tests that a scheduled refresh also covers refreshes requested before it
+     * started.
+     */
+    @Test
+    void shouldClearRequestOnScheduledRefresh() {
+
+        productSnapshotService.requestRefresh();
+        productSnapshotService.refresh();
+
+        productSnapshotService.refreshIfRequested();
+
+        verify(productRepository, times(1)).findAllProductsWithDiscount();
+    }
+
+    /**
+     * Tests that the lists handed out by the snapshot cannot be modified by
+     * callers.
+     */
+    @Test
+    void shouldReturnImmutableLists() {
+
+        List<ProductBestSellerResponseDTO> snapshot = productSnapshotService.getTopSevenProductsWithBestSeller();
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(new ProductBestSellerResponseDTO()));
+    }
+
+}
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -36,18 +37,20 @@ import com.luv2code.demo.entity.Role;
 import com.luv2code.demo.entity.User;
 import com.luv2code.demo.exc.custom.NotFoundException;
 import com.luv2code.demo.helper.IFileHelper;
+import com.luv2code.demo.helper.IUserPrincipalCache;
 import com.luv2code.demo.repository.UserRepository;
 import com.luv2code.demo.service.impl.UserService;
 
 public class UserServiceTest {
 
+    private static final String OWNER = "user@gmail.com";
     private static final String USER_NOT_FOUND_MSG = "USER Not Found!";
     private static final String EMAIL_EMPTY_MSG = "Email must not be empty";
     private static final String EMAIL_IN_USE_MSG = "Email is already in use!";
     private static final String REQUIRED_FIELDS_MISSING_MSG = "Required fields are missing!";
     private static final String SUCCESS_DELETED_USER_MSG = "Success Deleted User!";
     private static final String UPLOAD_FAILED_MSG = "Upload failed";
-    private static final String DELETE_FAILED_MSG = "Delete failed";
+    private static final String UPDATE_FAILED_MSG = "Update failed";
     private static final String MAPPING_FAILED_MSG = "Mapping failed";
 
     @InjectMocks
@@ -62,6 +65,9 @@ public class UserServiceTest {
     @Mock
     private IFileHelper fileHelper;
 
+    @Mock
+    private IUserPrincipalCache userPrincipalCache;
+
     private Role role;
     private User user;
     private Address address;
@@ -139,6 +145,29 @@ public class UserServiceTest {
         assertEquals(role, result.getRole());
     }
 
+    /**
+     * Test case to verify that the getUserLoginDetails method of the
+     * UserService returns the user loaded with a single query, including the
+     * password hash needed to verify the login.
+     *
+     * @param None
+     * @return None
+     */
+    @Test
+    void shouldGetUserLoginDetailsSuccessfully() {
+        String email = "ahmed@gmail.com";
+        user.setPassword("encodedPassword");
+
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+
+        User result = userService.getUserLoginDetails(email);
+
+        assertEquals(user, result);
+        assertEquals("encodedPassword", result.getPassword());
+        verify(userRepository, times(1)).findByEmail(email);
+        verify(userRepository, never()).findUserTokenDetailsByEmail(anyString());
+    }
+
     /**
      * Test case to verify that the getUserTokenDetails method of the
      * UserService throws a NotFoundException when the user token details are
@@ -294,6 +323,7 @@ public class UserServiceTest {
 
         verify(userRepository, times(1)).findByEmail(user.getEmail());
         verify(userRepository, times(1)).delete(user);
+        verify(userPrincipalCache, times(1)).evictUserPrincipal(user.getEmail());
         assertEquals(SUCCESS_DELETED_USER_MSG, response.getBody().getMessage());
         assertEquals(HttpStatus.OK.value(), response.getStatusCode().value());
     }
@@ -314,6 +344,7 @@ public class UserServiceTest {
 
         verify(userRepository, times(1)).findByEmail(user.getEmail());
         verify(userRepository, never()).delete(any(User.class));
+        verify(userPrincipalCache, never()).evictUserPrincipal(any());
     }
 
     /**
@@ -333,9 +364,9 @@ public class UserServiceTest {
         when(fileHelper.uploadFileToFileSystem(request.getImage())).thenReturn(imageUrl);
         when(userRepository.findByEmail(request.getEmail())).thenReturn(Optional.of(user));
 
-        ResponseEntity<Map<String, String>> response = userService.updateUserImage(request);
+        ResponseEntity<Map<String, String>> response = userService.updateUserImage(OWNER, request);
 
-        verify(fileHelper, times(1)).deleteImageFromFileSystem(request.getOldImageUrl());
+        verify(fileHelper, times(1)).deleteImageQuietly(request.getOldImageUrl());
         verify(fileHelper, times(1)).uploadFileToFileSystem(request.getImage());
         verify(userRepository, times(1)).updateImageByEmail(request.getEmail(), imageUrl);
 
@@ -360,35 +391,39 @@ public class UserServiceTest {
         when(fileHelper.uploadFileToFileSystem(request.getImage())).thenThrow(new IOException(UPLOAD_FAILED_MSG));
         when(userRepository.findByEmail(request.getEmail())).thenReturn(Optional.of(user));
 
-        IOException exception = assertThrows(IOException.class, () -> userService.updateUserImage(request));
+        IOException exception = assertThrows(IOException.class, () -> userService.updateUserImage(OWNER, request));
         assertEquals(UPLOAD_FAILED_MSG, exception.getMessage());
 
-        verify(fileHelper, times(1)).deleteImageFromFileSystem(request.getOldImageUrl());
+        verify(fileHelper, times(0)).deleteImageQuietly(request.getOldImageUrl());
         verify(userRepository, times(0)).updateImageByEmail(request.getEmail(), null);
     }
 
     /**
      * Test case to verify that the updateUserImage method of the UserService
-     * handles an exception when deleting an old image fails.
+     * discards the uploaded image and keeps the old one when updating the
+     * image URL fails.
      *
      * @param None
      * @return None
      */
     @Test
-    void shouldHandleExceptionWhenDeletingOldImageFails() throws IOException {
+    void shouldDiscardUploadedImageWhenUpdatingImageUrlFails() throws IOException {
         UpdateUserImageRequestDTO request = new UpdateUserImageRequestDTO();
         request.setEmail("ahmed@gmail.com");
         request.setOldImageUrl(imageUrl);
         request.setImage(multipartFile);
 
-        when(fileHelper.deleteImageFromFileSystem(request.getOldImageUrl())).thenThrow(new IOException(DELETE_FAILED_MSG));
-        when(fileHelper.uploadFileToFileSystem(request.getImage())).thenReturn(imageUrl);
-        when(userRepository.findByEmail(request.getEmail())).thenReturn(Optional.of(user));
+        String newImageUrl = "new-" + imageUrl;
 
-        IOException exception = assertThrows(IOException.class, () -> userService.updateUserImage(request));
-        assertEquals(DELETE_FAILED_MSG, exception.getMessage());
+        when(fileHelper.uploadFileToFileSystem(request.getImage())).thenReturn(newImageUrl);
+        when(userRepository.updateImageByEmail(request.getEmail(), newImageUrl))
+                .thenThrow(new RuntimeException(UPDATE_FAILED_MSG));
 
-        verify(userRepository, times(0)).updateImageByEmail(request.getEmail(), null);
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> userService.updateUserImage(OWNER, request));
+        assertEquals(UPDATE_FAILED_MSG, exception.getMessage());
+
+        verify(fileHelper, times(1)).deleteImageQuietly(newImageUrl);
+        verify(fileHelper, times(0)).deleteImageQuietly(request.getOldImageUrl());
     }
 
     /**
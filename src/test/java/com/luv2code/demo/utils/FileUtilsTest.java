@@ -0,0 +1,191 @@
+package com.luv2code.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FileUtilsTest {
+
+    private static final byte[] SVG = "<svg xmlns=\"http://www.w3.org/2000/svg\"><rect width=\"10\" height=\"10\"/></svg>"
+            .repeat(50).getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Tests that data encoded with each codec decodes back to the original
+     * bytes, both in memory and through the streaming reader.
+     */
+    @Test
+    void shouldRoundTripEveryCodec() throws IOException {
+
+        for (StorageCodec codec : StorageCodec.values()) {
+            byte[] encoded = FileUtils.encode(SVG, codec);
+            Path file = tempDir.resolve(codec.name());
+            Files.write(file, encoded);
+
+            assertArrayEquals(SVG, FileUtils.decode(encoded));
+            try (InputStream inputStream = FileUtils.openDecodedStream(file)) {
+                assertArrayEquals(SVG, inputStream.readAllBytes());
+            }
+        }
+
+    }
+
+    /**
+     * Tests that streamed writes produce the same decodable file as in-memory
+     * encoding and leave no temp file behind.
+     */
+    @Test
+    void shouldStreamEncodeToFile() throws IOException {
+
+        for (StorageCodec codec : StorageCodec.values()) {
+            Path file = tempDir.resolve("streamed-" + codec.name());
+            FileUtils.writeEncoded(new ByteArrayInputStream(SVG), SVG.length, codec, file);
+
+            assertArrayEquals(SVG, FileUtils.decode(Files.readAllBytes(file)));
+            assertEquals(SVG.length, FileUtils.decodedLength(file));
+            assertFalse(Files.exists(tempDir.resolve("streamed-" + codec.name() + ".part")));
+        }
+
+    }
+
+    /**
+     * Tests that a stream shorter than the declared length is rejected and the
+     * target file is never created.
+     */
+    @Test
+    void shouldRejectTruncatedStream() {
+
+        Path file = tempDir.resolve("truncated");
+
+        assertThrows(IOException.class,
+                () -> FileUtils.writeEncoded(new ByteArrayInputStream(SVG), SVG.length + 1L, StorageCodec.RAW, file));
+        assertFalse(Files.exists(file));
+
+    }
+
+    /**
+     * Tests that files written in the legacy headerless zlib format still
+     * decode.
+     */
+    @Test
+    void shouldDecodeLegacyFiles() throws IOException {
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            deflater.setInput(SVG);
+            deflater.finish();
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                outputStream.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } finally {
+            deflater.end();
+        }
+
+        Path file = tempDir.resolve("legacy");
+        Files.write(file, outputStream.toByteArray());
+
+        assertTrue(FileUtils.isLegacyEncoded(file));
+        assertArrayEquals(SVG, FileUtils.decode(outputStream.toByteArray()));
+        assertEquals(SVG.length, FileUtils.decodedLength(file));
+
+    }
+
+    /**
+     * Soak test: runs 100k encode and decode operations from several threads
+     * and checks that the number of live zlib instances, and so the native
+     * memory they hold, never grows past the pool size.
+     */
+    @Test
+    void shouldKeepNativeCodecsBoundedUnderLoad() throws Exception {
+
+        Path file = tempDir.resolve("soak");
+        Files.write(file, FileUtils.encode(SVG, StorageCodec.DEFLATE));
+
+        int threads = 8;
+        int operationsPerThread = 100_000 / threads;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < operationsPerThread; i++) {
+                        byte[] encoded = FileUtils.encode(SVG, StorageCodec.DEFLATE);
+                        if (i % 2 == 0) {
+                            FileUtils.decode(encoded);
+                        } else {
+                            try (InputStream inputStream = FileUtils.openDecodedStream(file)) {
+                                inputStream.transferTo(OutputStream.nullOutputStream());
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(FileUtils.liveDeflaters() <= FileUtils.CODEC_POOL_SIZE,
+                "Live deflaters: " + FileUtils.liveDeflaters());
+        assertTrue(FileUtils.liveInflaters() <= FileUtils.CODEC_POOL_SIZE,
+                "Live inflaters: " + FileUtils.liveInflaters());
+
+    }
+
+    /**
+     * Tests that the ETag of a content-addressed file is built from its hash
+     * and survives the mtime touch done on reuse, while other files keep the
+     * size and mtime based ETag.
+     */
+    @Test
+    void shouldBaseContentAddressedETagOnHash() throws IOException {
+
+        String hash = "a".repeat(64);
+        Path contentAddressed = tempDir.resolve(hash + ".png");
+        Path named = tempDir.resolve("image.png");
+        Files.write(contentAddressed, SVG);
+        Files.write(named, SVG);
+
+        String eTag = FileUtils.eTag(contentAddressed, Files.readAttributes(contentAddressed, BasicFileAttributes.class));
+        String namedETag = FileUtils.eTag(named, Files.readAttributes(named, BasicFileAttributes.class));
+        Files.setLastModifiedTime(contentAddressed, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        Files.setLastModifiedTime(named, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+
+        assertEquals("\"" + hash + "-" + Long.toHexString(SVG.length) + "\"", eTag);
+        assertEquals(eTag,
+                FileUtils.eTag(contentAddressed, Files.readAttributes(contentAddressed, BasicFileAttributes.class)));
+        assertFalse(namedETag.equals(FileUtils.eTag(named, Files.readAttributes(named, BasicFileAttributes.class))));
+
+    }
+
+}